@@ -0,0 +1,38 @@
+package de.bremen.unloadme;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+/**
+ * An axiom filter accepting exactly the axioms of a given set, for example a
+ * module to nest the next extraction in. Unlike an arbitrary {@link Predicate},
+ * its axioms can be enumerated, so that a {@link DatalogBasedModuleExtractor}
+ * assembles the datalog program of the filtered axioms in time proportional to
+ * the set instead of the axiom base.
+ */
+public final class AxiomSetFilter implements Predicate<OWLAxiom> {
+
+	private final Set<OWLAxiom> axioms;
+
+	/**
+	 * @param axioms The axioms to accept, which must not be changed while the
+	 *               filter is in use
+	 */
+	public AxiomSetFilter(final Set<OWLAxiom> axioms) {
+		this.axioms = Objects.requireNonNull(axioms);
+	}
+
+	public Stream<OWLAxiom> axioms() {
+		return axioms.stream();
+	}
+
+	@Override
+	public boolean test(final OWLAxiom axiom) {
+		return axioms.contains(axiom);
+	}
+
+}
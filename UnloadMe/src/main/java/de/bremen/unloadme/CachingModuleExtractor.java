@@ -0,0 +1,224 @@
+package de.bremen.unloadme;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.modularity.ModuleExtractor;
+
+/**
+ * Caches the modules of a {@link ModuleExtractor}, for example {@link UnloadMe}
+ * or a {@link NestedModuleExtractor}, by seed signature. The cache is bounded
+ * by the total number of cached axioms and evicts the least recently used
+ * modules first.
+ *
+ * If enabled by {@link #setNarrowing(boolean)}, an extraction for an uncached
+ * signature is restricted to the smallest cached module of a superset of the
+ * signature. This is only sound for extractors whose modules contain the
+ * modules of all subsets of their signature, which does not hold for the
+ * datalog based modules of {@link UnloadMe} in general.
+ *
+ * Extractions with an axiom filter bypass the cache. All methods are
+ * thread-safe, extractions of different signatures run concurrently.
+ */
+public class CachingModuleExtractor implements ModuleExtractor {
+
+	private final ModuleExtractor moduleExtractor;
+
+	private final long maxCachedAxioms;
+
+	/**
+	 * The cached modules, from the least to the most recently used.
+	 */
+	private final Map<Set<OWLEntity>, Set<OWLAxiom>> modules = new LinkedHashMap<>();
+
+	/**
+	 * The cached signatures containing an entity, by entity.
+	 */
+	private final Map<OWLEntity, Set<Set<OWLEntity>>> signaturesContaining = new HashMap<>();
+
+	private long cachedAxioms = 0;
+
+	private volatile boolean narrowing = false;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong narrowedMisses = new AtomicLong();
+
+	/**
+	 * @param moduleExtractor The {@link ModuleExtractor} whose modules to cache
+	 * @param maxCachedAxioms The maximum total size of all cached modules
+	 */
+	public CachingModuleExtractor(final ModuleExtractor moduleExtractor, final long maxCachedAxioms) {
+		if (maxCachedAxioms < 0) {
+			throw new IllegalArgumentException("Negative cache size: " + maxCachedAxioms);
+		}
+		this.moduleExtractor = moduleExtractor;
+		this.maxCachedAxioms = maxCachedAxioms;
+	}
+
+	@Override
+	public Stream<OWLAxiom> axiomBase() {
+		return moduleExtractor.axiomBase();
+	}
+
+	/**
+	 * Removes all cached modules. Statistics are kept.
+	 */
+	public synchronized void clear() {
+		modules.clear();
+		signaturesContaining.clear();
+		cachedAxioms = 0;
+	}
+
+	private synchronized void evict() {
+		final Iterator<Map.Entry<Set<OWLEntity>, Set<OWLAxiom>>> leastRecentlyUsed = modules.entrySet().iterator();
+		while (cachedAxioms > maxCachedAxioms && leastRecentlyUsed.hasNext()) {
+			final var next = leastRecentlyUsed.next();
+			leastRecentlyUsed.remove();
+			cachedAxioms -= next.getValue().size();
+			next.getKey().forEach(entity -> {
+				final Set<Set<OWLEntity>> signatures = signaturesContaining.get(entity);
+				signatures.remove(next.getKey());
+				if (signatures.isEmpty()) {
+					signaturesContaining.remove(entity);
+				}
+			});
+		}
+	}
+
+	@Override
+	public Stream<OWLAxiom> extract(final Stream<OWLEntity> signature,
+			final Optional<Predicate<OWLAxiom>> axiomFilter) {
+		if (axiomFilter.isPresent()) {
+			return moduleExtractor.extract(signature, axiomFilter);
+		}
+		final Set<OWLEntity> signatureSet = Collections.unmodifiableSet(signature.collect(Collectors.toSet()));
+		final Set<OWLAxiom> cached = touch(signatureSet);
+		if (cached != null) {
+			hits.incrementAndGet();
+			return cached.stream();
+		}
+		misses.incrementAndGet();
+		final Set<OWLAxiom> superset = narrowing ? smallestModuleOfSuperset(signatureSet) : null;
+		final Set<OWLAxiom> module;
+		if (superset != null) {
+			narrowedMisses.incrementAndGet();
+			module = moduleExtractor.extract(signatureSet.stream(), new AxiomSetFilter(superset))
+					.collect(Collectors.toSet());
+		} else {
+			module = moduleExtractor.extract(signatureSet.stream()).collect(Collectors.toSet());
+		}
+		put(signatureSet, Collections.unmodifiableSet(module));
+		return module.stream();
+	}
+
+	/**
+	 * @return The number of axioms within all cached modules
+	 */
+	public synchronized long getCachedAxioms() {
+		return cachedAxioms;
+	}
+
+	/**
+	 * @return The number of extractions answered from the cache
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return The number of extractions not answered from the cache, including
+	 *         narrowed ones
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public ModuleExtractor getModuleExtractor() {
+		return moduleExtractor;
+	}
+
+	/**
+	 * @return The number of extractions not answered from the cache that have been
+	 *         restricted to the module of a superset of their signature
+	 */
+	public long getNarrowedMisses() {
+		return narrowedMisses.get();
+	}
+
+	public boolean isNarrowing() {
+		return narrowing;
+	}
+
+	private synchronized void put(final Set<OWLEntity> signature, final Set<OWLAxiom> module) {
+		if (module.size() > maxCachedAxioms) {
+			return;
+		}
+		final Set<OWLAxiom> previous = modules.put(signature, module);
+		if (previous != null) {
+			cachedAxioms -= previous.size();
+		}
+		cachedAxioms += module.size();
+		signature.forEach(next -> signaturesContaining.computeIfAbsent(next, e -> new HashSet<>()).add(signature));
+		evict();
+	}
+
+	/**
+	 * Sets whether extractions of uncached signatures are restricted to the
+	 * smallest cached module of a superset of the signature. Disabled by default.
+	 *
+	 * @param narrowing Whether to restrict extractions to cached modules
+	 */
+	public void setNarrowing(final boolean narrowing) {
+		this.narrowing = narrowing;
+	}
+
+	/**
+	 * @return The smallest cached module of a superset of the given signature, or
+	 *         null if there is none
+	 */
+	private synchronized Set<OWLAxiom> smallestModuleOfSuperset(final Set<OWLEntity> signature) {
+		// only the signatures containing the rarest entity have to be checked
+		Set<Set<OWLEntity>> candidates = modules.keySet();
+		for (final OWLEntity next : signature) {
+			final Set<Set<OWLEntity>> containing = signaturesContaining.getOrDefault(next, Collections.emptySet());
+			if (containing.size() < candidates.size()) {
+				candidates = containing;
+			}
+		}
+		Set<OWLEntity> smallest = null;
+		for (final Set<OWLEntity> candidate : candidates) {
+			if (candidate.containsAll(signature)
+					&& (smallest == null || modules.get(candidate).size() < modules.get(smallest).size())) {
+				smallest = candidate;
+			}
+		}
+		return smallest == null ? null : touch(smallest);
+	}
+
+	/**
+	 * Marks the module of the given signature as most recently used.
+	 *
+	 * @return The cached module of the given signature, or null if there is none
+	 */
+	private synchronized Set<OWLAxiom> touch(final Set<OWLEntity> signature) {
+		final Set<OWLAxiom> module = modules.remove(signature);
+		if (module != null) {
+			modules.put(signature, module);
+		}
+		return module;
+	}
+
+}
@@ -1,26 +1,62 @@
 package de.bremen.unloadme;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
 import org.semanticweb.owlapi.model.OWLEntity;
 import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
 import org.semanticweb.owlapi.model.OWLProperty;
 import org.semanticweb.owlapi.modularity.AbstractModuleExtractor;
 import org.semanticweb.owlapi.modularity.AtomicDecomposition;
 import org.semanticweb.owlapi.reasoner.OWLReasonerFactory;
 
+import com.google.common.collect.Iterators;
+
+import de.bremen.unloadme.datalog.CompactStatement;
 import de.bremen.unloadme.datalog.DatalogSignatureMapper;
 import de.bremen.unloadme.datalog.ProgramManager;
 import de.bremen.unloadme.datalog.SupportComputer;
+import de.bremen.unloadme.datalog.SupportComputer.Batch;
+import de.bremen.unloadme.datalog.SupportComputer.GrowingSupport;
+import de.bremen.unloadme.datalog.engine.DatalogEngine;
+import de.bremen.unloadme.datalog.engine.SemiNaiveEngine;
+import de.bremen.unloadme.datalog.engine.SharedMaterialisation;
+import de.bremen.unloadme.datalog.engine.VLogEngine;
+import de.bremen.unloadme.metrics.MetricsListener;
+import de.bremen.unloadme.metrics.MetricsListener.Count;
+import de.bremen.unloadme.metrics.MetricsListener.Stage;
 import de.bremen.unloadme.modulesettings.InseparabilityRelation;
 import de.bremen.unloadme.modulesettings.ModuleSetting;
 import de.bremen.unloadme.normalform.NormalFormManager;
@@ -46,9 +82,61 @@ import de.bremen.unloadme.normalform.NormalFormManager;
  * @author Robin Nolte
  *
  */
-public class DatalogBasedModuleExtractor extends AbstractModuleExtractor {
+public class DatalogBasedModuleExtractor extends AbstractModuleExtractor implements IncrementalModuleExtractor {
+
+	/**
+	 * The extraction of one module, which is extracted anew within the remaining
+	 * module once axioms have been removed from it. Even if the normal form of the
+	 * remaining module equals that of the module, the module can shrink, as the
+	 * removed axioms may have extended the signature of the iterations by symbols
+	 * not occurring in the normal form.
+	 */
+	private final class DatalogExtraction implements Extraction {
+
+		private final Set<OWLEntity> signature;
+		private Set<OWLAxiom> module;
+
+		private DatalogExtraction(final Set<OWLEntity> signature, final Set<OWLAxiom> module) {
+			this.signature = signature;
+			this.module = module;
+		}
+
+		@Override
+		public Set<OWLAxiom> module() {
+			return module;
+		}
+
+		@Override
+		public Set<OWLAxiom> remove(final Set<OWLAxiom> removed) {
+			final Set<OWLAxiom> remaining = new HashSet<>(module);
+			if (!remaining.removeAll(removed)) {
+				return Collections.emptySet();
+			}
+			final Optional<Predicate<OWLAxiom>> axiomFilter = Optional.of(new AxiomSetFilter(remaining));
+			module = extract(new HashSet<>(signature), axiomFilter, toDatalogProgram(axiomFilter), null);
+			remaining.removeAll(module);
+			return remaining;
+		}
+
+	}
 
-	private final Set<OWLAxiom> axiomBaseWithoutTautologies;
+	private static final int SNAPSHOT_MAGIC = 0x554c4d53;
+
+	private static final int SNAPSHOT_VERSION = 2;
+
+	/**
+	 * The classes that may be deserialised from snapshots: the axioms of the
+	 * OWL API and the objects of the Rulewerk model, with the collections and
+	 * boxed values they consist of
+	 */
+	private static final ObjectInputFilter SNAPSHOT_FILTER = ObjectInputFilter.Config
+			.createFilter("java.lang.*;java.util.*;com.google.common.collect.*;org.semanticweb.owlapi.**;"
+					+ "uk.ac.manchester.cs.owl.owlapi.**;org.semanticweb.rulewerk.core.model.**;!*");
+
+	/**
+	 * The number of axioms that are preprocessed at once during construction
+	 */
+	private static final int PREPROCESSING_CHUNK_SIZE = 4096;
 
 	private InseparabilityRelation inseparabilityRelation;
 
@@ -60,12 +148,31 @@ public class DatalogBasedModuleExtractor extends AbstractModuleExtractor {
 
 	private final SupportComputer supportComputer;
 
-	private final DatalogSignatureMapper datalogSignaturemapper = new DatalogSignatureMapper();
+	private final DatalogSignatureMapper datalogSignaturemapper;
+
+	private volatile MetricsListener metrics = MetricsListener.NONE;
+
+	private volatile boolean incrementalIterations = false;
+
+	/**
+	 * Whether the preprocessing has been taken over by the
+	 * {@link DatalogBasedModuleExtractor} of a changed axiom base, see
+	 * {@link #applyChanges(List, TautologyTester, OWLDataFactory)}
+	 */
+	private volatile boolean invalidated = false;
+
+	/**
+	 * The durations of the last preprocessing stages, reported to every new
+	 * {@link MetricsListener}
+	 */
+	private final Map<Stage, Long> preprocessing = new EnumMap<>(Stage.class);
 
 	/**
 	 * Constructs a new {@link DatalogBasedModuleExtractor}. This process may take
 	 * some time, as it computes a mapping from the input axiom base to a normal
 	 * form and a datalog mapping, and checks all axioms for being tautologies.
+	 * The given stream is collected into the axiom base once, which is then
+	 * preprocessed in chunks.
 	 *
 	 * @param axiomBase              The axiom base if this
 	 *                               {@link DatalogBasedModuleExtractor}
@@ -84,24 +191,179 @@ public class DatalogBasedModuleExtractor extends AbstractModuleExtractor {
 	 */
 	public DatalogBasedModuleExtractor(final Stream<OWLAxiom> axiomBase, final OWLOntologyManager ontologyManager,
 			final OWLReasonerFactory reasonerFactory, final InseparabilityRelation inseparabilityRelation) {
-		super(axiomBase);
-		checkAxiomBase();
-		// filter tautologies
-		final TautologyTester tautologyTester = new TautologyTester(ontologyManager, reasonerFactory);
-		axiomBaseWithoutTautologies = axiomBase().parallel().filter(next -> !tautologyTester.isTautology(next))
-				.collect(Collectors.toSet());
+		this(axiomBase, new TautologyTester(ontologyManager, reasonerFactory), ontologyManager.getOWLDataFactory(),
+				inseparabilityRelation, true);
+	}
+
+	/**
+	 * Constructs a new {@link DatalogBasedModuleExtractor} using the given
+	 * {@link TautologyTester}, for example to control the number of reasoners and
+	 * the executor used for tautology checks, or to share memoised verdicts
+	 * between extractors. The {@link TautologyTester} is not closed.
+	 *
+	 * @param axiomBase              The axiom base if this
+	 *                               {@link DatalogBasedModuleExtractor}
+	 * @param tautologyTester        The {@link TautologyTester} to use
+	 * @param dataFactory            The {@link OWLDataFactory} to use for the
+	 *                               normal form
+	 * @param inseparabilityRelation The {@link InseparabilityRelation} to use for
+	 *                               module extraction
+	 * @throws IllegalArgumentException If any given axiom is unsupported
+	 */
+	public DatalogBasedModuleExtractor(final Stream<OWLAxiom> axiomBase, final TautologyTester tautologyTester,
+			final OWLDataFactory dataFactory, final InseparabilityRelation inseparabilityRelation) {
+		this(axiomBase, tautologyTester, dataFactory, inseparabilityRelation, false);
+	}
 
-		// normal form
-		nfManager = new NormalFormManager(axiomBaseWithoutTautologies.stream(), ontologyManager.getOWLDataFactory());
+	private DatalogBasedModuleExtractor(final Stream<OWLAxiom> axiomBase, final TautologyTester tautologyTester,
+			final OWLDataFactory dataFactory, final InseparabilityRelation inseparabilityRelation,
+			final boolean closeTautologyTester) {
+		super(axiomBase);
+		final var normalForm = new NormalFormManager.Builder(axiomBase().flatMap(OWLAxiom::signature), dataFactory);
+		datalogSignaturemapper = new DatalogSignatureMapper();
+		final var program = new ProgramManager.Builder(datalogSignaturemapper);
 
-		programManager = new ProgramManager(nfManager.normalFormOfAxiomBase(), datalogSignaturemapper);
+		// the axiom base, which the OWL API holds as a set, is preprocessed in
+		// chunks, so that only the chunk is held in addition to the normal form and
+		// the datalog mapping; the normal form manager indexes the non-tautologies
+		// by an array and the IDs of its hash table
+		long tautologies = 0;
+		long normalisation = 0;
+		long rewriting = 0;
+		try {
+			checkSupported(axiomBase());
+			final Iterator<List<OWLAxiom>> chunks = Iterators.partition(axiomBase().iterator(),
+					PREPROCESSING_CHUNK_SIZE);
+			while (chunks.hasNext()) {
+				long start = System.nanoTime();
+				final Set<OWLAxiom> withoutTautologies = tautologyTester.removeTautologies(chunks.next());
+				tautologies += System.nanoTime() - start;
+				start = System.nanoTime();
+				final List<OWLAxiom> inNF = normalForm.add(withoutTautologies);
+				normalisation += System.nanoTime() - start;
+				start = System.nanoTime();
+				program.add(inNF);
+				rewriting += System.nanoTime() - start;
+			}
+		} finally {
+			if (closeTautologyTester) {
+				tautologyTester.close();
+			}
+		}
+		preprocessing.put(Stage.TAUTOLOGIES, tautologies);
+		preprocessing.put(Stage.NORMAL_FORM, normalisation);
+		preprocessing.put(Stage.DATALOG_REWRITING, rewriting);
+		nfManager = normalForm.build();
+		programManager = program.build();
 		supportComputer = new SupportComputer(datalogSignaturemapper);
 
 		setInseparabilityRelation(inseparabilityRelation);
 	}
 
-	private void checkAxiomBase() {
-		final var unsupportedAxioms = axiomBase().filter(next -> !Util.isSupportedAxiom(next))
+	private DatalogBasedModuleExtractor(final Stream<OWLAxiom> axiomBase, final ObjectInputStream in,
+			final InseparabilityRelation inseparabilityRelation) throws IOException, ClassNotFoundException {
+		super(axiomBase);
+		checkSupported(axiomBase());
+		nfManager = NormalFormManager.read(in);
+		datalogSignaturemapper = DatalogSignatureMapper.read(in);
+		programManager = ProgramManager.read(in, datalogSignaturemapper);
+		supportComputer = new SupportComputer(datalogSignaturemapper);
+
+		// the substitution is recomputed, as module settings keep track of the
+		// constants they substitute
+		this.inseparabilityRelation = inseparabilityRelation;
+		moduleSetting = inseparabilityRelation.computeModuleSetting(datalogSignaturemapper);
+		final long start = System.nanoTime();
+		programManager.setModuleSetting(moduleSetting);
+		preprocessed(Stage.MODULE_SETTING, start);
+		supportComputer.read(in, moduleSetting);
+	}
+
+	/**
+	 * Constructs a {@link DatalogBasedModuleExtractor} for the changed axiom base
+	 * of the given one, see
+	 * {@link #applyChanges(List, TautologyTester, OWLDataFactory)}.
+	 */
+	private DatalogBasedModuleExtractor(final DatalogBasedModuleExtractor previous, final Stream<OWLAxiom> axiomBase,
+			final TautologyTester tautologyTester, final OWLDataFactory dataFactory) {
+		super(axiomBase);
+		final Set<OWLAxiom> removed = previous.axiomBase().filter(next -> !containsAxiom(next))
+				.collect(Collectors.toSet());
+		final List<OWLAxiom> added = axiomBase().filter(next -> !previous.containsAxiom(next))
+				.collect(Collectors.toList());
+		checkSupported(added.stream());
+
+		long start = System.nanoTime();
+		final Set<OWLAxiom> withoutTautologies = tautologyTester.removeTautologies(added);
+		preprocessing.put(Stage.TAUTOLOGIES, System.nanoTime() - start);
+		start = System.nanoTime();
+		final var normalForm = previous.nfManager.update(removed, withoutTautologies, dataFactory);
+		nfManager = normalForm.getKey();
+		preprocessing.put(Stage.NORMAL_FORM, System.nanoTime() - start);
+		start = System.nanoTime();
+		// the remaining axioms of the normal form have the lowest IDs
+		final int remaining = (int) Arrays.stream(normalForm.getValue()).filter(next -> next >= 0).count();
+		programManager = previous.programManager.update(normalForm.getValue(),
+				nfManager.normalFormOfAxiomBase().skip(remaining).collect(Collectors.toList()));
+		preprocessing.put(Stage.DATALOG_REWRITING, System.nanoTime() - start);
+		start = System.nanoTime();
+		supportComputer = previous.supportComputer.update(programManager.getCompleteDatalogProgram());
+		preprocessing.put(Stage.REDUCTION, System.nanoTime() - start);
+
+		datalogSignaturemapper = previous.datalogSignaturemapper;
+		inseparabilityRelation = previous.inseparabilityRelation;
+		moduleSetting = previous.moduleSetting;
+		incrementalIterations = previous.incrementalIterations;
+		setMetricsListener(previous.metrics);
+		previous.invalidated = true;
+	}
+
+	/**
+	 * Applies the given changes to the axiom base like
+	 * {@link #applyChanges(List, TautologyTester, OWLDataFactory)}, checking the
+	 * added axioms for being tautologies with the given
+	 * {@link OWLOntologyManager} and {@link OWLReasonerFactory}.
+	 */
+	public DatalogBasedModuleExtractor applyChanges(final List<? extends OWLOntologyChange> changes,
+			final OWLOntologyManager ontologyManager, final OWLReasonerFactory reasonerFactory) {
+		try (final var tautologyTester = new TautologyTester(ontologyManager, reasonerFactory)) {
+			return applyChanges(changes, tautologyTester, ontologyManager.getOWLDataFactory());
+		}
+	}
+
+	/**
+	 * Applies the given changes to the axiom base, ignoring all changes other than
+	 * adding and removing axioms. As the axiom base of an
+	 * {@link AbstractModuleExtractor} cannot change, the changed axiom base is
+	 * managed by a new {@link DatalogBasedModuleExtractor}, which takes over the
+	 * settings of this one and is much faster to construct: only the added axioms
+	 * are checked for being tautologies, normalised and translated to datalog, and
+	 * only their statements are substituted and reduced for the current
+	 * {@link InseparabilityRelation}. The preprocessing of the remaining axioms,
+	 * including the datalog signature mapping and the reductions, is taken over
+	 * from this {@link DatalogBasedModuleExtractor}, which is invalidated: it
+	 * throws an {@link IllegalStateException} on any further module extraction or
+	 * change.
+	 *
+	 * @param changes         The changes to apply
+	 * @param tautologyTester The {@link TautologyTester} to check the added axioms
+	 *                        with, which is not closed
+	 * @param dataFactory     The {@link OWLDataFactory} to use for the normal form
+	 *                        of the added axioms
+	 * @return The {@link DatalogBasedModuleExtractor} of the changed axiom base
+	 * @throws IllegalArgumentException If any added axiom is unsupported
+	 * @throws IllegalStateException    If changes have already been applied to
+	 *                                  this {@link DatalogBasedModuleExtractor}
+	 */
+	public DatalogBasedModuleExtractor applyChanges(final List<? extends OWLOntologyChange> changes,
+			final TautologyTester tautologyTester, final OWLDataFactory dataFactory) {
+		checkValid();
+		return new DatalogBasedModuleExtractor(this, Util.applyChanges(axiomBase(), changes), tautologyTester,
+				dataFactory);
+	}
+
+	private static void checkSupported(final Stream<OWLAxiom> axioms) {
+		final var unsupportedAxioms = axioms.filter(next -> !Util.isSupportedAxiom(next))
 				.collect(Collectors.toSet());
 		if (!unsupportedAxioms.isEmpty()) {
 			throw new IllegalArgumentException("Unsupported Axioms: " + unsupportedAxioms);
@@ -119,6 +381,13 @@ public class DatalogBasedModuleExtractor extends AbstractModuleExtractor {
 		}
 	}
 
+	private void checkValid() {
+		if (invalidated) {
+			throw new IllegalStateException(
+					"Invalidated by applying changes, use the DatalogBasedModuleExtractor returned by applyChanges instead");
+		}
+	}
+
 	/**
 	 * {@inheritDoc} Corresponds to the iterative version of Datalog based Module
 	 * extraction plus Tautology checks (NOT applicable for the
@@ -139,40 +408,103 @@ public class DatalogBasedModuleExtractor extends AbstractModuleExtractor {
 			final Optional<Predicate<OWLAxiom>> axiomFilter) {
 		final Set<OWLEntity> signatureSet = Util.cleanSignature(signature).collect(Collectors.toSet());
 		checkSafety(signatureSet);
+		return extract(signatureSet, axiomFilter, toDatalogProgram(axiomFilter), null).stream();
+	}
+
+	/**
+	 * @param batch The {@link Batch} of the given datalog program to compute the
+	 *              support with, or null
+	 */
+	private Set<OWLAxiom> extract(final Set<OWLEntity> signatureSet, final Optional<Predicate<OWLAxiom>> axiomFilter,
+			final Pair<BitSet, Set<CompactStatement>> datalogProgram, final Batch batch) {
+		final MetricsListener metrics = this.metrics;
+		final long start = metrics.start();
 		int previousSize;
 		Set<OWLAxiom> module;
-		do {
-			previousSize = signatureSet.size();
-			module = extractSingleModule(signatureSet, axiomFilter).collect(Collectors.toSet());
-			Util.cleanSignature(module.stream().flatMap(OWLAxiom::signature)).forEach(signatureSet::add);
-		} while (previousSize != signatureSet.size());
-
-		return module.stream();
+		int iterations = 0;
+		// without incremental iterations, every support is computed from scratch
+		try (final GrowingSupport growingSupport = !incrementalIterations ? null
+				: batch == null ? supportComputer.growing(datalogProgram.getValue()) : batch.growing()) {
+			do {
+				previousSize = signatureSet.size();
+				module = extractSingleModule(signatureSet, axiomFilter, datalogProgram, batch, growingSupport);
+				Util.cleanSignature(module.stream().flatMap(OWLAxiom::signature)).forEach(signatureSet::add);
+				iterations++;
+			} while (previousSize != signatureSet.size());
+		}
+		metrics.count(Count.ITERATIONS, iterations);
+		metrics.count(Count.DATALOG_MODULE_SIZE, module.size());
+		metrics.stop(Stage.DATALOG_EXTRACTION, start);
+		return module;
 	}
 
-	private Stream<OWLAxiom> extractSingleModule(final Set<OWLEntity> signatureSet,
-			final Optional<Predicate<OWLAxiom>> axiomFilter) {
-		Stream<OWLAxiom> filtered = axiomBaseWithoutTautologies.stream();
-		if (!axiomFilter.isEmpty()) {
-			filtered = filtered.filter(axiomFilter.get());
+	/**
+	 * Extracts the modules of all given signatures like {@link #extract(Stream)},
+	 * but with the datalog program of the axiom base built once. If the
+	 * {@link DatalogEngine} {@link DatalogEngine#sharesMaterialisations() shares
+	 * materialisations}, as {@link SemiNaiveEngine} does, the program is
+	 * materialised only once and the modules are extracted in parallel.
+	 * Otherwise, such as for the {@link VLogEngine}, every signature needs a
+	 * materialisation of its own, and the modules are extracted one after the
+	 * other.
+	 *
+	 * @param signatures The signatures to extract modules for
+	 * @return The module of every given signature
+	 * @throws IllegalArgumentException Under the same conditions as
+	 *                                  {@link #extract(Stream, Optional)}
+	 */
+	public Map<Set<OWLEntity>, Set<OWLAxiom>> extractAll(final Collection<Set<OWLEntity>> signatures) {
+		signatures.forEach(next -> checkSafety(Util.cleanSignature(next.stream()).collect(Collectors.toSet())));
+		final Optional<Predicate<OWLAxiom>> axiomFilter = Optional.empty();
+		final var datalogProgram = toDatalogProgram(axiomFilter);
+		try (final Batch batch = supportComputer.batch(datalogProgram.getValue())) {
+			final Stream<Set<OWLEntity>> stream = getDatalogEngine().sharesMaterialisations()
+					? signatures.parallelStream()
+					: signatures.stream();
+			return stream
+					.collect(Collectors.toConcurrentMap(next -> next,
+							next -> extract(Util.cleanSignature(next.stream()).collect(Collectors.toSet()),
+									axiomFilter, datalogProgram, batch),
+							(first, second) -> first));
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
 		}
-		final Set<OWLAxiom> filteredAxiomBase = filtered.collect(Collectors.toSet());
+	}
+
+	/**
+	 * @param growingSupport The {@link GrowingSupport} of the previous iterations
+	 *                       to compute the support with, or null
+	 */
+	private Set<OWLAxiom> extractSingleModule(final Set<OWLEntity> signatureSet,
+			final Optional<Predicate<OWLAxiom>> axiomFilter,
+			final Pair<BitSet, Set<CompactStatement>> datalogProgram, final Batch batch,
+			final GrowingSupport growingSupport) {
+		checkValid();
 		final var facts = moduleSetting
 				.getFacts(signatureSet.stream()
 						.map(next -> next instanceof OWLClass ? datalogSignaturemapper.toPredicate((OWLClass) next)
 								: datalogSignaturemapper.toPredicate((OWLObjectProperty) next))
 						.collect(Collectors.toSet()));
-		final Set<OWLAxiom> inNF = filteredAxiomBase.stream().flatMap(nfManager::normalFormOf)
-				.collect(Collectors.toSet());
-		final var datalogkB = programManager.toDatalogProgram(inNF::contains);
 		try {
-			final var support = supportComputer.computeSupport(datalogkB.getValue(), facts);
-			final var owlNFSupport = programManager.reverse(support.stream(), datalogkB.getKey());
-			var result = owlNFSupport.flatMap(nfManager::orig);
+			final Set<CompactStatement> support;
+			if (growingSupport != null) {
+				support = growingSupport.computeSupport(facts);
+			} else if (batch != null) {
+				support = batch.computeSupport(facts);
+			} else {
+				support = supportComputer.computeSupport(datalogProgram.getValue(), facts);
+			}
+			final long start = metrics.start();
+			final BitSet moduleIds = new BitSet(nfManager.size());
+			programManager.reverse(support.stream(), datalogProgram.getKey())
+					.forEach(next -> nfManager.orig(next).forEach(moduleIds::set));
+			var result = moduleIds.stream().mapToObj(nfManager::axiom);
 			if (!axiomFilter.isEmpty()) {
 				result = result.filter(axiomFilter.get());
 			}
-			return result;
+			final Set<OWLAxiom> module = result.collect(Collectors.toSet());
+			metrics.stop(Stage.REVERSE_MAPPING, start);
+			return module;
 		} catch (final IOException e) {
 			throw new RuntimeException(e);
 		} catch (final RuntimeException e) {
@@ -199,18 +531,174 @@ public class DatalogBasedModuleExtractor extends AbstractModuleExtractor {
 			final Optional<Predicate<OWLAxiom>> axiomFilter) {
 		final var signatureSet = signature.collect(Collectors.toSet());
 		checkSafety(signatureSet);
-		return extractSingleModule(signatureSet, axiomFilter);
+		return extractSingleModule(signatureSet, axiomFilter, toDatalogProgram(axiomFilter), null, null).stream();
+	}
+
+	/**
+	 * @return The {@link DatalogEngine} used for support computation
+	 */
+	public DatalogEngine getDatalogEngine() {
+		return supportComputer.getEngine();
 	}
 
 	public InseparabilityRelation getInseparabilityRelation() {
 		return inseparabilityRelation;
 	}
 
+	public MetricsListener getMetricsListener() {
+		return metrics;
+	}
+
 	/**
 	 * @return The tautologies within the axiom base
 	 */
 	public final Stream<OWLAxiom> getTautologies() {
-		return axiomBase().filter(next -> !axiomBaseWithoutTautologies.contains(next));
+		return axiomBase().filter(next -> !nfManager.contains(next));
+	}
+
+	/**
+	 * @return Whether the support is computed goal-directed
+	 * @see #setGoalDirected(boolean)
+	 */
+	public boolean isGoalDirected() {
+		return supportComputer.isGoalDirected();
+	}
+
+	/**
+	 * @return Whether the iterations continue the support computation of the
+	 *         previous iteration
+	 * @see #setIncrementalIterations(boolean)
+	 */
+	public boolean isIncrementalIterations() {
+		return incrementalIterations;
+	}
+
+	/**
+	 * @return Whether datalog programs are pruned before reasoning
+	 * @see #setProgramPruning(boolean)
+	 */
+	public boolean isProgramPruning() {
+		return supportComputer.isProgramPruning();
+	}
+
+	/**
+	 * Loads a {@link DatalogBasedModuleExtractor} from a snapshot written by
+	 * {@link #saveSnapshot(Path)}, which is much faster than constructing it, as
+	 * neither tautology checks nor the normal form or datalog mapping have to be
+	 * computed.
+	 *
+	 * @param file                   The snapshot to load
+	 * @param axiomBase              The axiom base the snapshot has been saved for
+	 * @param inseparabilityRelation The {@link InseparabilityRelation} the
+	 *                               snapshot has been saved for
+	 * @throws IOException If the snapshot cannot be read, contains objects of
+	 *                     other classes than those of OWL API axioms and the
+	 *                     Rulewerk model, or has not been saved for the given
+	 *                     axiom base and {@link InseparabilityRelation}
+	 * @see #snapshotKey(Stream, InseparabilityRelation)
+	 */
+	public static DatalogBasedModuleExtractor loadSnapshot(final Path file, final Stream<OWLAxiom> axiomBase,
+			final InseparabilityRelation inseparabilityRelation) throws IOException {
+		final List<OWLAxiom> axioms = axiomBase.collect(Collectors.toList());
+		final String key = snapshotKey(axioms.stream(), inseparabilityRelation);
+		try (final var in = new ObjectInputStream(
+				new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file))))) {
+			in.setObjectInputFilter(SNAPSHOT_FILTER);
+			if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+				throw new IOException("Not a snapshot of this version: " + file);
+			}
+			if (!key.equals(in.readUTF())) {
+				throw new IOException(
+						"Snapshot has been saved for another axiom base or inseparability relation: " + file);
+			}
+			return new DatalogBasedModuleExtractor(axioms.stream(), in, inseparabilityRelation);
+		} catch (final ClassNotFoundException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Records the duration of the preprocessing stage started at the given time
+	 * and reports it.
+	 */
+	private synchronized void preprocessed(final Stage stage, final long start) {
+		final long duration = System.nanoTime() - start;
+		preprocessing.put(stage, duration);
+		metrics.duration(stage, duration);
+	}
+
+	/**
+	 * Saves the preprocessed state of this {@link DatalogBasedModuleExtractor},
+	 * that is the axiom base without tautologies, its normal form, the datalog
+	 * mapping and the reduction for the current {@link InseparabilityRelation}, to
+	 * the given file.
+	 *
+	 * @param file The file to save the snapshot to
+	 * @see #loadSnapshot(Path, Stream, InseparabilityRelation)
+	 */
+	public void saveSnapshot(final Path file) throws IOException {
+		checkValid();
+		try (final var out = new ObjectOutputStream(
+				new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file))))) {
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeInt(SNAPSHOT_VERSION);
+			out.writeUTF(snapshotKey(axiomBase(), inseparabilityRelation));
+			nfManager.write(out);
+			datalogSignaturemapper.write(out);
+			programManager.write(out);
+			supportComputer.write(out);
+		}
+	}
+
+	/**
+	 * Sets the {@link DatalogEngine} used for support computation, for example
+	 * {@link SemiNaiveEngine} to reason within the JVM instead of with VLog.
+	 *
+	 * @param engine The engine to use
+	 */
+	public void setDatalogEngine(final DatalogEngine engine) {
+		supportComputer.setEngine(engine);
+	}
+
+	/**
+	 * Sets the {@link MetricsListener} to report to, also for the datalog program
+	 * and the support computation. The durations of the preprocessing stages,
+	 * which have already been completed by the constructor, are reported
+	 * immediately.
+	 *
+	 * @param metrics The {@link MetricsListener} to use, {@link MetricsListener#NONE}
+	 *                to disable metrics
+	 */
+	public synchronized void setMetricsListener(final MetricsListener metrics) {
+		this.metrics = Objects.requireNonNull(metrics);
+		programManager.setMetricsListener(metrics);
+		supportComputer.setMetricsListener(metrics);
+		preprocessing.forEach(metrics::duration);
+	}
+
+	/**
+	 * Enables or disables the goal-directed support computation. The support is
+	 * then searched top-down from the relevant facts of the seed signature instead
+	 * of materialising the reduction of the whole datalog program, which pays off
+	 * for large ontologies and small signatures.
+	 *
+	 * @param goalDirected Whether to compute the support goal-directed
+	 */
+	public void setGoalDirected(final boolean goalDirected) {
+		supportComputer.setGoalDirected(goalDirected);
+	}
+
+	/**
+	 * Enables or disables the incremental iterations of
+	 * {@link #extract(Stream, Optional)}. Instead of computing the support of every
+	 * grown signature from scratch, every iteration adds the seed facts of the
+	 * newly added symbols to the materialisations of the previous iteration, see
+	 * {@link GrowingSupport}. The modules are the same. Disabled by default.
+	 *
+	 * @param incrementalIterations Whether to continue the previous iteration
+	 */
+	public void setIncrementalIterations(final boolean incrementalIterations) {
+		this.incrementalIterations = incrementalIterations;
 	}
 
 	/**
@@ -224,11 +712,90 @@ public class DatalogBasedModuleExtractor extends AbstractModuleExtractor {
 		if (inseparabilityRelation == relation) {
 			return;
 		}
+		checkValid();
 		inseparabilityRelation = Objects.requireNonNull(relation);
 		moduleSetting = inseparabilityRelation.computeModuleSetting(datalogSignaturemapper);
 
+		long start = System.nanoTime();
 		programManager.setModuleSetting(moduleSetting);
-		supportComputer.setModuleSetting(moduleSetting, programManager.getCompleteDatalogKnowledgeBase());
+		preprocessed(Stage.MODULE_SETTING, start);
+		start = System.nanoTime();
+		supportComputer.setModuleSetting(moduleSetting, programManager.getCompleteDatalogProgram());
+		preprocessed(Stage.REDUCTION, start);
+	}
+
+	/**
+	 * Enables or disables the pruning of datalog programs before reasoning. Every
+	 * support computation then only materialises the rules that can fire from the
+	 * seed facts and that can derive relevant facts of the seed signature, which
+	 * pays off for small signatures. Does not apply to
+	 * {@link #extractAll(Collection)} and incremental iterations, which share
+	 * their programs between signatures.
+	 *
+	 * @param programPruning Whether to prune datalog programs
+	 */
+	public void setProgramPruning(final boolean programPruning) {
+		supportComputer.setProgramPruning(programPruning);
+	}
+
+	/**
+	 * @return The SHA-256 hash identifying snapshots of the given axiom base and
+	 *         {@link InseparabilityRelation}, independent of the order of the
+	 *         axioms
+	 */
+	public static String snapshotKey(final Stream<OWLAxiom> axiomBase,
+			final InseparabilityRelation inseparabilityRelation) {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		digest.update(inseparabilityRelation.name().getBytes(StandardCharsets.UTF_8));
+		axiomBase.map(OWLAxiom::toString).sorted().distinct().forEach(next -> {
+			digest.update((byte) '\n');
+			digest.update(next.getBytes(StandardCharsets.UTF_8));
+		});
+		final StringBuilder key = new StringBuilder();
+		for (final byte next : digest.digest()) {
+			key.append(String.format("%02x", next));
+		}
+		return key.toString();
+	}
+
+	/**
+	 * {@inheritDoc} The datalog program of the remaining module is assembled from
+	 * the normal forms of its axioms only.
+	 */
+	@Override
+	public Extraction startExtraction(final Stream<OWLEntity> signature,
+			final Optional<Predicate<OWLAxiom>> axiomFilter) {
+		final Set<OWLEntity> signatureSet = Util.cleanSignature(signature).collect(Collectors.toSet());
+		checkSafety(signatureSet);
+		final Set<OWLEntity> seedSignature = Set.copyOf(signatureSet);
+		return new DatalogExtraction(seedSignature,
+				extract(signatureSet, axiomFilter, toDatalogProgram(axiomFilter), null));
+	}
+
+	/**
+	 * @return The datalog program of the axiom base restricted to the given filter,
+	 *         and the mapping of its statements back to the normal form
+	 */
+	private Pair<BitSet, Set<CompactStatement>> toDatalogProgram(final Optional<Predicate<OWLAxiom>> axiomFilter) {
+		final BitSet inNF = new BitSet(nfManager.normalFormSize());
+		if (axiomFilter.isPresent() && axiomFilter.get() instanceof AxiomSetFilter) {
+			// only the filtered axioms have to be looked at, tautologies have no normal
+			// form
+			((AxiomSetFilter) axiomFilter.get()).axioms().mapToInt(nfManager::id).filter(next -> next >= 0)
+					.forEach(next -> nfManager.normalFormOf(next).forEach(inNF::set));
+		} else {
+			for (int id = 0; id < nfManager.size(); id++) {
+				if (axiomFilter.isEmpty() || axiomFilter.get().test(nfManager.axiom(id))) {
+					nfManager.normalFormOf(id).forEach(inNF::set);
+				}
+			}
+		}
+		return programManager.toDatalogProgram(inNF);
 	}
 
 }
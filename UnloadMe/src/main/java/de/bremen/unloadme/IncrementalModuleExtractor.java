@@ -0,0 +1,51 @@
+package de.bremen.unloadme;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.modularity.ModuleExtractor;
+
+/**
+ * A {@link ModuleExtractor} whose extractions can be continued after axioms
+ * have been removed from the module, for example by the other extractors of a
+ * {@link NestedModuleExtractor}. An extraction is continued with the removed
+ * axioms only, so that it is skipped as long as no axioms are removed from its
+ * module.
+ */
+public interface IncrementalModuleExtractor extends ModuleExtractor {
+
+	/**
+	 * The extraction of the module of one signature.
+	 */
+	interface Extraction {
+
+		/**
+		 * @return The current module, which must not be modified
+		 */
+		Set<OWLAxiom> module();
+
+		/**
+		 * Removes the given axioms from the module and shrinks the module to the
+		 * module of the signature within the remaining axioms.
+		 *
+		 * @param removed The axioms to remove
+		 * @return The axioms removed in addition to the given ones, which is empty if
+		 *         the remaining module cannot shrink any further
+		 */
+		Set<OWLAxiom> remove(Set<OWLAxiom> removed);
+
+	}
+
+	/**
+	 * Extracts the same module as {@link #extract(Stream, Optional)} and keeps
+	 * the state of the extraction.
+	 *
+	 * @return The extraction, whose module is the extracted module
+	 */
+	Extraction startExtraction(Stream<OWLEntity> signature, Optional<Predicate<OWLAxiom>> axiomFilter);
+
+}
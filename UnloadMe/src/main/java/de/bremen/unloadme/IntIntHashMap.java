@@ -0,0 +1,106 @@
+package de.bremen.unloadme;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from int to int without boxing. Absent keys are
+ * mapped to -1.
+ */
+public final class IntIntHashMap {
+
+	private static final int FREE = Integer.MIN_VALUE;
+
+	private int[] keys;
+	private int[] values;
+	private int mask;
+	private int size;
+
+	public IntIntHashMap() {
+		this(16);
+	}
+
+	public IntIntHashMap(final int expectedSize) {
+		int capacity = 16;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	/**
+	 * Constructs a copy of the given map.
+	 */
+	public IntIntHashMap(final IntIntHashMap original) {
+		keys = original.keys.clone();
+		values = original.values.clone();
+		mask = original.mask;
+		size = original.size;
+	}
+
+	private void allocate(final int capacity) {
+		keys = new int[capacity];
+		Arrays.fill(keys, FREE);
+		values = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	public int get(final int key) {
+		int slot = mix(key) & mask;
+		while (keys[slot] != FREE) {
+			if (keys[slot] == key) {
+				return values[slot];
+			}
+			slot = slot + 1 & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return The given hash code with its bits spread for open addressing
+	 */
+	public static int mix(final int key) {
+		final int h = key * 0x9E3779B9;
+		return h ^ h >>> 16;
+	}
+
+	/**
+	 * @return The value previously associated with the key, or -1
+	 */
+	public int put(final int key, final int value) {
+		if (key == FREE) {
+			throw new IllegalArgumentException("Reserved key: " + key);
+		}
+		int slot = mix(key) & mask;
+		while (keys[slot] != FREE) {
+			if (keys[slot] == key) {
+				final int previous = values[slot];
+				values[slot] = value;
+				return previous;
+			}
+			slot = slot + 1 & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		if (++size * 2 > keys.length) {
+			rehash();
+		}
+		return -1;
+	}
+
+	private void rehash() {
+		final int[] oldKeys = keys;
+		final int[] oldValues = values;
+		allocate(oldKeys.length << 1);
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != FREE) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+}
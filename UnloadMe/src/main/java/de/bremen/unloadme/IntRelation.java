@@ -0,0 +1,112 @@
+package de.bremen.unloadme;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable relation between dense int IDs, stored as compressed sparse
+ * rows: the targets of all sources in one array, and for every source the
+ * offset of its targets within it. The targets of a source keep the order in
+ * which they have been added.
+ */
+public final class IntRelation {
+
+	/**
+	 * Builds an {@link IntRelation} row by row, the sources being numbered in the
+	 * order their rows are added.
+	 */
+	public static final class Builder {
+
+		private int[] offsets = new int[16];
+		private int[] targets = new int[16];
+		private int sources;
+
+		/**
+		 * Adds the row of the next source.
+		 *
+		 * @param row The targets of the next source
+		 * @return The next source
+		 */
+		public int addRow(final int... row) {
+			final int end = offsets[sources] + row.length;
+			if (sources + 2 > offsets.length) {
+				offsets = Arrays.copyOf(offsets, offsets.length * 2);
+			}
+			if (end > targets.length) {
+				targets = Arrays.copyOf(targets, Math.max(end, targets.length * 2));
+			}
+			System.arraycopy(row, 0, targets, offsets[sources], row.length);
+			offsets[sources + 1] = end;
+			return sources++;
+		}
+
+		public IntRelation build() {
+			return new IntRelation(Arrays.copyOf(offsets, sources + 1), Arrays.copyOf(targets, offsets[sources]));
+		}
+
+	}
+
+	private final int[] offsets;
+	private final int[] targets;
+
+	private IntRelation(final int[] offsets, final int[] targets) {
+		this.offsets = offsets;
+		this.targets = targets;
+	}
+
+	/**
+	 * Calls the given action for every target of the given source.
+	 */
+	public void forEach(final int source, final IntConsumer action) {
+		for (int i = offsets[source]; i < offsets[source + 1]; i++) {
+			action.accept(targets[i]);
+		}
+	}
+
+	/**
+	 * Computes the inverse relation, whose rows are sorted.
+	 *
+	 * @param targetCount The number of targets, that is the number of sources of
+	 *                    the inverse relation
+	 */
+	public IntRelation inverse(final int targetCount) {
+		final int[] inverseOffsets = new int[targetCount + 1];
+		for (final int target : targets) {
+			inverseOffsets[target + 1]++;
+		}
+		for (int i = 0; i < targetCount; i++) {
+			inverseOffsets[i + 1] += inverseOffsets[i];
+		}
+		final int[] next = Arrays.copyOf(inverseOffsets, targetCount);
+		final int[] inverseTargets = new int[targets.length];
+		for (int source = 0; source < sources(); source++) {
+			for (int i = offsets[source]; i < offsets[source + 1]; i++) {
+				inverseTargets[next[targets[i]]++] = source;
+			}
+		}
+		return new IntRelation(inverseOffsets, inverseTargets);
+	}
+
+	/**
+	 * @return The targets of the given source
+	 */
+	public IntStream row(final int source) {
+		return Arrays.stream(targets, offsets[source], offsets[source + 1]);
+	}
+
+	/**
+	 * @return The number of targets of the given source
+	 */
+	public int size(final int source) {
+		return offsets[source + 1] - offsets[source];
+	}
+
+	/**
+	 * @return The number of sources
+	 */
+	public int sources() {
+		return offsets.length - 1;
+	}
+
+}
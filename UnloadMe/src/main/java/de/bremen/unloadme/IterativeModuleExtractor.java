@@ -1,6 +1,5 @@
 package de.bremen.unloadme;
 
-import java.util.Collections;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -24,17 +23,25 @@ public class IterativeModuleExtractor implements ModuleExtractor {
 		return toIterateOver.axiomBase();
 	}
 
+	/**
+	 * {@inheritDoc} The signature is extended by the signature of the module until
+	 * it contains the signature of the module. Every iteration extracts the module
+	 * of the extended signature from scratch, see
+	 * {@link DatalogBasedModuleExtractor#setIncrementalIterations(boolean)} for
+	 * iterations continuing the previous ones.
+	 */
 	@Override
 	public Stream<OWLAxiom> extract(final Stream<OWLEntity> signature,
 			final Optional<Predicate<OWLAxiom>> axiomFilter) {
 		final Set<OWLEntity> workingSignature = signature.collect(Collectors.toSet());
-		final Set<OWLAxiom> lastModule = Collections.emptySet();
-		Set<OWLAxiom> nextModule;
+		int previousSize;
+		Set<OWLAxiom> module;
 		do {
-			nextModule = toIterateOver.extract(workingSignature.stream(), axiomFilter).collect(Collectors.toSet());
-			nextModule.stream().flatMap(OWLAxiom::signature).forEach(workingSignature::add);
-		} while (!lastModule.equals(nextModule));
-		return nextModule.stream();
+			previousSize = workingSignature.size();
+			module = toIterateOver.extract(workingSignature.stream(), axiomFilter).collect(Collectors.toSet());
+			module.stream().flatMap(OWLAxiom::signature).forEach(workingSignature::add);
+		} while (previousSize != workingSignature.size());
+		return module.stream();
 	}
 
 	public ModuleExtractor getToIterateOver() {
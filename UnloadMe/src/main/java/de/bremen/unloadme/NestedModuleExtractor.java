@@ -1,5 +1,9 @@
 package de.bremen.unloadme;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -9,11 +13,52 @@ import java.util.stream.Stream;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLEntity;
 import org.semanticweb.owlapi.modularity.ModuleExtractor;
+import org.semanticweb.owlapi.modularity.locality.SyntacticLocalityModuleExtractor;
+
+import de.bremen.unloadme.IncrementalModuleExtractor.Extraction;
+import de.bremen.unloadme.metrics.MetricsListener;
+import de.bremen.unloadme.metrics.MetricsListener.Count;
+import de.bremen.unloadme.metrics.MetricsListener.Stage;
 
 public class NestedModuleExtractor implements ModuleExtractor {
 	
+	/**
+	 * Re-extracts the module of a nested extractor that is not an
+	 * {@link IncrementalModuleExtractor} from scratch within the remaining module.
+	 */
+	private static final class Reextraction implements Extraction {
+		
+		private final ModuleExtractor extractor;
+		private final Set<OWLEntity> signature;
+		private Set<OWLAxiom> module;
+		
+		private Reextraction(final ModuleExtractor extractor, final Set<OWLEntity> signature,
+				final Set<OWLAxiom> module) {
+			this.extractor = extractor;
+			this.signature = signature;
+			this.module = module;
+		}
+		
+		@Override
+		public Set<OWLAxiom> module() {
+			return module;
+		}
+		
+		@Override
+		public Set<OWLAxiom> remove(final Set<OWLAxiom> removed) {
+			final Set<OWLAxiom> remaining = new HashSet<>(module);
+			remaining.removeAll(removed);
+			module = extractor.extract(signature.stream(), new AxiomSetFilter(remaining)).collect(Collectors.toSet());
+			remaining.removeAll(module);
+			return remaining;
+		}
+		
+	}
+	
 	private final ModuleExtractor[] nestedExtractors;
 	
+	private volatile MetricsListener metrics = MetricsListener.NONE;
+	
 	public NestedModuleExtractor(final Stream<ModuleExtractor> nestedExtractors) {
 		this.nestedExtractors = nestedExtractors.toArray(ModuleExtractor[]::new);
 		if (this.nestedExtractors.length == 0) {
@@ -26,33 +71,106 @@ public class NestedModuleExtractor implements ModuleExtractor {
 		return nestedExtractors[0].axiomBase();
 	}
 	
+	/**
+	 * {@inheritDoc} Instead of extracting the module of every nested extractor
+	 * from scratch, the extractions are continued with the axioms removed by the
+	 * other nested extractors since their last turn, see
+	 * {@link IncrementalModuleExtractor}. A nested extractor is skipped if no
+	 * axioms have been removed since its last turn, and the nesting stops as soon
+	 * as no nested extractor is left with removed axioms.
+	 */
 	@Override
 	public Stream<OWLAxiom> extract(final Stream<OWLEntity> signature,
 			final Optional<Predicate<OWLAxiom>> axiomFilter) {
+		final MetricsListener metrics = this.metrics;
+		final long start = metrics.start();
 		final var signatureSet = signature.collect(Collectors.toSet());
+		final int extractors = nestedExtractors.length;
+		final Extraction[] extractions = new Extraction[extractors];
+		// the axioms removed from the module since the last turn of every extractor
+		final List<Set<OWLAxiom>> pending = new ArrayList<>();
+		for (int i = 0; i < extractors; i++) {
+			pending.add(new HashSet<>());
+		}
 
 		// Calculating the initial module
-		Set<OWLAxiom> module = nestedExtractors[0].extract(signatureSet.stream(), axiomFilter)
-				.collect(Collectors.toSet());
+		long stepStart = metrics.start();
+		extractions[0] = start(nestedExtractors[0], signatureSet, axiomFilter);
+		report(metrics, nestedExtractors[0], stepStart);
+		final Set<OWLAxiom> module = new HashSet<>(extractions[0].module());
+		int rounds = 1;
 
-		int nextExtractor = 1;
-		int lastBetterModuleExtractor = 0;
 		// nesting modules until stabilization
-		endless: while (true) {
-			for (; nextExtractor < nestedExtractors.length; nextExtractor++) {
-				if (lastBetterModuleExtractor == nextExtractor) {
-					break endless;
-				}
-				final int previousSize = module.size();
-				module = nestedExtractors[nextExtractor].extract(signatureSet.stream(), module::contains)
-						.collect(Collectors.toSet());
-				if (previousSize > module.size()) {
-					lastBetterModuleExtractor = nextExtractor;
+		for (int next = 1 % extractors, idle = 0; idle < extractors; next = (next + 1) % extractors) {
+			if (extractions[next] != null && pending.get(next).isEmpty()) {
+				idle++;
+				continue;
+			}
+			idle = 0;
+			stepStart = metrics.start();
+			final Set<OWLAxiom> removed;
+			if (extractions[next] == null) {
+				extractions[next] = start(nestedExtractors[next], signatureSet,
+						Optional.of(new AxiomSetFilter(new HashSet<>(module))));
+				removed = new HashSet<>(module);
+				removed.removeAll(extractions[next].module());
+			} else {
+				removed = extractions[next].remove(pending.get(next));
+			}
+			report(metrics, nestedExtractors[next], stepStart);
+			rounds++;
+			pending.get(next).clear();
+			module.removeAll(removed);
+			for (int i = 0; i < extractors; i++) {
+				if (i != next) {
+					pending.get(i).addAll(removed);
 				}
 			}
-			nextExtractor = 0;
 		}
+		metrics.count(Count.NESTING_ROUNDS, rounds);
+		metrics.count(Count.MODULE_SIZE, module.size());
+		metrics.stop(Stage.EXTRACTION, start);
 		return module.stream();
 	}
 	
+	public MetricsListener getMetricsListener() {
+		return metrics;
+	}
+	
+	/**
+	 * Reports the duration of one nested extraction. Datalog based extractions are
+	 * reported by the {@link DatalogBasedModuleExtractor} itself.
+	 */
+	private static void report(final MetricsListener metrics, final ModuleExtractor extractor, final long start) {
+		if (extractor instanceof SyntacticLocalityModuleExtractor) {
+			metrics.stop(Stage.LOCALITY, start);
+		} else if (!(extractor instanceof DatalogBasedModuleExtractor)) {
+			metrics.stop(Stage.NESTED_EXTRACTOR, start);
+		}
+	}
+	
+	/**
+	 * Starts the extraction of the given nested extractor. Extractions of
+	 * extractors that are not {@link IncrementalModuleExtractor}s are repeated
+	 * from scratch. This includes the {@link SyntacticLocalityModuleExtractor}, as
+	 * the bottom locality of the OWL API is not monotone in the signature for
+	 * intersections, so its modules depend on the order of derivation.
+	 */
+	private static Extraction start(final ModuleExtractor extractor, final Set<OWLEntity> signature,
+			final Optional<Predicate<OWLAxiom>> axiomFilter) {
+		if (extractor instanceof IncrementalModuleExtractor) {
+			return ((IncrementalModuleExtractor) extractor).startExtraction(signature.stream(), axiomFilter);
+		}
+		return new Reextraction(extractor, signature,
+				extractor.extract(signature.stream(), axiomFilter).collect(Collectors.toSet()));
+	}
+	
+	/**
+	 * Sets the {@link MetricsListener} to report nested extractions to. The nested
+	 * extractors are not changed.
+	 */
+	public void setMetricsListener(final MetricsListener metrics) {
+		this.metrics = Objects.requireNonNull(metrics);
+	}
+	
 }
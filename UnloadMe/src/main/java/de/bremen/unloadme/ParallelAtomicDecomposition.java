@@ -0,0 +1,182 @@
+package de.bremen.unloadme;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.modularity.AtomicDecomposition;
+import org.semanticweb.owlapi.modularity.ModuleExtractor;
+
+/**
+ * The atomic decomposition of the axiom base of a {@link ModuleExtractor},
+ * computed like {@link AtomicDecomposition} but with the genuine modules of all
+ * axioms extracted concurrently on a {@link ForkJoinPool}. Axioms with the same
+ * signature share one extraction, and all extractions share the given
+ * {@link ModuleExtractor}, for example one {@link UnloadMe} with its
+ * preprocessed {@link DatalogBasedModuleExtractor}.
+ *
+ * Two axioms belong to the same atom if their genuine modules are equal. An atom
+ * depends on every other atom within its genuine module. Axioms that are not
+ * contained in their own genuine module, such as tautologies, belong to no atom.
+ */
+public class ParallelAtomicDecomposition {
+
+	/**
+	 * A set of axioms with the same genuine module.
+	 */
+	public final class Atom {
+
+		private final Set<OWLAxiom> axiomSet = new HashSet<>();
+		private final Set<OWLAxiom> module;
+		private final Set<Atom> dependencies = new HashSet<>();
+		private final Set<Atom> dependents = new HashSet<>();
+
+		private Atom(final Set<OWLAxiom> module) {
+			this.module = module;
+		}
+
+		public Stream<OWLAxiom> axioms() {
+			return axiomSet.stream();
+		}
+
+		/**
+		 * @return The atoms within the genuine module of this atom, except for this
+		 *         atom
+		 */
+		public Stream<Atom> dependencies() {
+			return dependencies.stream();
+		}
+
+		/**
+		 * @return The atoms whose genuine modules contain this atom, except for this
+		 *         atom
+		 */
+		public Stream<Atom> dependents() {
+			return dependents.stream();
+		}
+
+		public boolean dependsOn(final Atom atom) {
+			return dependencies.contains(atom);
+		}
+
+		public boolean isDependencyOf(final Atom atom) {
+			return dependents.contains(atom);
+		}
+
+		/**
+		 * @return The genuine module of the axioms of this atom
+		 */
+		public Stream<OWLAxiom> module() {
+			return module.stream();
+		}
+
+	}
+
+	private final Set<OWLAxiom> axioms;
+
+	private final Map<OWLAxiom, Set<OWLAxiom>> moduleToSignatureOf;
+
+	private final Map<OWLAxiom, Atom> atomOf = new HashMap<>();
+
+	private final Collection<Atom> atoms;
+
+	/**
+	 * Decomposes the axiom base of the given {@link ModuleExtractor} in the common
+	 * {@link ForkJoinPool}.
+	 */
+	public ParallelAtomicDecomposition(final ModuleExtractor moduleExtractor) {
+		this(moduleExtractor, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Decomposes the axiom base of the given {@link ModuleExtractor}.
+	 *
+	 * @param moduleExtractor The {@link ModuleExtractor} to extract genuine modules
+	 *                        with, which has to support concurrent extraction
+	 * @param pool            The {@link ForkJoinPool} to extract genuine modules
+	 *                        in
+	 */
+	public ParallelAtomicDecomposition(final ModuleExtractor moduleExtractor, final ForkJoinPool pool) {
+		Objects.requireNonNull(moduleExtractor);
+		axioms = moduleExtractor.axiomBase().collect(Collectors.toSet());
+
+		// one extraction per distinct signature
+		final Map<Set<OWLEntity>, List<OWLAxiom>> bySignature = axioms.stream()
+				.collect(Collectors.groupingBy(next -> next.signature().collect(Collectors.toSet())));
+		final Map<Set<OWLEntity>, Set<OWLAxiom>> modules = pool.submit(() -> bySignature.keySet().parallelStream()
+				.collect(Collectors.toConcurrentMap(next -> next, next -> Collections
+						.unmodifiableSet(moduleExtractor.extract(next.stream()).collect(Collectors.toSet()))))).join();
+		moduleToSignatureOf = new HashMap<>();
+		bySignature.forEach((signature, withSignature) -> withSignature
+				.forEach(next -> moduleToSignatureOf.put(next, modules.get(signature))));
+
+		atoms = buildAtoms();
+		pool.submit(() -> atoms().parallel().forEach(this::buildDependencies)).join();
+		atoms().forEach(next -> next.dependencies.forEach(dependency -> dependency.dependents.add(next)));
+	}
+
+	/**
+	 * @param axiom An axiom of the axiom base
+	 * @return The atom of the given axiom, or null if it belongs to no atom
+	 * @throws IllegalArgumentException If the axiom is not part of the axiom base
+	 */
+	public Atom atomOf(final OWLAxiom axiom) {
+		if (!containsAxiom(axiom)) {
+			throw new IllegalArgumentException("Axiom is not part of the axiom base: " + axiom);
+		}
+		return atomOf.get(axiom);
+	}
+
+	public Stream<Atom> atoms() {
+		return atoms.stream();
+	}
+
+	public Stream<OWLAxiom> axioms() {
+		return axioms.stream();
+	}
+
+	private Collection<Atom> buildAtoms() {
+		final Map<Set<OWLAxiom>, Atom> atomOfModule = new HashMap<>();
+		moduleToSignatureOf.forEach((axiom, module) -> {
+			if (module.contains(axiom)) {
+				final Atom atom = atomOfModule.computeIfAbsent(module, Atom::new);
+				atom.axiomSet.add(axiom);
+				atomOf.put(axiom, atom);
+			}
+		});
+		return atomOfModule.values();
+	}
+
+	private void buildDependencies(final Atom atom) {
+		atom.module.forEach(next -> {
+			final Atom dependency = atomOf.get(next);
+			if (dependency != null && dependency != atom) {
+				atom.dependencies.add(dependency);
+			}
+		});
+	}
+
+	public boolean containsAxiom(final OWLAxiom axiom) {
+		return axioms.contains(axiom);
+	}
+
+	/**
+	 * @param axiom An axiom of the axiom base
+	 * @return The genuine module of the given axiom, that is the module to its
+	 *         signature
+	 */
+	public Stream<OWLAxiom> moduleToSignatureOf(final OWLAxiom axiom) {
+		return moduleToSignatureOf.getOrDefault(axiom, Collections.emptySet()).stream();
+	}
+
+}
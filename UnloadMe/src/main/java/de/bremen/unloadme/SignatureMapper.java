@@ -1,9 +1,9 @@
 package de.bremen.unloadme;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
@@ -11,64 +11,141 @@ import java.util.stream.Stream;
 
 // T: Signature type
 // R: Type for Replacement, e.g. String
+/**
+ * Extends an original signature by new entities. All methods can be called
+ * concurrently without a global lock: extensions are kept in concurrent maps,
+ * fresh indices are counted per reason, and a new entity is claimed by
+ * atomically adding it to the extended signature.
+ */
 public class SignatureMapper<T, R> {
 	
 	private final Set<T> originalSignature;
 	private final Set<T> extendedSignature;
-	private final Map<R, Map<Object, T>> extensionMap = new HashMap<>();
-	private final Map<R, AtomicLong> freshExtensionIndexMap = new HashMap<>();
+	private final Map<R, Map<Object, T>> extensionMap = new ConcurrentHashMap<>();
+	private final Map<R, AtomicLong> freshExtensionIndexMap = new ConcurrentHashMap<>();
 	
 	public SignatureMapper(final Stream<T> originalSignature) {
 		this.originalSignature = originalSignature.collect(Collectors.toSet());
-		extendedSignature = new HashSet<>(this.originalSignature);
+		extendedSignature = ConcurrentHashMap.newKeySet();
+		extendedSignature.addAll(this.originalSignature);
 	}
 	
-	public synchronized boolean containsInExtendedSignature(final T extension) {
+	public boolean containsInExtendedSignature(final T extension) {
 		return extendedSignature.contains(extension);
 	}
 	
-	public synchronized boolean containsInOriginalSignature(final T entity) {
+	public boolean containsInOriginalSignature(final T entity) {
 		return originalSignature.contains(entity);
 	}
 	
+	protected final <T2 extends T> T2 extendDepending(final R reason, final Object dependsOn,
+			final BiFunction<R, Long, T2> entityConstructor) {
+		return extendDepending(reason, dependsOn, 0, entityConstructor);
+	}
+	
+	/**
+	 * Returns the extension for the given reason and depending object, which is
+	 * constructed with the first index from firstIndex on that yields an entity not
+	 * contained in the extended signature. Calls for different depending objects
+	 * do not block each other, so as long as their indices do not collide, the
+	 * extensions do not depend on the order of calls.
+	 */
 	@SuppressWarnings("unchecked")
-	protected final synchronized <T2 extends T> T2 extendDepending(final R reason, final Object dependsOn,
+	protected final <T2 extends T> T2 extendDepending(final R reason, final Object dependsOn, final long firstIndex,
 			final BiFunction<R, Long, T2> entityConstructor) {
-		return (T2) extensionMap.computeIfAbsent(reason, r -> new HashMap<>()).computeIfAbsent(dependsOn, o -> {
-			long i = 0;
+		final Map<Object, T> extensions = extensionMap.computeIfAbsent(reason, r -> new ConcurrentHashMap<>());
+		final T known = extensions.get(dependsOn);
+		if (known != null) {
+			return (T2) known;
+		}
+		return (T2) extensions.computeIfAbsent(dependsOn, o -> {
+			long i = firstIndex;
 			T2 extension;
 			
 			do {
 				extension = entityConstructor.apply(reason, i++);
-			} while (containsInExtendedSignature(extension));
+			} while (!extendedSignature.add(extension));
 			
-			extendedSignature.add(extension);
+			extended(extension);
 			
 			return extension;
 		});
-		
 	}
 	
 	public Stream<T> extendedSignature() {
 		return extendedSignature.stream();
 	}
 	
-	protected synchronized final <T2 extends T> T2 extendFresh(final R reason,
+	protected final <T2 extends T> T2 extendFresh(final R reason,
 			final BiFunction<R, Long, T2> entityConstructor) {
 		final AtomicLong i = freshExtensionIndexMap.computeIfAbsent(reason, r -> new AtomicLong());
 		T2 extension;
 		
 		do {
 			extension = entityConstructor.apply(reason, i.getAndIncrement());
-		} while (containsInExtendedSignature(extension));
+		} while (!extendedSignature.add(extension));
 		
-		extendedSignature.add(extension);
+		extended(extension);
 		
 		return extension;
 	}
 	
+	/**
+	 * Called whenever a new entity has been added to the extended signature. May
+	 * be called concurrently for different entities.
+	 *
+	 * @param extension The new entity
+	 */
+	protected void extended(final T extension) {
+		// nothing to do by default
+	}
+	
+	/**
+	 * @return A copy of all extensions created by
+	 *         {@link #extendDepending(Object, Object, BiFunction)}, by reason and
+	 *         depending object
+	 */
+	protected final Map<R, Map<Object, T>> extensions() {
+		final Map<R, Map<Object, T>> copy = new HashMap<>();
+		extensionMap.forEach((reason, extensions) -> copy.put(reason, new HashMap<>(extensions)));
+		return copy;
+	}
+	
+	/**
+	 * @return The next indices used by {@link #extendFresh(Object, BiFunction)}
+	 *         by reason
+	 */
+	protected final Map<R, Long> freshIndices() {
+		final Map<R, Long> copy = new HashMap<>();
+		freshExtensionIndexMap.forEach((reason, index) -> copy.put(reason, index.get()));
+		return copy;
+	}
+	
 	public Stream<T> originalSignature() {
 		return originalSignature.stream();
 	}
 	
+	/**
+	 * Adds an extension that has been created before, for example by a previous
+	 * run, to the extended signature.
+	 */
+	protected final void restore(final T extension) {
+		if (extendedSignature.add(extension)) {
+			extended(extension);
+		}
+	}
+	
+	/**
+	 * Restores an extension created by
+	 * {@link #extendDepending(Object, Object, BiFunction)}, which has already been
+	 * restored by {@link #restore(Object)}.
+	 */
+	protected final void restoreExtension(final R reason, final Object dependsOn, final T extension) {
+		extensionMap.computeIfAbsent(reason, r -> new ConcurrentHashMap<>()).put(dependsOn, extension);
+	}
+	
+	protected final void restoreFreshIndex(final R reason, final long index) {
+		freshExtensionIndexMap.computeIfAbsent(reason, r -> new AtomicLong()).accumulateAndGet(index, Math::max);
+	}
+	
 }
@@ -1,48 +1,258 @@
 package de.bremen.unloadme;
 
-import java.util.Stack;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ForkJoinPool;
 
+import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLEntity;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
 import org.semanticweb.owlapi.model.OWLRuntimeException;
 import org.semanticweb.owlapi.reasoner.OWLReasoner;
 import org.semanticweb.owlapi.reasoner.OWLReasonerFactory;
+import org.semanticweb.owlapi.util.OWLObjectDuplicator;
 
-public class TautologyTester {
+/**
+ * Checks axioms for being tautologies with a bounded pool of reasoners over
+ * empty ontologies. As being a tautology does not depend on the names of the
+ * entities, verdicts are memoised per shape of an axiom, that is, the axiom
+ * without annotations and with its non built-in entities renamed in the order
+ * of its signature.
+ *
+ * Reasoners are disposed by {@link #close()}, and threads waiting for a
+ * reasoner then fail with an {@link IllegalStateException}.
+ */
+public class TautologyTester implements AutoCloseable {
+
+	private static final String SHAPE_NAMESPACE = "urn:unloadme:shape#";
 
-	private final Stack<OWLReasoner> reasoners = new Stack<>();
 	private final OWLOntologyManager ontologyManager;
 	private final OWLReasonerFactory reasonerFactory;
+	private final ExecutorService executor;
+	private final int maxReasoners;
+
+	/**
+	 * The reasoners not in use, guarded by the lock of {@link #reasoners} like
+	 * {@link #closed}
+	 */
+	private final Deque<OWLReasoner> idleReasoners = new ArrayDeque<>();
+	private final List<OWLReasoner> reasoners = new ArrayList<>();
+	private boolean closed = false;
+
+	private final Map<OWLAxiom, Boolean> verdicts = new ConcurrentHashMap<>();
 
+	/**
+	 * Constructs a {@link TautologyTester} with one reasoner per available
+	 * processor, running {@link #removeTautologies(Collection)} in the common
+	 * {@link ForkJoinPool}. Tasks waiting for a reasoner are managed blocks, so
+	 * that they do not occupy the threads of the common pool.
+	 */
 	public TautologyTester(final OWLOntologyManager ontologyManager, final OWLReasonerFactory reasonerFactory) {
+		this(ontologyManager, reasonerFactory, Runtime.getRuntime().availableProcessors(),
+				ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param ontologyManager The {@link OWLOntologyManager} to create the empty
+	 *                        ontologies of the reasoners with
+	 * @param reasonerFactory The {@link OWLReasonerFactory} to create reasoners
+	 *                        with
+	 * @param maxReasoners    The maximum number of reasoners to create
+	 * @param executor        The {@link ExecutorService} to run
+	 *                        {@link #removeTautologies(Collection)} with
+	 */
+	public TautologyTester(final OWLOntologyManager ontologyManager, final OWLReasonerFactory reasonerFactory,
+			final int maxReasoners, final ExecutorService executor) {
+		if (maxReasoners < 1) {
+			throw new IllegalArgumentException("At least one reasoner required: " + maxReasoners);
+		}
 		this.ontologyManager = ontologyManager;
 		this.reasonerFactory = reasonerFactory;
+		this.maxReasoners = maxReasoners;
+		this.executor = executor;
+	}
+
+	/**
+	 * Disposes all reasoners and removes their ontologies. Reasoners in use are
+	 * disposed as soon as they are released, and threads waiting for a reasoner
+	 * fail with an {@link IllegalStateException}.
+	 */
+	@Override
+	public void close() {
+		final List<OWLReasoner> toDispose;
+		synchronized (reasoners) {
+			closed = true;
+			toDispose = new ArrayList<>(idleReasoners);
+			idleReasoners.clear();
+			reasoners.notifyAll();
+		}
+		toDispose.forEach(this::dispose);
+	}
+
+	private static IllegalStateException closedException() {
+		return new IllegalStateException("TautologyTester has been closed");
+	}
+
+	private void dispose(final OWLReasoner reasoner) {
+		reasoner.dispose();
+		ontologyManager.removeOntology(reasoner.getRootOntology());
 	}
 
 	public boolean isTautology(final OWLAxiom axiom) {
+		final OWLAxiom shape = shape(axiom);
+		final Boolean verdict = verdicts.get(shape);
+		if (verdict != null) {
+			return verdict;
+		}
 		final OWLReasoner reasoner = nextReasoner();
 		try {
-			return reasoner.isEntailed(axiom);
+			final boolean isTautology = reasoner.isEntailed(shape);
+			verdicts.put(shape, isTautology);
+			return isTautology;
 		} finally {
-			synchronized (reasoners) {
-				reasoners.push(reasoner);
-			}
+			releaseReasoner(reasoner);
 		}
 	}
 
 	private OWLReasoner nextReasoner() {
 		synchronized (reasoners) {
-			if (!reasoners.isEmpty()) {
-				return reasoners.pop();
+			if (closed) {
+				throw closedException();
+			}
+			final OWLReasoner idle = idleReasoners.poll();
+			if (idle != null) {
+				return idle;
+			}
+			if (reasoners.size() < maxReasoners) {
+				try {
+					final OWLReasoner reasoner = reasonerFactory
+							.createNonBufferingReasoner(ontologyManager.createOntology());
+					reasoners.add(reasoner);
+					return reasoner;
+				} catch (final OWLOntologyCreationException e) {
+					throw new OWLRuntimeException(e);
+				}
 			}
 		}
+		try {
+			return takeIdleReasoner();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OWLRuntimeException(e);
+		}
+	}
+
+	private void releaseReasoner(final OWLReasoner reasoner) {
+		synchronized (reasoners) {
+			if (!closed) {
+				idleReasoners.add(reasoner);
+				reasoners.notify();
+				return;
+			}
+		}
+		dispose(reasoner);
+	}
 
+	/**
+	 * Removes all tautologies from the given axioms, checking them in parallel on
+	 * the executor of this {@link TautologyTester}.
+	 *
+	 * @param axioms The axioms to check
+	 * @return The axioms that are not tautologies
+	 */
+	public Set<OWLAxiom> removeTautologies(final Collection<OWLAxiom> axioms) {
+		final List<OWLAxiom> toCheck = new ArrayList<>(axioms);
+		final int chunkSize = Math.max(1, toCheck.size() / (maxReasoners * 4) + 1);
+		final List<Future<List<OWLAxiom>>> chunks = new ArrayList<>();
+		for (int from = 0; from < toCheck.size(); from += chunkSize) {
+			final List<OWLAxiom> chunk = toCheck.subList(from, Math.min(from + chunkSize, toCheck.size()));
+			chunks.add(executor.submit(() -> {
+				final List<OWLAxiom> result = new ArrayList<>(chunk.size());
+				chunk.forEach(next -> {
+					if (!isTautology(next)) {
+						result.add(next);
+					}
+				});
+				return result;
+			}));
+		}
+		final Set<OWLAxiom> withoutTautologies = new HashSet<>();
 		try {
-			return reasonerFactory.createNonBufferingReasoner(ontologyManager.createOntology());
-		} catch (final OWLOntologyCreationException e) {
+			for (final Future<List<OWLAxiom>> chunk : chunks) {
+				withoutTautologies.addAll(chunk.get());
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
 			throw new OWLRuntimeException(e);
+		} catch (final ExecutionException e) {
+			throw new OWLRuntimeException(e.getCause());
+		}
+		return withoutTautologies;
+	}
+
+	/**
+	 * @return The given axiom without annotations and with the i-th non built-in
+	 *         entity of its signature renamed to an entity of the same type with
+	 *         the IRI SHAPE_NAMESPACE + i
+	 */
+	private OWLAxiom shape(final OWLAxiom axiom) {
+		final Map<OWLEntity, IRI> renaming = new HashMap<>();
+		axiom.signature().filter(next -> !next.isBuiltIn())
+				.forEach(next -> renaming.put(next, IRI.create(SHAPE_NAMESPACE, Integer.toString(renaming.size()))));
+		return new OWLObjectDuplicator(renaming, ontologyManager).duplicateObject(axiom.getAxiomWithoutAnnotations());
+	}
+
+	/**
+	 * Waits for an idle reasoner. While waiting in a {@link ForkJoinPool}, such as
+	 * the common pool, the pool may activate a spare thread, so that waiting tasks
+	 * do not starve the pool.
+	 *
+	 * @throws IllegalStateException If this {@link TautologyTester} is closed
+	 *                               while waiting
+	 */
+	private OWLReasoner takeIdleReasoner() throws InterruptedException {
+		final var blocker = new ForkJoinPool.ManagedBlocker() {
+
+			private OWLReasoner reasoner;
+
+			@Override
+			public boolean block() throws InterruptedException {
+				synchronized (reasoners) {
+					while (!isReleasable()) {
+						reasoners.wait();
+					}
+				}
+				return true;
+			}
+
+			@Override
+			public boolean isReleasable() {
+				synchronized (reasoners) {
+					if (reasoner == null && !closed) {
+						reasoner = idleReasoners.poll();
+					}
+					return reasoner != null || closed;
+				}
+			}
+		};
+		ForkJoinPool.managedBlock(blocker);
+		if (blocker.reasoner == null) {
+			throw closedException();
 		}
+		return blocker.reasoner;
 	}
 
 }
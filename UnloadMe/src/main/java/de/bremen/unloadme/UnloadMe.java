@@ -1,5 +1,8 @@
 package de.bremen.unloadme;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -9,6 +12,7 @@ import java.util.stream.Stream;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLClass;
 import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
 import org.semanticweb.owlapi.model.OWLProperty;
 import org.semanticweb.owlapi.modularity.AtomicDecomposition;
@@ -17,6 +21,8 @@ import org.semanticweb.owlapi.modularity.locality.LocalityClass;
 import org.semanticweb.owlapi.modularity.locality.SyntacticLocalityModuleExtractor;
 import org.semanticweb.owlapi.reasoner.OWLReasonerFactory;
 
+import de.bremen.unloadme.metrics.HistogramMetricsListener;
+import de.bremen.unloadme.metrics.MetricsListener;
 import de.bremen.unloadme.modulesettings.InseparabilityRelation;
 
 /**
@@ -38,11 +44,19 @@ import de.bremen.unloadme.modulesettings.InseparabilityRelation;
  */
 public class UnloadMe implements ModuleExtractor {
 	
-	private final SyntacticLocalityModuleExtractor syntacticLocalityModuleExtractor;
+	private SyntacticLocalityModuleExtractor syntacticLocalityModuleExtractor;
 	
-	private final DatalogBasedModuleExtractor datalogBasedModuleExtractor;
+	private DatalogBasedModuleExtractor datalogBasedModuleExtractor;
 	
-	private final NestedModuleExtractor nestedModuleExtractor;
+	private NestedModuleExtractor nestedModuleExtractor;
+	
+	/**
+	 * The {@link OWLOntologyManager} and {@link OWLReasonerFactory} to check added
+	 * axioms for being tautologies with, null if loaded from a snapshot
+	 */
+	private final OWLOntologyManager ontologyManager;
+	
+	private final OWLReasonerFactory reasonerFactory;
 	
 	/**
 	 * Constructs a new {@link UnloadMe}. This process may take some time, as it
@@ -74,6 +88,64 @@ public class UnloadMe implements ModuleExtractor {
 				ontologyManager, reasonerFactory, inseparabilityRelation);
 		nestedModuleExtractor = new NestedModuleExtractor(
 				Stream.of(syntacticLocalityModuleExtractor, datalogBasedModuleExtractor));
+		this.ontologyManager = ontologyManager;
+		this.reasonerFactory = reasonerFactory;
+	}
+	
+	private UnloadMe(final SyntacticLocalityModuleExtractor syntacticLocalityModuleExtractor,
+			final DatalogBasedModuleExtractor datalogBasedModuleExtractor) {
+		this.syntacticLocalityModuleExtractor = syntacticLocalityModuleExtractor;
+		this.datalogBasedModuleExtractor = datalogBasedModuleExtractor;
+		nestedModuleExtractor = new NestedModuleExtractor(
+				Stream.of(syntacticLocalityModuleExtractor, datalogBasedModuleExtractor));
+		ontologyManager = null;
+		reasonerFactory = null;
+	}
+	
+	/**
+	 * Applies the given changes to the axiom base, checking added axioms for being
+	 * tautologies with the {@link OWLOntologyManager} and
+	 * {@link OWLReasonerFactory} this {@link UnloadMe} has been constructed with.
+	 *
+	 * @throws IllegalStateException If this {@link UnloadMe} has been loaded from
+	 *                               a snapshot
+	 * @see #applyChanges(List, OWLOntologyManager, OWLReasonerFactory)
+	 */
+	public void applyChanges(final List<? extends OWLOntologyChange> changes) {
+		if (ontologyManager == null) {
+			throw new IllegalStateException(
+					"Loaded from a snapshot, use applyChanges(List, OWLOntologyManager, OWLReasonerFactory) instead");
+		}
+		applyChanges(changes, ontologyManager, reasonerFactory);
+	}
+	
+	/**
+	 * Applies the given changes to the axiom base, ignoring all changes other than
+	 * adding and removing axioms. Only the added axioms are preprocessed, see
+	 * {@link DatalogBasedModuleExtractor#applyChanges(List, OWLOntologyManager, OWLReasonerFactory)},
+	 * while the {@link SyntacticLocalityModuleExtractor} only has to index the
+	 * changed axiom base. Must not be called concurrently with module extraction.
+	 * The {@link DatalogBasedModuleExtractor} is replaced, and one obtained by
+	 * {@link #getDatalogBasedModuleExtractor()} before is invalidated.
+	 *
+	 * @param changes         The changes to apply
+	 * @param ontologyManager The {@link OWLOntologyManager} to use for tautology
+	 *                        checks
+	 * @param reasonerFactory The {@link OWLReasonerFactory} to use for tautology
+	 *                        checks
+	 * @throws IllegalArgumentException If any added axiom is unsupported
+	 */
+	public void applyChanges(final List<? extends OWLOntologyChange> changes,
+			final OWLOntologyManager ontologyManager, final OWLReasonerFactory reasonerFactory) {
+		final var metrics = getMetricsListener();
+		final var datalogBasedModuleExtractor = this.datalogBasedModuleExtractor.applyChanges(changes,
+				ontologyManager, reasonerFactory);
+		syntacticLocalityModuleExtractor = new SyntacticLocalityModuleExtractor(getLocalityClass(),
+				Util.applyChanges(axiomBase(), changes));
+		this.datalogBasedModuleExtractor = datalogBasedModuleExtractor;
+		nestedModuleExtractor = new NestedModuleExtractor(
+				Stream.of(syntacticLocalityModuleExtractor, datalogBasedModuleExtractor));
+		nestedModuleExtractor.setMetricsListener(metrics);
 	}
 	
 	@Override
@@ -124,6 +196,35 @@ public class UnloadMe implements ModuleExtractor {
 		return syntacticLocalityModuleExtractor.getLocalityClass();
 	}
 	
+	public MetricsListener getMetricsListener() {
+		return nestedModuleExtractor.getMetricsListener();
+	}
+	
+	/**
+	 * Loads an {@link UnloadMe} from a snapshot written by
+	 * {@link #saveSnapshot(Path)}.
+	 *
+	 * @see DatalogBasedModuleExtractor#loadSnapshot(Path, Stream,
+	 *      InseparabilityRelation)
+	 */
+	public static UnloadMe loadSnapshot(final Path file, final Stream<OWLAxiom> axiomBase,
+			final LocalityClass localityClass, final InseparabilityRelation inseparabilityRelation)
+			throws IOException {
+		final var syntacticLocalityModuleExtractor = new SyntacticLocalityModuleExtractor(localityClass, axiomBase);
+		return new UnloadMe(syntacticLocalityModuleExtractor, DatalogBasedModuleExtractor.loadSnapshot(file,
+				syntacticLocalityModuleExtractor.axiomBase(), inseparabilityRelation));
+	}
+	
+	/**
+	 * Saves the preprocessed state of the {@link DatalogBasedModuleExtractor} to
+	 * the given file.
+	 *
+	 * @see DatalogBasedModuleExtractor#saveSnapshot(Path)
+	 */
+	public void saveSnapshot(final Path file) throws IOException {
+		datalogBasedModuleExtractor.saveSnapshot(file);
+	}
+	
 	/**
 	 * Sets the {@link InseparabilityRelation} to use for module extraction. This
 	 * process may take some time, as it computes a mapping from the normal form to
@@ -135,4 +236,15 @@ public class UnloadMe implements ModuleExtractor {
 		datalogBasedModuleExtractor.setInseparabilityRelation(inseparabilityRelation);
 	}
 	
+	/**
+	 * Sets the {@link MetricsListener} to report the stages of module extraction
+	 * to, for example a {@link HistogramMetricsListener}.
+	 *
+	 * @see DatalogBasedModuleExtractor#setMetricsListener(MetricsListener)
+	 */
+	public void setMetricsListener(final MetricsListener metrics) {
+		nestedModuleExtractor.setMetricsListener(metrics);
+		datalogBasedModuleExtractor.setMetricsListener(metrics);
+	}
+	
 }
@@ -1,16 +1,14 @@
 package de.bremen.unloadme;
 
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.semanticweb.owlapi.model.AxiomType;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLEntity;
-import org.semanticweb.rulewerk.core.model.api.AbstractConstant;
-import org.semanticweb.rulewerk.core.model.api.Fact;
-import org.semanticweb.rulewerk.core.model.api.Predicate;
-import org.semanticweb.rulewerk.core.model.api.Rule;
-import org.semanticweb.rulewerk.core.model.api.Statement;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
 
 import com.google.common.collect.Sets;
 
@@ -27,18 +25,21 @@ public class Util {
 			AxiomType.SUB_PROPERTY_CHAIN_OF, AxiomType.SUBCLASS_OF, AxiomType.SYMMETRIC_OBJECT_PROPERTY,
 			AxiomType.TRANSITIVE_OBJECT_PROPERTY);
 	
-	public final static Stream<AbstractConstant> allConstants(final Stream<? extends Statement> statements) {
-		return statements.flatMap(next -> {
-			if (next instanceof Rule) {
-				final var rule = (Rule) next;
-				return rule.getAbstractConstants();
+	/**
+	 * @return The given axiom base after adding and removing the axioms of the
+	 *         given changes in order, ignoring all other changes
+	 */
+	public final static Stream<OWLAxiom> applyChanges(final Stream<OWLAxiom> axiomBase,
+			final List<? extends OWLOntologyChange> changes) {
+		final Set<OWLAxiom> axioms = axiomBase.collect(Collectors.toSet());
+		for (final OWLOntologyChange next : changes) {
+			if (next.isAddAxiom()) {
+				axioms.add(next.getAxiom());
+			} else if (next.isRemoveAxiom()) {
+				axioms.remove(next.getAxiom());
 			}
-			if (next instanceof Fact) {
-				final var fact = (Fact) next;
-				return fact.getAbstractConstants();
-			}
-			return Stream.empty();
-		});
+		}
+		return axioms.stream();
 	}
 	
 	public final static Stream<OWLAxiom> cleanAxiomBase(final Stream<OWLAxiom> toClear) {
@@ -56,22 +57,6 @@ public class Util {
 				&& axiom.objectPropertiesInSignature().noneMatch(next -> next.isTopEntity() || next.isBottomEntity());
 	}
 	
-	public final static Stream<Predicate> predicates(final Stream<? extends Statement> stream) {
-		return stream.flatMap(next -> {
-			if (next instanceof Rule) {
-				final var rule = (Rule) next;
-				return Stream.concat(rule.getBody().getLiterals().stream().map(lit -> lit.getPredicate()),
-						rule.getHead().getLiterals().stream().map(lit -> lit.getPredicate())).distinct();
-			}
-			if (next instanceof Fact) {
-				final var fact = (Fact) next;
-				return Stream.of(fact.getPredicate());
-			}
-			return Stream.empty();
-		});
-		
-	}
-	
 	private Util() {
 		
 	}
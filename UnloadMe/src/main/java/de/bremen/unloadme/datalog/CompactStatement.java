@@ -0,0 +1,227 @@
+package de.bremen.unloadme.datalog;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A datalog rule or fact over the IDs of a {@link SymbolDictionary}. Head and
+ * body are flat int arrays of atoms, where every atom is stored as the ID of
+ * its predicate, its arity and the IDs of its terms. Facts have an empty body.
+ *
+ * Instances are immutable, the arrays returned by {@link #head()} and
+ * {@link #body()} must not be modified.
+ */
+public final class CompactStatement {
+
+	private static final int[] EMPTY = new int[0];
+
+	private final int[] head;
+
+	private final int[] body;
+
+	private final int hash;
+
+	private CompactStatement(final int[] head, final int[] body) {
+		this.head = head;
+		this.body = body;
+		hash = 31 * Arrays.hashCode(head) + Arrays.hashCode(body);
+	}
+
+	/**
+	 * @return The atom predicate(terms) as flat int array
+	 */
+	public static int[] atom(final int predicate, final int... terms) {
+		final int[] atom = new int[terms.length + 2];
+		atom[0] = predicate;
+		atom[1] = terms.length;
+		System.arraycopy(terms, 0, atom, 2, terms.length);
+		return atom;
+	}
+
+	public int[] body() {
+		return body;
+	}
+
+	/**
+	 * @return The concatenation of the given flat atom arrays
+	 */
+	public static int[] concat(final int[]... atoms) {
+		int length = 0;
+		for (final int[] next : atoms) {
+			length += next.length;
+		}
+		final int[] result = new int[length];
+		int offset = 0;
+		for (final int[] next : atoms) {
+			System.arraycopy(next, 0, result, offset, next.length);
+			offset += next.length;
+		}
+		return result;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof CompactStatement)) {
+			return false;
+		}
+		final CompactStatement other = (CompactStatement) obj;
+		return hash == other.hash && Arrays.equals(head, other.head) && Arrays.equals(body, other.body);
+	}
+
+	public static CompactStatement fact(final int[] atom) {
+		return new CompactStatement(atom, EMPTY);
+	}
+
+	public void forEachPredicate(final IntConsumer consumer) {
+		for (int offset = 0; offset < head.length; offset = next(head, offset)) {
+			consumer.accept(head[offset]);
+		}
+		for (int offset = 0; offset < body.length; offset = next(body, offset)) {
+			consumer.accept(body[offset]);
+		}
+	}
+
+	public void forEachTerm(final IntConsumer consumer) {
+		forEachTerm(head, consumer);
+		forEachTerm(body, consumer);
+	}
+
+	private static void forEachTerm(final int[] atoms, final IntConsumer consumer) {
+		for (int offset = 0; offset < atoms.length; offset = next(atoms, offset)) {
+			for (int i = offset + 2; i < next(atoms, offset); i++) {
+				consumer.accept(atoms[i]);
+			}
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	public int[] head() {
+		return head;
+	}
+
+	/**
+	 * @return The predicate of the first head atom
+	 */
+	public int headPredicate() {
+		return head[0];
+	}
+
+	/**
+	 * @return The terms of the first head atom
+	 */
+	public int[] headTerms() {
+		return Arrays.copyOfRange(head, 2, next(head, 0));
+	}
+
+	public boolean isFact() {
+		return body.length == 0;
+	}
+
+	/**
+	 * @return This statement with every term t replaced by mapping(t)
+	 */
+	public CompactStatement mapTerms(final IntUnaryOperator mapping) {
+		return new CompactStatement(mapTerms(head, mapping), mapTerms(body, mapping));
+	}
+
+	private static int[] mapTerms(final int[] atoms, final IntUnaryOperator mapping) {
+		if (atoms.length == 0) {
+			return atoms;
+		}
+		final int[] mapped = atoms.clone();
+		for (int offset = 0; offset < mapped.length; offset = next(mapped, offset)) {
+			for (int i = offset + 2; i < next(mapped, offset); i++) {
+				mapped[i] = mapping.applyAsInt(mapped[i]);
+			}
+		}
+		return mapped;
+	}
+
+	/**
+	 * @return The offset of the atom following the atom at the given offset
+	 */
+	public static int next(final int[] atoms, final int offset) {
+		return offset + 2 + atoms[offset + 1];
+	}
+
+	/**
+	 * @return The IDs of all predicates occurring in the given statements
+	 */
+	public static BitSet predicates(final Collection<CompactStatement> statements) {
+		final BitSet predicates = new BitSet();
+		statements.forEach(next -> next.forEachPredicate(predicates::set));
+		return predicates;
+	}
+
+	/**
+	 * Reads a statement written by {@link #write(DataOutput)}.
+	 */
+	public static CompactStatement read(final DataInput in) throws IOException {
+		final int[] head = readAtoms(in);
+		final int[] body = readAtoms(in);
+		return new CompactStatement(head, body.length == 0 ? EMPTY : body);
+	}
+
+	private static int[] readAtoms(final DataInput in) throws IOException {
+		final int[] atoms = new int[in.readInt()];
+		for (int i = 0; i < atoms.length; i++) {
+			atoms[i] = in.readInt();
+		}
+		return atoms;
+	}
+
+	/**
+	 * @param head The head atoms
+	 * @param body The body atoms, which are concatenated
+	 * @return The rule head ← body
+	 */
+	public static CompactStatement rule(final int[] head, final int[]... body) {
+		return new CompactStatement(head, concat(body));
+	}
+
+	@Override
+	public String toString() {
+		return toString(head) + (isFact() ? "" : " :- " + toString(body)) + " .";
+	}
+
+	private static String toString(final int[] atoms) {
+		final StringBuilder builder = new StringBuilder();
+		for (int offset = 0; offset < atoms.length; offset = next(atoms, offset)) {
+			if (offset > 0) {
+				builder.append(", ");
+			}
+			builder.append(atoms[offset]).append('(');
+			for (int i = offset + 2; i < next(atoms, offset); i++) {
+				builder.append(i > offset + 2 ? ", " : "").append(atoms[i]);
+			}
+			builder.append(')');
+		}
+		return builder.toString();
+	}
+
+	public void write(final DataOutput out) throws IOException {
+		writeAtoms(out, head);
+		writeAtoms(out, body);
+	}
+
+	private static void writeAtoms(final DataOutput out, final int[] atoms) throws IOException {
+		out.writeInt(atoms.length);
+		for (final int next : atoms) {
+			out.writeInt(next);
+		}
+	}
+
+}
@@ -1,6 +1,11 @@
 package de.bremen.unloadme.datalog;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -14,7 +19,7 @@ import org.semanticweb.rulewerk.core.model.api.Constant;
 import org.semanticweb.rulewerk.core.model.api.Entity;
 import org.semanticweb.rulewerk.core.model.api.ExistentialVariable;
 import org.semanticweb.rulewerk.core.model.api.Predicate;
-import org.semanticweb.rulewerk.core.model.api.Statement;
+import org.semanticweb.rulewerk.core.model.api.Term;
 import org.semanticweb.rulewerk.core.model.api.UniversalVariable;
 import org.semanticweb.rulewerk.core.model.implementation.Expressions;
 
@@ -33,6 +38,19 @@ public class DatalogSignatureMapper extends SignatureMapper<Entity, String> {
 	public final static String SUPP_PREDICATE = "UNLOADME_RESERVED_ENTITIES_SUPP_PREDICATE";
 	public final static String SUPP_REL = "UNLOADME_RESERVED_ENTITIES_SUPP_REL";
 
+	private static final byte PREDICATE = 0;
+	private static final byte ABSTRACT_CONSTANT = 1;
+	private static final byte UNIVERSAL_VARIABLE = 2;
+	private static final byte EXISTENTIAL_VARIABLE = 3;
+
+	private static final byte KEY_STRING = 0;
+	private static final byte KEY_SYMBOL = 1;
+	private static final byte KEY_INDEXED_PREDICATE = 2;
+	private static final byte KEY_STATEMENT = 3;
+	private static final byte KEY_OBJECT = 4;
+
+	private final SymbolDictionary dictionary = new SymbolDictionary();
+
 	public DatalogSignatureMapper() {
 		super(Stream.empty());
 	}
@@ -52,6 +70,19 @@ public class DatalogSignatureMapper extends SignatureMapper<Entity, String> {
 				(r, i) -> Expressions.makeAbstractConstant(r + "_" + i));
 	}
 
+	@Override
+	protected void extended(final Entity extension) {
+		dictionary.add(extension);
+	}
+
+	/**
+	 * @return The {@link SymbolDictionary} assigning IDs to all entities created
+	 *         by this mapper
+	 */
+	public SymbolDictionary getDictionary() {
+		return dictionary;
+	}
+
 	public final AbstractConstant newConstant(final ExistentialVariable depending) {
 		return extendDepending(IMPLICATION_EXISTENTIAL_VAR_REPLACEMENT, depending,
 				(r, i) -> Expressions.makeAbstractConstant(r + "_" + i));
@@ -72,9 +103,72 @@ public class DatalogSignatureMapper extends SignatureMapper<Entity, String> {
 		return extendFresh(UNIVERSAL_VAR_NAMESPACE, (r, i) -> Expressions.makeUniversalVariable(r + "_" + i));
 	}
 
+	/**
+	 * Reads a mapper written by {@link #write(ObjectOutput)}. All symbols keep
+	 * their IDs, and all methods of the read mapper return the same entities as
+	 * the written one.
+	 */
+	public static DatalogSignatureMapper read(final ObjectInput in) throws IOException, ClassNotFoundException {
+		final var mapper = new DatalogSignatureMapper();
+		final int symbols = in.readInt();
+		for (int i = 0; i < symbols; i++) {
+			mapper.restore(readSymbol(in));
+		}
+		final int reasons = in.readInt();
+		for (int i = 0; i < reasons; i++) {
+			final String reason = in.readUTF();
+			final int extensions = in.readInt();
+			for (int j = 0; j < extensions; j++) {
+				final Object dependsOn = mapper.readKey(in);
+				mapper.restoreExtension(reason, dependsOn, mapper.dictionary.symbol(in.readInt()));
+			}
+		}
+		final int freshReasons = in.readInt();
+		for (int i = 0; i < freshReasons; i++) {
+			mapper.restoreFreshIndex(in.readUTF(), in.readLong());
+		}
+		return mapper;
+	}
+
+	private Object readKey(final ObjectInput in) throws IOException, ClassNotFoundException {
+		switch (in.readByte()) {
+		case KEY_STRING:
+			return in.readUTF();
+		case KEY_SYMBOL:
+			return dictionary.symbol(in.readInt());
+		case KEY_INDEXED_PREDICATE:
+			return Pair.of(dictionary.predicate(in.readInt()), in.readInt());
+		case KEY_STATEMENT:
+			return CompactStatement.read(in);
+		case KEY_OBJECT:
+			return in.readObject();
+		default:
+			throw new IOException("Unknown key type");
+		}
+	}
+
+	private static Entity readSymbol(final ObjectInput in) throws IOException {
+		final byte type = in.readByte();
+		final String name = in.readUTF();
+		switch (type) {
+		case PREDICATE:
+			return Expressions.makePredicate(name, in.readInt());
+		case ABSTRACT_CONSTANT:
+			return Expressions.makeAbstractConstant(name);
+		case UNIVERSAL_VARIABLE:
+			return Expressions.makeUniversalVariable(name);
+		case EXISTENTIAL_VARIABLE:
+			return Expressions.makeExistentialVariable(name);
+		default:
+			throw new IOException("Unknown symbol type: " + type);
+		}
+	}
+
 	public Predicate sameAs() {
-		return extendDepending(TOP_BOTTOM_SAME_NAMESPACE, "sameAs",
+		final Predicate sameAs = extendDepending(TOP_BOTTOM_SAME_NAMESPACE, "sameAs",
 				(r, i) -> Expressions.makePredicate(r + "_" + "sameAs" + i, 2));
+		dictionary.setEquality(dictionary.id(sameAs));
+		return sameAs;
 	}
 
 	public final Predicate suppPredicate(final Predicate p) {
@@ -86,7 +180,7 @@ public class DatalogSignatureMapper extends SignatureMapper<Entity, String> {
 		return extendDepending(SUPP_REL, "Rel", (r, i) -> Expressions.makePredicate(r + "_" + i, 1));
 	}
 
-	public final AbstractConstant suppRuleConstant(final Statement rule) {
+	public final AbstractConstant suppRuleConstant(final CompactStatement rule) {
 		return extendDepending(SUPP_RULE, rule, (r, i) -> Expressions.makeAbstractConstant(r + "_" + i));
 	}
 
@@ -95,11 +189,6 @@ public class DatalogSignatureMapper extends SignatureMapper<Entity, String> {
 				(r, i) -> Expressions.makeAbstractConstant(r + "_" + constant.toStringID() + i));
 	}
 
-	public final Predicate topClassPredicate() {
-		return extendDepending(TOP_BOTTOM_SAME_NAMESPACE, "topClass",
-				(r, i) -> Expressions.makePredicate(r + "_" + "topClass" + i, 1));
-	}
-
 	public final Predicate toPredicate(final OWLClass clazz) {
 		if (clazz.isTopEntity()) {
 			return topClassPredicate();
@@ -119,4 +208,83 @@ public class DatalogSignatureMapper extends SignatureMapper<Entity, String> {
 				(r, i) -> Expressions.makePredicate(r + "_" + property.toStringID() + i, 2));
 	}
 
+	public final Predicate topClassPredicate() {
+		return extendDepending(TOP_BOTTOM_SAME_NAMESPACE, "topClass",
+				(r, i) -> Expressions.makePredicate(r + "_" + "topClass" + i, 1));
+	}
+
+	/**
+	 * Writes all symbols in the order of their IDs and all extensions of this
+	 * mapper, so that {@link #read(ObjectInput)} can restore it. Must not be
+	 * called while new entities are created.
+	 */
+	public void write(final ObjectOutput out) throws IOException {
+		final int symbols = dictionary.size();
+		out.writeInt(symbols);
+		for (int id = 0; id < symbols; id++) {
+			writeSymbol(out, dictionary.symbol(id));
+		}
+		final Map<String, Map<Object, Entity>> extensions = extensions();
+		out.writeInt(extensions.size());
+		for (final var reason : extensions.entrySet()) {
+			out.writeUTF(reason.getKey());
+			out.writeInt(reason.getValue().size());
+			for (final var extension : reason.getValue().entrySet()) {
+				writeKey(out, extension.getKey());
+				out.writeInt(dictionary.id(extension.getValue()));
+			}
+		}
+		final Map<String, Long> freshIndices = freshIndices();
+		out.writeInt(freshIndices.size());
+		for (final var next : freshIndices.entrySet()) {
+			out.writeUTF(next.getKey());
+			out.writeLong(next.getValue());
+		}
+	}
+
+	private void writeKey(final ObjectOutput out, final Object dependsOn) throws IOException {
+		if (dependsOn instanceof String) {
+			out.writeByte(KEY_STRING);
+			out.writeUTF((String) dependsOn);
+		} else if (dependsOn instanceof Entity) {
+			out.writeByte(KEY_SYMBOL);
+			out.writeInt(dictionary.id((Entity) dependsOn));
+		} else if (dependsOn instanceof Pair && ((Pair<?, ?>) dependsOn).getLeft() instanceof Predicate) {
+			out.writeByte(KEY_INDEXED_PREDICATE);
+			out.writeInt(dictionary.id((Predicate) ((Pair<?, ?>) dependsOn).getLeft()));
+			out.writeInt((Integer) ((Pair<?, ?>) dependsOn).getRight());
+		} else if (dependsOn instanceof CompactStatement) {
+			out.writeByte(KEY_STATEMENT);
+			((CompactStatement) dependsOn).write(out);
+		} else if (dependsOn instanceof Serializable) {
+			out.writeByte(KEY_OBJECT);
+			out.writeObject(dependsOn);
+		} else {
+			throw new IllegalArgumentException("Cannot write extension depending on " + dependsOn);
+		}
+	}
+
+	private static void writeSymbol(final ObjectOutput out, final Entity symbol) throws IOException {
+		if (symbol instanceof Predicate) {
+			out.writeByte(PREDICATE);
+			out.writeUTF(symbol.getName());
+			out.writeInt(((Predicate) symbol).getArity());
+			return;
+		}
+		switch (((Term) symbol).getType()) {
+		case ABSTRACT_CONSTANT:
+			out.writeByte(ABSTRACT_CONSTANT);
+			break;
+		case UNIVERSAL_VARIABLE:
+			out.writeByte(UNIVERSAL_VARIABLE);
+			break;
+		case EXISTENTIAL_VARIABLE:
+			out.writeByte(EXISTENTIAL_VARIABLE);
+			break;
+		default:
+			throw new IllegalArgumentException("Cannot write symbol " + symbol);
+		}
+		out.writeUTF(symbol.getName());
+	}
+
 }
@@ -0,0 +1,116 @@
+package de.bremen.unloadme.datalog;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+
+/**
+ * Restricts a program to the statements that can take part in the derivation
+ * of relevant facts, using the dependencies between the predicates of the
+ * program. A rule can only fire if every predicate of its body is derivable,
+ * that is forward-reachable from the facts of the program, and a fact can only
+ * contribute to a relevant fact if its predicate is backward-reachable from the
+ * predicates of the relevant facts. Both are computed on predicates in time
+ * linear in the size of the program. The restricted program entails the same
+ * relevant facts and has the same support.
+ */
+final class DependencyPruning {
+
+	private DependencyPruning() {
+	}
+
+	private static void forEachBodyPredicate(final CompactStatement rule, final IntConsumer consumer) {
+		final int[] body = rule.body();
+		for (int offset = 0; offset < body.length; offset = CompactStatement.next(body, offset)) {
+			consumer.accept(body[offset]);
+		}
+	}
+
+	private static void forEachHeadPredicate(final CompactStatement statement, final IntConsumer consumer) {
+		final int[] head = statement.head();
+		for (int offset = 0; offset < head.length; offset = CompactStatement.next(head, offset)) {
+			consumer.accept(head[offset]);
+		}
+	}
+
+	/**
+	 * @param program            The program, including its facts
+	 * @param relevantPredicates The predicates of the relevant facts
+	 * @return The rules of the program that can fire and derive a predicate
+	 *         backward-reachable from the relevant predicates, and the facts of
+	 *         such predicates
+	 */
+	static Set<CompactStatement> prune(final Collection<CompactStatement> program,
+			final BitSet relevantPredicates) {
+		final List<CompactStatement> rules = new ArrayList<>();
+		final BitSet derivable = new BitSet();
+		final Deque<Integer> queue = new ArrayDeque<>();
+		for (final CompactStatement next : program) {
+			if (next.isFact()) {
+				forEachHeadPredicate(next, predicate -> reach(predicate, derivable, queue));
+			} else {
+				rules.add(next);
+			}
+		}
+
+		// forward: a rule fires once the last predicate of its body is derivable
+		final int[] missing = new int[rules.size()];
+		final ListMultimap<Integer, Integer> waiting = ArrayListMultimap.create();
+		for (int i = 0; i < rules.size(); i++) {
+			final BitSet body = new BitSet();
+			forEachBodyPredicate(rules.get(i), body::set);
+			missing[i] = body.cardinality();
+			final int rule = i;
+			body.stream().forEach(predicate -> waiting.put(predicate, rule));
+		}
+		while (!queue.isEmpty()) {
+			for (final int rule : waiting.get(queue.poll())) {
+				if (--missing[rule] == 0) {
+					forEachHeadPredicate(rules.get(rule), predicate -> reach(predicate, derivable, queue));
+				}
+			}
+		}
+
+		// backward: a rule that fires is needed once a predicate of its head is
+		final ListMultimap<Integer, Integer> deriving = ArrayListMultimap.create();
+		for (int i = 0; i < rules.size(); i++) {
+			if (missing[i] == 0) {
+				final int rule = i;
+				forEachHeadPredicate(rules.get(i), predicate -> deriving.put(predicate, rule));
+			}
+		}
+		final BitSet needed = new BitSet();
+		relevantPredicates.stream().forEach(predicate -> reach(predicate, needed, queue));
+		final BitSet neededRules = new BitSet(rules.size());
+		while (!queue.isEmpty()) {
+			for (final int rule : deriving.get(queue.poll())) {
+				if (!neededRules.get(rule)) {
+					neededRules.set(rule);
+					forEachBodyPredicate(rules.get(rule), predicate -> reach(predicate, needed, queue));
+				}
+			}
+		}
+
+		final Set<CompactStatement> pruned = new HashSet<>();
+		program.stream().filter(next -> next.isFact() && needed.get(next.headPredicate())).forEach(pruned::add);
+		neededRules.stream().forEach(rule -> pruned.add(rules.get(rule)));
+		return pruned;
+	}
+
+	private static void reach(final int predicate, final BitSet reached, final Deque<Integer> queue) {
+		if (!reached.get(predicate)) {
+			reached.set(predicate);
+			queue.add(predicate);
+		}
+	}
+
+}
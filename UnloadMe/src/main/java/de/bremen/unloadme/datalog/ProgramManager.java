@@ -1,176 +1,422 @@
 package de.bremen.unloadme.datalog;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.Predicate;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.semanticweb.owlapi.model.OWLAxiom;
-import org.semanticweb.rulewerk.core.model.api.AbstractConstant;
-import org.semanticweb.rulewerk.core.model.api.Statement;
-import org.semanticweb.rulewerk.core.model.api.Term;
-import org.semanticweb.rulewerk.core.model.implementation.Expressions;
-import org.semanticweb.rulewerk.core.reasoner.KnowledgeBase;
 
 import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimaps;
 import com.google.common.collect.SetMultimap;
 
-import de.bremen.unloadme.Util;
+import de.bremen.unloadme.IntRelation;
+import de.bremen.unloadme.metrics.MetricsListener;
+import de.bremen.unloadme.metrics.MetricsListener.Stage;
 import de.bremen.unloadme.modulesettings.ModuleSetting;
 
+/**
+ * Manages the datalog mapping of a normal form. The axioms of the normal form
+ * are identified by their dense int IDs, which are assigned in the order the
+ * axioms are added and agree with those of the
+ * {@link de.bremen.unloadme.normalform.NormalFormManager} if the axioms are
+ * added in the order of its IDs. The statements have dense int IDs as well, and
+ * the mappings between both are stored as {@link IntRelation}s.
+ */
 public class ProgramManager {
 
+	/**
+	 * Builds a {@link ProgramManager} from a normal form that is added in chunks.
+	 */
+	public static final class Builder {
+
+		private final DatalogSignatureMapper signatureMapper;
+
+		private final DatalogRewriter datalogRewriter;
+
+		private final List<CompactStatement> statements = new ArrayList<>();
+
+		private final IntRelation.Builder datalogMapping = new IntRelation.Builder();
+
+		public Builder(final DatalogSignatureMapper signatureMapper) {
+			this.signatureMapper = signatureMapper;
+			datalogRewriter = new DatalogRewriter(signatureMapper);
+		}
+
+		/**
+		 * Translates the given axioms of the normal form, which get the next IDs in
+		 * the given order. Every axiom must only be added once, as every translation
+		 * introduces fresh variables.
+		 */
+		public void add(final List<OWLAxiom> axiomsInNF) {
+			axiomsInNF.parallelStream()
+					.map(next -> datalogRewriter.rewrite(next).distinct().collect(Collectors.toList()))
+					.collect(Collectors.toList()).forEach(this::put);
+		}
+
+		/**
+		 * Builds the {@link ProgramManager}. This {@link Builder} must not be used
+		 * afterwards.
+		 */
+		public ProgramManager build() {
+			return new ProgramManager(this);
+		}
+
+		private void put(final List<CompactStatement> axiomInDatalog) {
+			final int[] row = new int[axiomInDatalog.size()];
+			for (int i = 0; i < row.length; i++) {
+				row[i] = statements.size();
+				statements.add(axiomInDatalog.get(i));
+			}
+			datalogMapping.addRow(row);
+		}
+
+	}
+
 	private final DatalogSignatureMapper signatureMapper;
-	private final DatalogRewriter datalogRewriter;
+	private final SymbolDictionary dictionary;
 
-	private final SetMultimap<OWLAxiom, Statement> datalogMapping;
-	private final Map<Statement, Statement> substitutionMapping = new HashMap<>();
+	/**
+	 * The statements of the datalog mapping, by ID
+	 */
+	private final CompactStatement[] statements;
+	/**
+	 * The IDs of the statements of every axiom of the normal form
+	 */
+	private final IntRelation datalogMapping;
+	/**
+	 * The distinct statements of the datalog mapping after substitution by the
+	 * module setting, by ID
+	 */
+	private CompactStatement[] substituted = new CompactStatement[0];
+	private final Map<CompactStatement, Integer> substitutedIds = new HashMap<>();
+	/**
+	 * The IDs of the substituted statements of every axiom of the normal form
+	 */
+	private IntRelation substitutedMapping = new IntRelation.Builder().build();
+	/**
+	 * The IDs of the axioms of the normal form of every substituted statement
+	 */
+	private IntRelation substitutedOrig = new IntRelation.Builder().build();
 
-	private final SetMultimap<org.semanticweb.rulewerk.core.model.api.Predicate, Statement> topEnrichment = HashMultimap
-			.create();
-	private final Map<AbstractConstant, Statement> eq1Map = new HashMap<>();
-	private final SetMultimap<org.semanticweb.rulewerk.core.model.api.Predicate, Statement> eq2_5Map = HashMultimap
-			.create();
-	private final Set<Statement> eq3_4Set = new HashSet<>();
+	private ModuleSetting moduleSetting;
 
+	private final SetMultimap<Integer, CompactStatement> topEnrichment = HashMultimap.create();
+	private final SetMultimap<Integer, CompactStatement> eq2_5Map = HashMultimap.create();
+	private final Set<CompactStatement> eq3_4Set = new HashSet<>();
+
+	private final int sameAs;
+	private final int topClass;
+	private final int bottom;
+
+	private volatile MetricsListener metrics = MetricsListener.NONE;
+
+	/**
+	 * @param axiomBaseInNormalForm The distinct axioms of the normal form, which
+	 *                              get their IDs in the order of the stream
+	 */
 	public ProgramManager(final Stream<OWLAxiom> axiomBaseInNormalForm, final DatalogSignatureMapper signatureMapper) {
-		datalogRewriter = new DatalogRewriter(signatureMapper);
-		this.signatureMapper = signatureMapper;
+		this(builder(axiomBaseInNormalForm.collect(Collectors.toList()), signatureMapper));
+	}
 
-		datalogMapping = axiomBaseInNormalForm.parallel().collect(Multimaps.flatteningToMultimap(next -> next,
-				next -> datalogRewriter.rewrite(next), HashMultimap::create));
+	private ProgramManager(final Builder builder) {
+		statements = builder.statements.toArray(CompactStatement[]::new);
+		datalogMapping = builder.datalogMapping.build();
+		signatureMapper = builder.signatureMapper;
+		dictionary = signatureMapper.getDictionary();
+		sameAs = dictionary.id(signatureMapper.sameAs());
+		topClass = dictionary.id(signatureMapper.topClassPredicate());
+		bottom = dictionary.id(signatureMapper.bottomPredicate());
 
 		// EQ3
-		final var eq3Var1 = signatureMapper.nextUniversalVariable();
-		final var eq3Var2 = signatureMapper.nextUniversalVariable();
-		eq3_4Set.add(Expressions.makeRule(Expressions.makePositiveLiteral(signatureMapper.sameAs(), eq3Var1, eq3Var2),
-				Expressions.makePositiveLiteral(signatureMapper.sameAs(), eq3Var2, eq3Var1)));
+		final var eq3Var1 = nextVariable();
+		final var eq3Var2 = nextVariable();
+		eq3_4Set.add(CompactStatement.rule(CompactStatement.atom(sameAs, eq3Var1, eq3Var2),
+				CompactStatement.atom(sameAs, eq3Var2, eq3Var1)));
 
 		// EQ4
-		final var eq4Var1 = signatureMapper.nextUniversalVariable();
-		final var eq4Var2 = signatureMapper.nextUniversalVariable();
-		final var eq4Var3 = signatureMapper.nextUniversalVariable();
-		eq3_4Set.add(Expressions.makeRule(Expressions.makePositiveLiteral(signatureMapper.sameAs(), eq4Var1, eq4Var3),
-				Expressions.makePositiveLiteral(signatureMapper.sameAs(), eq4Var1, eq4Var2),
-				Expressions.makePositiveLiteral(signatureMapper.sameAs(), eq4Var2, eq4Var3)));
-	}
-
-	public void enrich(final KnowledgeBase knowledgeBase) {
-		final var predicates = Util.predicates(knowledgeBase.getStatements().stream()).collect(Collectors.toSet());
-		if (predicates.contains(signatureMapper.topClassPredicate())) {
-			predicates.forEach(next -> knowledgeBase.addStatements(topEnrichment.get(next)));
+		final var eq4Var1 = nextVariable();
+		final var eq4Var2 = nextVariable();
+		final var eq4Var3 = nextVariable();
+		eq3_4Set.add(CompactStatement.rule(CompactStatement.atom(sameAs, eq4Var1, eq4Var3),
+				CompactStatement.atom(sameAs, eq4Var1, eq4Var2), CompactStatement.atom(sameAs, eq4Var2, eq4Var3)));
+	}
+
+	private static Builder builder(final List<OWLAxiom> axiomBaseInNormalForm,
+			final DatalogSignatureMapper signatureMapper) {
+		final var builder = new Builder(signatureMapper);
+		builder.add(axiomBaseInNormalForm);
+		return builder;
+	}
+
+	public void enrich(final Set<CompactStatement> program) {
+		final BitSet predicates = CompactStatement.predicates(program);
+		if (predicates.get(topClass)) {
+			predicates.stream().forEach(next -> program.addAll(topEnrichment.get(next)));
 		}
-		if (predicates.contains(signatureMapper.sameAs())) {
+		if (predicates.get(sameAs)) {
 			// eq1
-			Util.allConstants(knowledgeBase.getStatements().stream()).collect(Collectors.toSet()).stream()
-					.forEach(next -> knowledgeBase.addStatement(eq1Map.get(next)));
+			dictionary.constants(program).stream()
+					.forEach(next -> program.add(CompactStatement.fact(CompactStatement.atom(sameAs, next, next))));
 			// eq3,4
-			knowledgeBase.addStatements(eq3_4Set);
+			program.addAll(eq3_4Set);
 			// eq 2,5
-			predicates.forEach(next -> knowledgeBase.addStatements(eq2_5Map.get(next)));
+			predicates.stream().forEach(next -> program.addAll(eq2_5Map.get(next)));
 		}
 	}
 
-	public KnowledgeBase getCompleteDatalogKnowledgeBase() {
-		final KnowledgeBase complete = new KnowledgeBase();
-		complete.addStatements(substitutionMapping.values());
-		return complete;
+	public Collection<CompactStatement> getCompleteDatalogProgram() {
+		return new HashSet<>(Arrays.asList(substituted));
+	}
+
+	public MetricsListener getMetricsListener() {
+		return metrics;
 	}
 
+	private int nextVariable() {
+		return dictionary.id(signatureMapper.nextUniversalVariable());
+	}
+
+	/**
+	 * Computes the enrichment of the predicates of the substituted statements that
+	 * have no enrichment yet.
+	 */
 	private void precalcEnrichment() {
-		eq1Map.clear();
-		eq2_5Map.clear();
-		eq3_4Set.clear();
-		topEnrichment.clear();
-		final var predicates = Util.predicates(substitutionMapping.values().stream()).collect(Collectors.toSet());
-		predicates.remove(signatureMapper.bottomPredicate());
-		if (predicates.contains(signatureMapper.topClassPredicate())) {
-			predicates.forEach(next -> {
-				if (next.getArity() == 1) {
-					final var variable = signatureMapper.nextUniversalVariable();
-					topEnrichment.put(next,
-							Expressions.makeRule(
-									Expressions.makePositiveLiteral(signatureMapper.topClassPredicate(), variable),
-									Expressions.makePositiveLiteral(next, variable)));
+		final BitSet predicates = CompactStatement.predicates(Arrays.asList(substituted));
+		predicates.clear(bottom);
+		if (predicates.get(topClass)) {
+			final BitSet missing = (BitSet) predicates.clone();
+			topEnrichment.keySet().forEach(missing::clear);
+			missing.stream().forEach(next -> {
+				if (dictionary.arity(next) == 1) {
+					final var variable = nextVariable();
+					topEnrichment.put(next, CompactStatement.rule(CompactStatement.atom(topClass, variable),
+							CompactStatement.atom(next, variable)));
 				}
-				if (next.getArity() == 2) {
-					final var first = signatureMapper.nextUniversalVariable();
-					final var second = signatureMapper.nextUniversalVariable();
-					topEnrichment.put(next,
-							Expressions.makeRule(
-									Expressions.makePositiveLiteral(signatureMapper.topClassPredicate(), first),
-									Expressions.makePositiveLiteral(next, first, second)));
-					topEnrichment.put(next,
-							Expressions.makeRule(
-									Expressions.makePositiveLiteral(signatureMapper.topClassPredicate(), second),
-									Expressions.makePositiveLiteral(next, first, second)));
+				if (dictionary.arity(next) == 2) {
+					final var first = nextVariable();
+					final var second = nextVariable();
+					topEnrichment.put(next, CompactStatement.rule(CompactStatement.atom(topClass, first),
+							CompactStatement.atom(next, first, second)));
+					topEnrichment.put(next, CompactStatement.rule(CompactStatement.atom(topClass, second),
+							CompactStatement.atom(next, first, second)));
 				}
 			});
 		}
-		if (predicates.contains(signatureMapper.sameAs())) {
-			// EQ1
-
-			Util.allConstants(substitutionMapping.values().stream())
-					.forEach(next -> eq1Map.put(next, Expressions.makeFact(signatureMapper.sameAs(), next, next)));
-
+		if (predicates.get(sameAs)) {
+			final BitSet missing = (BitSet) predicates.clone();
+			eq2_5Map.keySet().forEach(missing::clear);
 			// EQ2
-			predicates.forEach(next -> {
-				final var terms = IntStream.range(0, next.getArity())
-						.mapToObj(i -> (Term) signatureMapper.nextUniversalVariable()).collect(Collectors.toList());
-				terms.forEach(t -> eq2_5Map.put(next,
-						Expressions.makeRule(Expressions.makePositiveLiteral(signatureMapper.sameAs(), t, t),
-								Expressions.makePositiveLiteral(next, terms))));
+			missing.stream().forEach(next -> {
+				final int[] terms = new int[dictionary.arity(next)];
+				for (int i = 0; i < terms.length; i++) {
+					terms[i] = nextVariable();
+				}
+				for (final int t : terms) {
+					eq2_5Map.put(next, CompactStatement.rule(CompactStatement.atom(sameAs, t, t),
+							CompactStatement.atom(next, terms)));
+				}
 			});
 
 			// EQ5
-			predicates.forEach(next -> {
-				final var terms = IntStream.range(0, next.getArity())
-						.mapToObj(i -> (Term) signatureMapper.nextUniversalVariable()).collect(Collectors.toList());
-				final var y = signatureMapper.nextUniversalVariable();
-				final var literal = Expressions.makePositiveLiteral(next, terms);
-				IntStream.range(0, next.getArity()).forEach(i -> {
-					final var termsWithI = new ArrayList<>(terms);
-					termsWithI.set(i, y);
-					eq2_5Map.put(next, Expressions.makeRule(Expressions.makePositiveLiteral(next, termsWithI), literal,
-							Expressions.makePositiveLiteral(signatureMapper.sameAs(), y, terms.get(i))));
-				});
+			missing.stream().forEach(next -> {
+				final int[] terms = new int[dictionary.arity(next)];
+				for (int i = 0; i < terms.length; i++) {
+					terms[i] = nextVariable();
+				}
+				final var y = nextVariable();
+				final var literal = CompactStatement.atom(next, terms);
+				for (int i = 0; i < terms.length; i++) {
+					final int[] termsWithI = terms.clone();
+					termsWithI[i] = y;
+					eq2_5Map.put(next, CompactStatement.rule(CompactStatement.atom(next, termsWithI), literal,
+							CompactStatement.atom(sameAs, y, terms[i])));
+				}
 			});
 
 		}
 	}
 
-	public Stream<OWLAxiom> reverse(final Stream<Statement> support,
-			final SetMultimap<Statement, OWLAxiom> reversingMap) {
-		return support.map(reversingMap::get).flatMap(Set::stream);
+	/**
+	 * Reads a {@link ProgramManager} written by {@link #write(ObjectOutput)}, with
+	 * the same IDs. The given mapper has to be read from the same snapshot.
+	 */
+	public static ProgramManager read(final ObjectInput in, final DatalogSignatureMapper signatureMapper)
+			throws IOException {
+		final var builder = new Builder(signatureMapper);
+		final int axioms = in.readInt();
+		for (int i = 0; i < axioms; i++) {
+			final int size = in.readInt();
+			final List<CompactStatement> axiomInDatalog = new ArrayList<>(size);
+			for (int j = 0; j < size; j++) {
+				axiomInDatalog.add(CompactStatement.read(in));
+			}
+			builder.put(axiomInDatalog);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Maps the support of a datalog program back to the normal form.
+	 *
+	 * @param support    The support
+	 * @param axiomsInNF The IDs of the axioms of the normal form the program has
+	 *                   been assembled from
+	 * @return The IDs of the given axioms that contribute a statement of the
+	 *         support, possibly repeated
+	 */
+	public IntStream reverse(final Stream<CompactStatement> support, final BitSet axiomsInNF) {
+		return support.map(substitutedIds::get).filter(Objects::nonNull)
+				.flatMapToInt(next -> substitutedOrig.row(next)).filter(axiomsInNF::get);
+	}
+
+	/**
+	 * Sets the {@link MetricsListener} to report the restriction and enrichment of
+	 * datalog programs to.
+	 */
+	public void setMetricsListener(final MetricsListener metrics) {
+		this.metrics = Objects.requireNonNull(metrics);
 	}
 
 	public void setModuleSetting(final ModuleSetting moduleSetting) {
 		Objects.requireNonNull(moduleSetting);
-		substitutionMapping.clear();
-		datalogMapping.forEach((key, value) -> {
-			substitutionMapping.put(value, ModuleSetting.apply(moduleSetting, value, signatureMapper));
-		});
+		substitute(moduleSetting, axiom -> datalogMapping.row(axiom)
+				.mapToObj(next -> ModuleSetting.apply(moduleSetting, statements[next], signatureMapper)));
+		eq2_5Map.clear();
+		eq3_4Set.clear();
+		topEnrichment.clear();
 		precalcEnrichment();
 	}
 
-	public Pair<SetMultimap<Statement, OWLAxiom>, KnowledgeBase> toDatalogProgram(final Predicate<OWLAxiom> filter) {
-		final KnowledgeBase knowledgeBase = new KnowledgeBase();
-		final SetMultimap<Statement, OWLAxiom> reversingMap = HashMultimap.create();
-		datalogMapping.keySet().stream().filter(filter).forEach(next -> {
-			final var rules = datalogMapping.get(next).stream().map(substitutionMapping::get);
-			rules.forEach(r -> reversingMap.put(r, next));
-		});
-		knowledgeBase.addStatements(reversingMap.keySet());
-		enrich(knowledgeBase);
-		return Pair.of(reversingMap, knowledgeBase);
+	/**
+	 * Substitutes the statements of every axiom of the normal form.
+	 *
+	 * @param substitutedRow The substituted statements of the axiom with the given
+	 *                       ID
+	 */
+	private void substitute(final ModuleSetting moduleSetting,
+			final IntFunction<Stream<CompactStatement>> substitutedRow) {
+		this.moduleSetting = moduleSetting;
+		substitutedIds.clear();
+		final List<CompactStatement> substituted = new ArrayList<>();
+		final var mapping = new IntRelation.Builder();
+		for (int axiom = 0; axiom < datalogMapping.sources(); axiom++) {
+			mapping.addRow(substitutedRow.apply(axiom)
+					.mapToInt(next -> substitutedIds.computeIfAbsent(next, statement -> {
+						substituted.add(statement);
+						return substituted.size() - 1;
+					})).distinct().toArray());
+		}
+		this.substituted = substituted.toArray(CompactStatement[]::new);
+		substitutedMapping = mapping.build();
+		substitutedOrig = substitutedMapping.inverse(this.substituted.length);
+	}
+
+	/**
+	 * Assembles the datalog program of the given axioms of the normal form in time
+	 * proportional to the program.
+	 *
+	 * @param axiomsInNF The IDs of axioms of the normal form
+	 * @return The given IDs, to map the support of the program back with
+	 *         {@link #reverse(Stream, BitSet)}, and the enriched program
+	 */
+	public Pair<BitSet, Set<CompactStatement>> toDatalogProgram(final BitSet axiomsInNF) {
+		final MetricsListener metrics = this.metrics;
+		final long start = metrics.start();
+		final BitSet statementIds = new BitSet(substituted.length);
+		axiomsInNF.stream().forEach(next -> substitutedMapping.forEach(next, statementIds::set));
+		final Set<CompactStatement> program = new HashSet<>();
+		statementIds.stream().forEach(next -> program.add(substituted[next]));
+		final long enrichmentStart = metrics.start();
+		enrich(program);
+		metrics.stop(Stage.ENRICHMENT, enrichmentStart);
+		metrics.stop(Stage.PROGRAM_RESTRICTION, start);
+		return Pair.of(axiomsInNF, program);
+	}
+
+	/**
+	 * Assembles the datalog program of all axioms of the normal form whose ID
+	 * matches the given filter.
+	 *
+	 * @see #toDatalogProgram(BitSet)
+	 */
+	public Pair<BitSet, Set<CompactStatement>> toDatalogProgram(final IntPredicate filter) {
+		final BitSet axiomsInNF = new BitSet(datalogMapping.sources());
+		IntStream.range(0, datalogMapping.sources()).filter(filter).forEach(axiomsInNF::set);
+		return toDatalogProgram(axiomsInNF);
+	}
+
+	/**
+	 * Creates a {@link ProgramManager} for a changed normal form. Only the added
+	 * axioms of the normal form are translated and substituted, the statements of
+	 * the remaining axioms are taken over, and the enrichment is only computed for
+	 * new predicates.
+	 *
+	 * @param normalFormIds For every axiom of the normal form of this
+	 *                      {@link ProgramManager}, its ID in the changed normal
+	 *                      form, or -1 if it has been removed. The remaining
+	 *                      axioms have the lowest IDs.
+	 * @param added         The added axioms of the changed normal form, which have
+	 *                      the IDs following those of the remaining axioms in the
+	 *                      given order
+	 * @return The new {@link ProgramManager}, with the {@link ModuleSetting} of
+	 *         this one if set
+	 */
+	public ProgramManager update(final int[] normalFormIds, final List<OWLAxiom> added) {
+		final int[] previousIds = new int[(int) Arrays.stream(normalFormIds).filter(next -> next >= 0).count()];
+		for (int id = 0; id < normalFormIds.length; id++) {
+			if (normalFormIds[id] >= 0) {
+				previousIds[normalFormIds[id]] = id;
+			}
+		}
+		final var builder = new Builder(signatureMapper);
+		for (final int id : previousIds) {
+			builder.put(datalogMapping.row(id).mapToObj(next -> statements[next]).collect(Collectors.toList()));
+		}
+		builder.add(added);
+		final var updated = builder.build();
+		if (moduleSetting != null) {
+			updated.substitute(moduleSetting,
+					axiom -> axiom < previousIds.length
+							? substitutedMapping.row(previousIds[axiom]).mapToObj(next -> substituted[next])
+							: updated.datalogMapping.row(axiom).mapToObj(
+									next -> ModuleSetting.apply(moduleSetting, updated.statements[next], signatureMapper)));
+			updated.topEnrichment.putAll(topEnrichment);
+			updated.eq2_5Map.putAll(eq2_5Map);
+			updated.eq3_4Set.clear();
+			updated.eq3_4Set.addAll(eq3_4Set);
+			updated.precalcEnrichment();
+		}
+		return updated;
+	}
+
+	/**
+	 * Writes the datalog mapping of the normal form in the order of the IDs.
+	 */
+	public void write(final ObjectOutput out) throws IOException {
+		out.writeInt(datalogMapping.sources());
+		for (int axiom = 0; axiom < datalogMapping.sources(); axiom++) {
+			out.writeInt(datalogMapping.size(axiom));
+			final var row = datalogMapping.row(axiom).iterator();
+			while (row.hasNext()) {
+				statements[row.nextInt()].write(out);
+			}
+		}
 	}
 
 }
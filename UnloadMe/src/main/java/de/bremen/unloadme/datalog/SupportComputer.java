@@ -1,141 +1,790 @@
 package de.bremen.unloadme.datalog;
 
 import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
-import org.semanticweb.rulewerk.core.model.api.AbstractConstant;
 import org.semanticweb.rulewerk.core.model.api.Fact;
-import org.semanticweb.rulewerk.core.model.api.Literal;
-import org.semanticweb.rulewerk.core.model.api.PositiveLiteral;
-import org.semanticweb.rulewerk.core.model.api.Rule;
-import org.semanticweb.rulewerk.core.model.api.Statement;
-import org.semanticweb.rulewerk.core.model.implementation.Expressions;
-import org.semanticweb.rulewerk.core.reasoner.KnowledgeBase;
-import org.semanticweb.rulewerk.core.reasoner.Reasoner;
-import org.semanticweb.rulewerk.reasoner.vlog.VLogReasoner;
-
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.SetMultimap;
-
-import de.bremen.unloadme.Util;
+import org.semanticweb.rulewerk.core.model.api.Term;
+
+import com.google.common.collect.Sets;
+
+import de.bremen.unloadme.datalog.engine.DatalogEngine;
+import de.bremen.unloadme.datalog.engine.Materialisation;
+import de.bremen.unloadme.datalog.engine.SemiNaiveEngine;
+import de.bremen.unloadme.datalog.engine.SharedMaterialisation;
+import de.bremen.unloadme.datalog.engine.VLogEngine;
+import de.bremen.unloadme.metrics.MetricsListener;
+import de.bremen.unloadme.metrics.MetricsListener.Count;
+import de.bremen.unloadme.metrics.MetricsListener.Stage;
 import de.bremen.unloadme.modulesettings.Facts;
 import de.bremen.unloadme.modulesettings.ModuleSetting;
 
 public class SupportComputer {
 
+	/**
+	 * Computes the supports of different relevant facts within the same program,
+	 * as obtained by {@link #batch(Set)}. The materialisations of the program and
+	 * of its reduction are shared by all support computations, which only add the
+	 * initial and relevant facts, if the {@link DatalogEngine} supports
+	 * {@link SharedMaterialisation}.
+	 *
+	 * Thread-safe, has to be closed after use.
+	 */
+	public final class Batch implements AutoCloseable {
+
+		private final Set<CompactStatement> program;
+		private final BitSet predicates;
+		private final SharedMaterialisation materialisation;
+		private final SharedMaterialisation reduction;
+
+		private Batch(final Set<CompactStatement> program) throws IOException {
+			this.program = program;
+			predicates = CompactStatement.predicates(program);
+			final DatalogEngine batchEngine = engine;
+			materialisation = batchEngine.share(dictionary, program);
+			try {
+				reduction = goalDirected ? null : batchEngine.share(dictionary, reduction(program));
+			} catch (final IOException | RuntimeException e) {
+				materialisation.close();
+				throw e;
+			}
+		}
+
+		@Override
+		public void close() {
+			materialisation.close();
+			if (reduction != null) {
+				reduction.close();
+			}
+		}
+
+		/**
+		 * Computes the same support as {@link SupportComputer#computeSupport(Set, Facts)}
+		 * for the program of this {@link Batch}.
+		 */
+		public Set<CompactStatement> computeSupport(final Facts facts) throws IOException {
+			final MetricsListener metrics = SupportComputer.this.metrics;
+			final List<CompactStatement> initialFacts = encode(facts.getInitialFacts());
+			final Set<CompactStatement> seeds = new HashSet<>(initialFacts);
+			seeds.addAll(enrichment(predicates, initialFacts));
+			final Set<CompactStatement> kB = Sets.union(program, seeds);
+			countProgram(metrics, kB);
+			final BitSet allPredicates = (BitSet) predicates.clone();
+			allPredicates.or(CompactStatement.predicates(seeds));
+
+			long start = metrics.start();
+			final List<CompactStatement> relevantFactsInMaterialisation;
+			try (final Materialisation extended = materialisation.extend(seeds)) {
+				relevantFactsInMaterialisation = relevantFactsInMaterialisation(allPredicates, facts, extended);
+				metrics.stop(Stage.MATERIALISATION, start);
+				metrics.count(Count.RELEVANT_FACTS, relevantFactsInMaterialisation.size());
+				if (reduction == null) {
+					start = metrics.start();
+					return supported(metrics, start,
+							topDownSupport().support(kB, extended, relevantFactsInMaterialisation));
+				}
+			}
+
+			start = metrics.start();
+			final List<CompactStatement> additions = reduction(seeds);
+			relevantFactsInMaterialisation.forEach(next -> additions.add(suppFact(next)));
+			try (final Materialisation extended = reduction.extend(additions)) {
+				final BitSet supported = new BitSet();
+				extended.forEachAnswer(suppRel, next -> supported.set(next[0]));
+				return supported(metrics, start, supported(supported, program));
+			}
+		}
+
+		/**
+		 * Prepares the support computation of growing relevant facts within the
+		 * program of this {@link Batch}, starting from its shared materialisations.
+		 *
+		 * @return The {@link GrowingSupport}, which has to be closed after use
+		 */
+		public GrowingSupport growing() {
+			return new GrowingSupport(program, this);
+		}
+
+	}
+
+	/**
+	 * Computes the supports of growing initial and relevant facts within the same
+	 * program, as obtained by {@link SupportComputer#growing(Set)} or
+	 * {@link Batch#growing()}, for example for the iterations of datalog based
+	 * module extraction. The materialisations of the program and of its reduction
+	 * are kept between the support computations, so that every support
+	 * computation only adds the facts that are new since the previous one.
+	 *
+	 * Not thread-safe, has to be closed after use.
+	 */
+	public final class GrowingSupport implements AutoCloseable {
+
+		private final Set<CompactStatement> program;
+		private final BitSet predicates;
+		private final Batch batch;
+		private final boolean topDown;
+
+		/**
+		 * The initial facts and their enrichment added so far
+		 */
+		private final Set<CompactStatement> seeds = new HashSet<>();
+
+		/**
+		 * The relevant facts whose support facts have been added to the reduction
+		 */
+		private final Set<CompactStatement> relevantFacts = new HashSet<>();
+
+		private Materialisation materialisation;
+		private Materialisation reduction;
+
+		/**
+		 * @param batch The {@link Batch} of the given program, or null
+		 */
+		private GrowingSupport(final Set<CompactStatement> program, final Batch batch) {
+			this.program = program;
+			this.batch = batch;
+			predicates = CompactStatement.predicates(program);
+			topDown = batch == null ? goalDirected : batch.reduction == null;
+		}
+
+		@Override
+		public void close() {
+			if (materialisation != null) {
+				materialisation.close();
+			}
+			if (reduction != null) {
+				reduction.close();
+			}
+		}
+
+		/**
+		 * Computes the same support as {@link SupportComputer#computeSupport(Set, Facts)}
+		 * for the program of this {@link GrowingSupport}.
+		 *
+		 * @param facts The facts, whose initial facts must contain those of the
+		 *              previous call, as the facts of every {@link ModuleSetting} for
+		 *              a growing signature do
+		 * @throws IllegalArgumentException If initial facts of the previous call are
+		 *                                  missing
+		 */
+		public Set<CompactStatement> computeSupport(final Facts facts) throws IOException {
+			final MetricsListener metrics = SupportComputer.this.metrics;
+			final List<CompactStatement> initialFacts = encode(facts.getInitialFacts());
+			final Set<CompactStatement> newSeeds = new HashSet<>(initialFacts);
+			newSeeds.addAll(enrichment(predicates, initialFacts));
+			if (!newSeeds.containsAll(seeds)) {
+				throw new IllegalArgumentException("Initial facts of the previous support computation are missing");
+			}
+			newSeeds.removeAll(seeds);
+			seeds.addAll(newSeeds);
+			final Set<CompactStatement> kB = Sets.union(program, seeds);
+			countProgram(metrics, kB);
+			final BitSet allPredicates = (BitSet) predicates.clone();
+			allPredicates.or(CompactStatement.predicates(seeds));
+
+			long start = metrics.start();
+			if (materialisation == null) {
+				materialisation = batch == null ? engine.materialise(dictionary, kB)
+						: batch.materialisation.extend(seeds);
+			} else {
+				materialisation.add(newSeeds);
+			}
+			final List<CompactStatement> relevantFactsInMaterialisation = relevantFactsInMaterialisation(
+					allPredicates, facts, materialisation);
+			metrics.stop(Stage.MATERIALISATION, start);
+			metrics.count(Count.RELEVANT_FACTS, relevantFactsInMaterialisation.size());
+			start = metrics.start();
+			if (topDown) {
+				return supported(metrics, start,
+						topDownSupport().support(kB, materialisation, relevantFactsInMaterialisation));
+			}
+
+			final List<CompactStatement> suppFacts = relevantFactsInMaterialisation.stream()
+					.filter(relevantFacts::add).map(next -> suppFact(next)).collect(Collectors.toList());
+			if (reduction == null) {
+				final List<CompactStatement> additions = reduction(batch == null ? kB : seeds);
+				additions.addAll(suppFacts);
+				reduction = batch == null ? engine.materialise(dictionary, additions)
+						: batch.reduction.extend(additions);
+			} else {
+				// the reductions of seeds only derive suppRel for the seeds themselves, which
+				// matters only for seeds within the program, whose reductions are loaded
+				final List<CompactStatement> additions = new ArrayList<>(newSeeds);
+				additions.addAll(suppFacts);
+				reduction.add(additions);
+			}
+			final BitSet supported = new BitSet();
+			reduction.forEachAnswer(suppRel, next -> supported.set(next[0]));
+			return supported(metrics, start, supported(supported, program));
+		}
+
+	}
+
+	/**
+	 * The reduction Δ(𝒫) of the complete program 𝒫. Every statement of 𝒫 has a
+	 * dense ID, by which its rule constant and the range of its reductions are
+	 * stored in flat arrays. The ID of a statement is looked up by hashing it, so
+	 * the reduction of a program is assembled from slices of one array with one
+	 * lookup per statement, without computing any reduction anew.
+	 *
+	 * Instances are immutable and can be shared between threads.
+	 */
+	private static final class ReductionIndex {
+
+		private static final ReductionIndex EMPTY = new ReductionIndex(List.of(), new int[0], List.of(), new int[1]);
+
+		private final Map<CompactStatement, Integer> ids;
+		private final CompactStatement[] statements;
+		private final int[] ruleConstants;
+		private final int[] offsets;
+		private final CompactStatement[] reductions;
+
+		/**
+		 * @param statements    The distinct statements of the complete program, by ID
+		 * @param ruleConstants The rule constants of the statements, by ID
+		 * @param reductions    The reductions of all statements, ordered by ID
+		 * @param offsets       The offset of the first reduction of every statement
+		 *                      within reductions, by ID, followed by the number of
+		 *                      reductions
+		 */
+		private ReductionIndex(final List<CompactStatement> statements, final int[] ruleConstants,
+				final List<CompactStatement> reductions, final int[] offsets) {
+			this.statements = statements.toArray(new CompactStatement[statements.size()]);
+			this.ruleConstants = ruleConstants;
+			this.offsets = offsets;
+			this.reductions = reductions.toArray(new CompactStatement[reductions.size()]);
+			ids = new HashMap<>(this.statements.length * 4 / 3 + 1);
+			for (int id = 0; id < this.statements.length; id++) {
+				ids.put(this.statements[id], id);
+			}
+		}
+
+		/**
+		 * @return The ID of the given statement, or -1 if it is not part of the
+		 *         complete program
+		 */
+		private int id(final CompactStatement statement) {
+			final Integer id = ids.get(statement);
+			return id == null ? -1 : id;
+		}
+
+		/**
+		 * @return A view of the reductions of the statement with the given ID
+		 */
+		private List<CompactStatement> reductions(final int id) {
+			return Arrays.asList(reductions).subList(offsets[id], offsets[id + 1]);
+		}
+
+		private List<CompactStatement> statements() {
+			return Arrays.asList(statements);
+		}
+
+	}
+
 	private final DatalogSignatureMapper mapper;
+	private final SymbolDictionary dictionary;
 
-	private final SetMultimap<Statement, Rule> reductionMap = HashMultimap.create();
-	private final Map<Statement, AbstractConstant> ruleConstants = new HashMap<>();
+	private ReductionIndex reductionIndex = ReductionIndex.EMPTY;
 	private ModuleSetting moduleSetting;
 
+	private final Map<Integer, Integer> suppPredicates = new ConcurrentHashMap<>();
+
+	private DatalogEngine engine = new VLogEngine();
+
+	private boolean goalDirected = false;
+	private volatile TopDownSupport topDownSupport;
+
+	private boolean programPruning = false;
+
+	private volatile MetricsListener metrics = MetricsListener.NONE;
+
+	private final int sameAs;
+	private final int suppRel;
+
 	public SupportComputer(final DatalogSignatureMapper mapper) {
 		this.mapper = mapper;
+		dictionary = mapper.getDictionary();
+		sameAs = dictionary.id(mapper.sameAs());
+		suppRel = dictionary.id(mapper.suppRel());
 	}
 
-	private Set<Fact> computeRelevantFactsInMaterialsiation(final KnowledgeBase kB, final Set<Fact> relevantFacts)
-			throws IOException {
-		try (final Reasoner reasoner = new VLogReasoner(kB)) {
-			if (!reasoner.reason()) {
-				throw new RuntimeException();
-			}
-			final var allPredicates = Stream
-					.concat(Util.predicates(kB.getRules().stream()), kB.getFacts().stream().map(Fact::getPredicate))
-					.collect(Collectors.toSet());
-			return relevantFacts.stream().filter(next -> allPredicates.contains(next.getPredicate())).filter(next -> {
-				try (var result = reasoner.answerQuery(
-						Expressions.makePositiveLiteral(next.getPredicate(), next.getArguments()), false)) {
-					return result.hasNext();
-				}
-			}).collect(Collectors.toSet());
+	/**
+	 * Prepares the support computation of different relevant facts within the
+	 * given program with the current {@link DatalogEngine}, for example for the
+	 * extraction of many modules. The settings of this {@link SupportComputer}
+	 * must not be changed while the returned {@link Batch} is used.
+	 *
+	 * @param program The program, including its enrichment
+	 * @return The {@link Batch}, which has to be closed after use
+	 * @throws IOException If the engine fails to load the program
+	 */
+	public Batch batch(final Set<CompactStatement> program) throws IOException {
+		return new Batch(program);
+	}
+
+	private List<CompactStatement> computeRelevantFactsInMaterialsiation(final Set<CompactStatement> program,
+			final Facts facts, final DatalogEngine engine) throws IOException {
+		try (final Materialisation materialisation = engine.materialise(dictionary, program)) {
+			return relevantFactsInMaterialisation(CompactStatement.predicates(program), facts, materialisation);
 		}
 	}
 
-	public Set<Statement> computeSupport(final KnowledgeBase kB, final Facts facts) throws IOException {
+	public Set<CompactStatement> computeSupport(final Set<CompactStatement> program, final Facts facts)
+			throws IOException {
+		return computeSupport(program, facts, engine);
+	}
+
+	/**
+	 * Computes the support of the relevant facts using the given
+	 * {@link DatalogEngine} for both the materialisation and the reduction.
+	 */
+	public Set<CompactStatement> computeSupport(final Set<CompactStatement> program, final Facts facts,
+			final DatalogEngine engine) throws IOException {
+		if (goalDirected) {
+			return computeSupportTopDown(program, facts, engine);
+		}
 		// calculate entailed relevant facts
-		kB.addStatements(facts.getInitialFacts());
-		kB.addStatements(enrichment(kB, facts.getInitialFacts()));
-		final Set<Fact> relevantFactsInMaterialsiation = computeRelevantFactsInMaterialsiation(kB,
-				facts.getRelevantFacts());
-		
+		final MetricsListener metrics = this.metrics;
+		final Set<CompactStatement> kB = pruned(withInitialFacts(program, facts), facts);
+		countProgram(metrics, kB);
+		long start = metrics.start();
+		final List<CompactStatement> relevantFactsInMaterialsiation = computeRelevantFactsInMaterialsiation(kB,
+				facts, engine);
+		metrics.stop(Stage.MATERIALISATION, start);
+		metrics.count(Count.RELEVANT_FACTS, relevantFactsInMaterialsiation.size());
+
 		// construct Δ(𝒟,𝐹)
 		// construct Δ(𝒫)
-		final KnowledgeBase reduction = new KnowledgeBase();
-		reduction.addStatements(kB.getStatements());
-		kB.getStatements().stream().flatMap(next -> reductionMap.get(next).stream()).forEach(reduction::addStatement);
-		reduction.addStatements(relevantFactsInMaterialsiation.stream()
-				.map(next -> Expressions.makeFact(mapper.suppPredicate(next.getPredicate()), next.getArguments()))
-				.collect(Collectors.toSet()));
-
-		try (final Reasoner reasoner = new VLogReasoner(reduction)) {
-			if (!reasoner.reason()) {
-				throw new RuntimeException();
-			}
-			return kB.getStatements().stream().filter(ruleConstants::containsKey).filter(next -> {
-				try (var result = reasoner.answerQuery(
-						Expressions.makePositiveLiteral(mapper.suppRel(), ruleConstants.get(next)), false)) {
-					return result.hasNext();
-				}
-			}).collect(Collectors.toSet());
+		start = metrics.start();
+		final List<CompactStatement> reduction = reduction(kB);
+		relevantFactsInMaterialsiation.forEach(next -> reduction.add(suppFact(next)));
+
+		try (final Materialisation materialisation = engine.materialise(dictionary, reduction)) {
+			final BitSet supported = new BitSet();
+			materialisation.forEachAnswer(suppRel, next -> supported.set(next[0]));
+			return supported(metrics, start, supported(supported, kB));
 		}
 	}
 
-	private Set<Statement> enrichment(final KnowledgeBase kb, final Set<Fact> initialFacts) {
-		final Set<Statement> enrichment = new HashSet<>();
-		final var predicates = Util.predicates(kb.getStatements().stream()).collect(Collectors.toSet());
-		if (predicates.contains(mapper.sameAs())) {
+	/**
+	 * Computes the same support as {@link #computeSupport(Set, Facts)} with one
+	 * materialisation of the program and a {@link TopDownSupport} search instead of
+	 * the materialisation of the reduction.
+	 */
+	private Set<CompactStatement> computeSupportTopDown(final Set<CompactStatement> program, final Facts facts,
+			final DatalogEngine engine) throws IOException {
+		final MetricsListener metrics = this.metrics;
+		final Set<CompactStatement> kB = pruned(withInitialFacts(program, facts), facts);
+		countProgram(metrics, kB);
+		long start = metrics.start();
+		try (final Materialisation materialisation = engine.materialise(dictionary, kB)) {
+			final List<CompactStatement> relevantFactsInMaterialisation = relevantFactsInMaterialisation(
+					CompactStatement.predicates(kB), facts, materialisation);
+			metrics.stop(Stage.MATERIALISATION, start);
+			metrics.count(Count.RELEVANT_FACTS, relevantFactsInMaterialisation.size());
+			start = metrics.start();
+			return supported(metrics, start,
+					topDownSupport().support(kB, materialisation, relevantFactsInMaterialisation));
+		}
+	}
+
+	/**
+	 * Counts the rules, facts and predicates of the given program, if the given
+	 * {@link MetricsListener} is enabled.
+	 */
+	private static void countProgram(final MetricsListener metrics, final Set<CompactStatement> program) {
+		if (!metrics.isEnabled()) {
+			return;
+		}
+		final long facts = program.stream().filter(CompactStatement::isFact).count();
+		metrics.count(Count.RULES, program.size() - facts);
+		metrics.count(Count.FACTS, facts);
+		metrics.count(Count.PREDICATES, CompactStatement.predicates(program).cardinality());
+	}
+
+	private List<CompactStatement> encode(final Set<Fact> facts) {
+		return facts.stream().map(dictionary::encode).collect(Collectors.toList());
+	}
+
+	private BitSet encodeTerms(final Set<Term> terms) {
+		final BitSet encoded = new BitSet();
+		terms.forEach(next -> encoded.set(dictionary.id(next)));
+		return encoded;
+	}
+
+	private int[] encodeTuple(final List<Term> tuple) {
+		return tuple.stream().mapToInt(dictionary::id).toArray();
+	}
+
+	private Set<CompactStatement> enrichment(final BitSet programPredicates,
+			final List<CompactStatement> initialFacts) {
+		final Set<CompactStatement> enrichment = new HashSet<>();
+		if (programPredicates.get(sameAs) || CompactStatement.predicates(initialFacts).get(sameAs)) {
 			// EQ1
-			Util.allConstants(initialFacts.stream())
-					.forEach(next -> enrichment.add(Expressions.makeFact(mapper.sameAs(), next, next)));
+			dictionary.constants(initialFacts).stream().forEach(
+					next -> enrichment.add(CompactStatement.fact(CompactStatement.atom(sameAs, next, next))));
 		}
 		return enrichment;
 	}
 
-	public void setModuleSetting(final ModuleSetting moduleSetting, final KnowledgeBase complete) {
+	/**
+	 * @return The {@link DatalogEngine} used by {@link #computeSupport(Set, Facts)}
+	 */
+	public DatalogEngine getEngine() {
+		return engine;
+	}
+
+	public MetricsListener getMetricsListener() {
+		return metrics;
+	}
+
+	/**
+	 * Prepares the support computation of growing relevant facts within the given
+	 * program with the current {@link DatalogEngine}. The settings of this
+	 * {@link SupportComputer} must not be changed while the returned
+	 * {@link GrowingSupport} is used.
+	 *
+	 * @param program The program, including its enrichment
+	 * @return The {@link GrowingSupport}, which has to be closed after use
+	 */
+	public GrowingSupport growing(final Set<CompactStatement> program) {
+		return new GrowingSupport(program, null);
+	}
+
+	public boolean isGoalDirected() {
+		return goalDirected;
+	}
+
+	public boolean isProgramPruning() {
+		return programPruning;
+	}
+
+	/**
+	 * Restores the reduction of the complete program for the given
+	 * {@link ModuleSetting} as written by {@link #write(ObjectOutput)}, instead of
+	 * computing it by {@link #setModuleSetting(ModuleSetting, Collection)}. The
+	 * mapper of this {@link SupportComputer} has to be read from the same
+	 * snapshot.
+	 */
+	public void read(final ObjectInput in, final ModuleSetting moduleSetting) throws IOException {
+		this.moduleSetting = Objects.requireNonNull(moduleSetting);
+		topDownSupport = null;
+		reductionIndex = ReductionIndex.EMPTY;
+		final int size = in.readInt();
+		final List<CompactStatement> statements = new ArrayList<>(size);
+		final int[] ruleConstants = new int[size];
+		final List<CompactStatement> reductions = new ArrayList<>();
+		final int[] offsets = new int[size + 1];
+		for (int id = 0; id < size; id++) {
+			statements.add(CompactStatement.read(in));
+			ruleConstants[id] = in.readInt();
+			final int count = in.readInt();
+			for (int j = 0; j < count; j++) {
+				reductions.add(CompactStatement.read(in));
+			}
+			offsets[id + 1] = reductions.size();
+		}
+		reductionIndex = new ReductionIndex(statements, ruleConstants, reductions, offsets);
+	}
+
+	/**
+	 * @return The given statements followed by their reductions, which are
+	 *         distinct if the given statements are
+	 */
+	private List<CompactStatement> reduction(final Collection<CompactStatement> statements) {
+		final ReductionIndex reductionIndex = this.reductionIndex;
+		final int[] ids = new int[statements.size()];
+		int size = ids.length;
+		int i = 0;
+		for (final CompactStatement next : statements) {
+			final int id = reductionIndex.id(next);
+			ids[i++] = id;
+			if (id >= 0) {
+				size += reductionIndex.offsets[id + 1] - reductionIndex.offsets[id];
+			}
+		}
+		final List<CompactStatement> reduction = new ArrayList<>(size);
+		reduction.addAll(statements);
+		for (final int id : ids) {
+			if (id >= 0) {
+				reduction.addAll(reductionIndex.reductions(id));
+			}
+		}
+		return reduction;
+	}
+
+	/**
+	 * Computes the reduction of the given complete program, taking the rule
+	 * constants and reductions of statements that are part of the given previous
+	 * {@link ReductionIndex} from it.
+	 */
+	private ReductionIndex reductionIndex(final Collection<CompactStatement> complete,
+			final ReductionIndex previous) {
+		final List<CompactStatement> statements = complete.stream().distinct().collect(Collectors.toList());
+		final int[] ruleConstants = new int[statements.size()];
+		final List<CompactStatement> reductions = new ArrayList<>(statements.size() * 3);
+		final int[] offsets = new int[statements.size() + 1];
+		for (int id = 0; id < statements.size(); id++) {
+			final CompactStatement next = statements.get(id);
+			final int previousId = previous.id(next);
+			if (previousId >= 0) {
+				ruleConstants[id] = previous.ruleConstants[previousId];
+				reductions.addAll(previous.reductions(previousId));
+				offsets[id + 1] = reductions.size();
+				continue;
+			}
+			final int ruleConstant = dictionary.id(mapper.suppRuleConstant(next));
+			ruleConstants[id] = ruleConstant;
+			final int[] head = next.head();
+			final int[] bodyReductionLiteral = supp(head, 0);
+			reductions.add(
+					CompactStatement.rule(CompactStatement.atom(suppRel, ruleConstant), bodyReductionLiteral, next.body()));
+			final int[] body = next.body();
+			for (int offset = 0; offset < body.length; offset = CompactStatement.next(body, offset)) {
+				reductions.add(CompactStatement.rule(supp(body, offset), bodyReductionLiteral, body));
+			}
+			offsets[id + 1] = reductions.size();
+		}
+		return new ReductionIndex(statements, ruleConstants, reductions, offsets);
+	}
+
+	/**
+	 * @return The given knowledge base, restricted by {@link DependencyPruning} to
+	 *         the predicates of the relevant facts if program pruning is enabled
+	 */
+	private Set<CompactStatement> pruned(final Set<CompactStatement> kB, final Facts facts) {
+		if (!programPruning) {
+			return kB;
+		}
+		final BitSet relevantPredicates = new BitSet();
+		facts.getRelevantFacts().forEach(next -> relevantPredicates.set(dictionary.id(next.getPredicate())));
+		facts.getRelevantPatterns().forEach(next -> relevantPredicates.set(dictionary.id(next.getPredicate())));
+		return DependencyPruning.prune(kB, relevantPredicates);
+	}
+
+	/**
+	 * @return The relevant facts entailed by the given materialisation, where the
+	 *         patterns of relevant facts are matched against the entailed facts of
+	 *         their predicates
+	 */
+	private List<CompactStatement> relevantFactsInMaterialisation(final BitSet allPredicates, final Facts facts,
+			final Materialisation materialisation) {
+		final List<CompactStatement> relevantFacts = facts.getRelevantFacts().stream().map(dictionary::encode)
+				.filter(next -> allPredicates.get(next.headPredicate())).filter(materialisation::contains)
+				.collect(Collectors.toList());
+		// patterns of different predicates share their sets, which are encoded once
+		final Map<Set<Term>, BitSet> domains = new IdentityHashMap<>();
+		final Map<Set<List<Term>>, List<int[]>> tuples = new IdentityHashMap<>();
+		for (final Facts.Pattern pattern : facts.getRelevantPatterns()) {
+			final int predicate = dictionary.id(pattern.getPredicate());
+			if (!allPredicates.get(predicate)) {
+				continue;
+			}
+			if (pattern.getTuples() == null) {
+				final BitSet[] encoded = pattern.getDomains().stream()
+						.map(next -> domains.computeIfAbsent(next, this::encodeTerms)).toArray(BitSet[]::new);
+				materialisation.forEachAnswer(predicate, next -> {
+					for (int i = 0; i < encoded.length; i++) {
+						if (!encoded[i].get(next[i])) {
+							return;
+						}
+					}
+					relevantFacts.add(CompactStatement.fact(CompactStatement.atom(predicate, next)));
+				});
+			} else {
+				// every tuple is looked up instead of comparing every answer to the tuples
+				final List<int[]> encoded = tuples.computeIfAbsent(pattern.getTuples(),
+						next -> next.stream().map(this::encodeTuple).collect(Collectors.toList()));
+				final int[] excluded = pattern.getExcluded() == null ? null : encodeTuple(pattern.getExcluded());
+				for (final int[] next : encoded) {
+					if (!Arrays.equals(next, excluded) && materialisation.contains(predicate, next)) {
+						relevantFacts.add(CompactStatement.fact(CompactStatement.atom(predicate, next)));
+					}
+				}
+			}
+		}
+		return relevantFacts;
+	}
+
+	/**
+	 * Sets the {@link DatalogEngine} used by {@link #computeSupport(Set, Facts)}.
+	 *
+	 * @param engine The engine to use, for example {@link VLogEngine} or
+	 *               {@link SemiNaiveEngine}
+	 */
+	public void setEngine(final DatalogEngine engine) {
+		this.engine = Objects.requireNonNull(engine);
+	}
+
+	/**
+	 * Enables or disables the goal-directed support computation. Instead of
+	 * materialising the reduction of the whole program, the support is then
+	 * searched top-down from the relevant facts, so that only the part of the
+	 * program that can reach the relevant facts is looked at.
+	 *
+	 * @param goalDirected Whether to compute the support goal-directed
+	 */
+	public void setGoalDirected(final boolean goalDirected) {
+		this.goalDirected = goalDirected;
+	}
+
+	/**
+	 * Enables or disables the pruning of programs by {@link DependencyPruning}
+	 * before the support is computed from scratch. Rules whose body cannot be
+	 * derived from the facts and initial facts, and statements that cannot reach a
+	 * relevant fact, are then neither materialised nor reduced, which pays off for
+	 * small signatures. {@link Batch}es and {@link GrowingSupport}s keep their
+	 * programs unpruned, as they share them between different facts.
+	 *
+	 * @param programPruning Whether to prune programs
+	 */
+	public void setProgramPruning(final boolean programPruning) {
+		this.programPruning = programPruning;
+	}
+
+	/**
+	 * Sets the {@link MetricsListener} to report support computations to.
+	 */
+	public void setMetricsListener(final MetricsListener metrics) {
+		this.metrics = Objects.requireNonNull(metrics);
+	}
+
+	public void setModuleSetting(final ModuleSetting moduleSetting, final Collection<CompactStatement> complete) {
 		Objects.requireNonNull(moduleSetting);
 		if (this.moduleSetting != null && this.moduleSetting.getClass() == moduleSetting.getClass()) {
 			return;
 		}
 		this.moduleSetting = moduleSetting;
-		reductionMap.clear();
-		ruleConstants.clear();
-		complete.getFacts().forEach(next -> {
-			final Fact fact = next;
-			final var ruleConstant = mapper.suppRuleConstant(next);
-			ruleConstants.put(fact, ruleConstant);
-			final PositiveLiteral bodyReductionLiteral = Expressions
-					.makePositiveLiteral(mapper.suppPredicate(fact.getPredicate()), fact.getArguments());
-			reductionMap.put(next, Expressions.makeRule(Expressions.makePositiveLiteral(mapper.suppRel(), ruleConstant),
-					bodyReductionLiteral));
-		});
-		complete.getRules().forEach(next -> {
-			final Rule rule = next;
-			final var headLiteral = rule.getHead().getLiterals().get(0);
-			final PositiveLiteral bodyReductionLiteral = Expressions
-					.makePositiveLiteral(mapper.suppPredicate(headLiteral.getPredicate()), headLiteral.getArguments());
-			final Literal[] body = new Literal[rule.getBody().getLiterals().size() + 1];
-			body[0] = bodyReductionLiteral;
-			for (int i = 0; i < rule.getBody().getLiterals().size(); i++) {
-				body[i + 1] = rule.getBody().getLiterals().get(i);
-			}
-
-			final var ruleConstant = mapper.suppRuleConstant(next);
-			ruleConstants.put(rule, ruleConstant);
-			final Rule first = Expressions.makeRule(Expressions.makePositiveLiteral(mapper.suppRel(), ruleConstant),
-					body);
-
-			final Stream<Rule> others = rule.getBody().getLiterals().stream().map(lit -> Expressions.makeRule(
-					Expressions.makePositiveLiteral(mapper.suppPredicate(lit.getPredicate()), lit.getArguments()),
-					body));
-			reductionMap.put(next, first);
-			others.forEach(n -> reductionMap.put(next, n));
+		topDownSupport = null;
+		reductionIndex = reductionIndex(complete, ReductionIndex.EMPTY);
+	}
+
+	/**
+	 * @return The atom at the given offset with its predicate p replaced by
+	 *         suppPredicate(p)
+	 */
+	private int[] supp(final int[] atoms, final int offset) {
+		final int[] atom = Arrays.copyOfRange(atoms, offset, CompactStatement.next(atoms, offset));
+		atom[0] = suppPredicate(atom[0]);
+		return atom;
+	}
+
+	/**
+	 * @return suppPredicate(p)(t_1,...,t_n) for the given fact p(t_1,...,t_n)
+	 */
+	private CompactStatement suppFact(final CompactStatement fact) {
+		return CompactStatement.fact(CompactStatement.atom(suppPredicate(fact.headPredicate()), fact.headTerms()));
+	}
+
+	private int suppPredicate(final int predicate) {
+		return suppPredicates.computeIfAbsent(predicate,
+				p -> dictionary.id(mapper.suppPredicate(dictionary.predicate(p))));
+	}
+
+	/**
+	 * @return The statements of the given program for which suppRel holds
+	 *         according to the given IDs of supported rule constants
+	 */
+	private Set<CompactStatement> supported(final BitSet supportedConstants, final Set<CompactStatement> program) {
+		final ReductionIndex reductionIndex = this.reductionIndex;
+		final Set<CompactStatement> supported = new HashSet<>();
+		program.forEach(next -> {
+			final int id = reductionIndex.id(next);
+			if (id >= 0 && supportedConstants.get(reductionIndex.ruleConstants[id])) {
+				supported.add(next);
+			}
 		});
+		return supported;
+	}
+
+	/**
+	 * Reports the support computation started at the given time.
+	 *
+	 * @return The given support
+	 */
+	private static Set<CompactStatement> supported(final MetricsListener metrics, final long start,
+			final Set<CompactStatement> support) {
+		metrics.stop(Stage.SUPPORT, start);
+		metrics.count(Count.SUPPORT_SIZE, support.size());
+		return support;
+	}
+
+	private TopDownSupport topDownSupport() {
+		TopDownSupport result = topDownSupport;
+		if (result == null) {
+			synchronized (this) {
+				result = topDownSupport;
+				if (result == null) {
+					result = new TopDownSupport(dictionary, reductionIndex.statements());
+					topDownSupport = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Creates a {@link SupportComputer} with the settings of this one for the
+	 * changed complete program of the same {@link ModuleSetting}. Only the
+	 * statements that are not part of the complete program of this
+	 * {@link SupportComputer} are reduced, the reductions of all others are
+	 * reused.
+	 *
+	 * @param complete The changed complete program
+	 * @return The new {@link SupportComputer}
+	 */
+	public SupportComputer update(final Collection<CompactStatement> complete) {
+		final var updated = new SupportComputer(mapper);
+		updated.engine = engine;
+		updated.goalDirected = goalDirected;
+		updated.programPruning = programPruning;
+		updated.metrics = metrics;
+		updated.suppPredicates.putAll(suppPredicates);
+		updated.moduleSetting = moduleSetting;
+		updated.reductionIndex = updated.reductionIndex(complete, reductionIndex);
+		return updated;
+	}
+
+	/**
+	 * @return The given program extended by the initial facts and their enrichment
+	 */
+	private Set<CompactStatement> withInitialFacts(final Set<CompactStatement> program, final Facts facts) {
+		final Set<CompactStatement> kB = new HashSet<>(program);
+		final List<CompactStatement> initialFacts = encode(facts.getInitialFacts());
+		kB.addAll(initialFacts);
+		kB.addAll(enrichment(CompactStatement.predicates(kB), initialFacts));
+		return kB;
+	}
+
+	/**
+	 * Writes the reduction of the complete program and the rule constants.
+	 */
+	public void write(final ObjectOutput out) throws IOException {
+		final ReductionIndex reductionIndex = this.reductionIndex;
+		out.writeInt(reductionIndex.statements.length);
+		for (int id = 0; id < reductionIndex.statements.length; id++) {
+			reductionIndex.statements[id].write(out);
+			out.writeInt(reductionIndex.ruleConstants[id]);
+			final List<CompactStatement> reductions = reductionIndex.reductions(id);
+			out.writeInt(reductions.size());
+			for (final CompactStatement reduction : reductions) {
+				reduction.write(out);
+			}
+		}
 	}
 
 }
@@ -0,0 +1,191 @@
+package de.bremen.unloadme.datalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.semanticweb.rulewerk.core.model.api.Entity;
+import org.semanticweb.rulewerk.core.model.api.Fact;
+import org.semanticweb.rulewerk.core.model.api.Literal;
+import org.semanticweb.rulewerk.core.model.api.PositiveLiteral;
+import org.semanticweb.rulewerk.core.model.api.Predicate;
+import org.semanticweb.rulewerk.core.model.api.Statement;
+import org.semanticweb.rulewerk.core.model.api.Term;
+import org.semanticweb.rulewerk.core.model.api.TermType;
+import org.semanticweb.rulewerk.core.model.implementation.Expressions;
+
+/**
+ * Dense int IDs for all {@link Entity}s created by a
+ * {@link DatalogSignatureMapper}. IDs are assigned in the order of creation
+ * starting from 0, so that they can be used as array indices.
+ *
+ * Internally, programs are represented as {@link CompactStatement}s over these
+ * IDs. Rulewerk objects are only created by {@link #toStatement} when a
+ * program is handed to an external reasoner.
+ *
+ * IDs are only assigned by the owning mapper, concurrently and without a
+ * global lock. Symbols are stored in fixed-size pages, so that the storage never
+ * has to be copied while IDs are assigned. All lookups are thread-safe.
+ */
+public final class SymbolDictionary {
+
+	private static final int PAGE_BITS = 12;
+	private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+
+	private final Map<Entity, Integer> ids = new ConcurrentHashMap<>();
+	private final AtomicInteger size = new AtomicInteger();
+	private volatile Entity[][] pages = new Entity[16][];
+	private volatile int equality = -1;
+
+	int add(final Entity symbol) {
+		final Integer known = ids.get(symbol);
+		if (known != null) {
+			return known;
+		}
+		return ids.computeIfAbsent(symbol, s -> {
+			final int id = size.getAndIncrement();
+			page(id >>> PAGE_BITS)[id & PAGE_MASK] = s;
+			return id;
+		});
+	}
+
+	/**
+	 * @param predicate The ID of a predicate
+	 * @return The arity of the predicate
+	 */
+	public int arity(final int predicate) {
+		return predicate(predicate).getArity();
+	}
+
+	/**
+	 * @return The IDs of all abstract constants occurring in the given statements
+	 */
+	public BitSet constants(final Collection<CompactStatement> statements) {
+		final BitSet constants = new BitSet(size());
+		statements.forEach(next -> next.forEachTerm(term -> {
+			if (!constants.get(term) && term(term).getType() == TermType.ABSTRACT_CONSTANT) {
+				constants.set(term);
+			}
+		}));
+		return constants;
+	}
+
+	private List<Term> decode(final int[] atoms, final int offset) {
+		final List<Term> terms = new ArrayList<>(atoms[offset + 1]);
+		for (int i = 0; i < atoms[offset + 1]; i++) {
+			terms.add(term(atoms[offset + 2 + i]));
+		}
+		return terms;
+	}
+
+	/**
+	 * @return The ID of the predicate axiomatised as equality by the
+	 *         {@link ProgramManager}, or -1 if it has not been created yet
+	 */
+	public int equality() {
+		return equality;
+	}
+
+	/**
+	 * @param fact A fact over symbols of this dictionary
+	 * @return The corresponding {@link CompactStatement}
+	 */
+	public CompactStatement encode(final Fact fact) {
+		final var arguments = fact.getArguments();
+		final int[] terms = new int[arguments.size()];
+		for (int i = 0; i < terms.length; i++) {
+			terms[i] = id(arguments.get(i));
+		}
+		return CompactStatement.fact(CompactStatement.atom(id(fact.getPredicate()), terms));
+	}
+
+	/**
+	 * @param symbol An entity created by the owning mapper
+	 * @return The ID of the entity
+	 * @throws IllegalArgumentException If the entity is unknown
+	 */
+	public int id(final Entity symbol) {
+		final Integer id = ids.get(symbol);
+		if (id == null) {
+			throw new IllegalArgumentException("Unknown symbol: " + symbol);
+		}
+		return id;
+	}
+
+	/**
+	 * @return Whether the given ID denotes a variable
+	 */
+	public boolean isVariable(final int id) {
+		final Entity symbol = symbol(id);
+		return symbol instanceof Term && ((Term) symbol).isVariable();
+	}
+
+	private List<PositiveLiteral> literals(final int[] atoms) {
+		final List<PositiveLiteral> literals = new ArrayList<>();
+		for (int offset = 0; offset < atoms.length; offset = CompactStatement.next(atoms, offset)) {
+			literals.add(Expressions.makePositiveLiteral(predicate(atoms[offset]), decode(atoms, offset)));
+		}
+		return literals;
+	}
+
+	/**
+	 * @return The page with the given index, which is created if necessary
+	 */
+	private Entity[] page(final int index) {
+		final Entity[][] current = pages;
+		if (index < current.length && current[index] != null) {
+			return current[index];
+		}
+		synchronized (this) {
+			if (index >= pages.length || pages[index] == null) {
+				final Entity[][] grown = Arrays.copyOf(pages,
+						index < pages.length ? pages.length : Math.max(pages.length * 2, index + 1));
+				grown[index] = new Entity[PAGE_MASK + 1];
+				pages = grown;
+			}
+			return pages[index];
+		}
+	}
+
+	void setEquality(final int equality) {
+		this.equality = equality;
+	}
+
+	public Predicate predicate(final int id) {
+		return (Predicate) symbol(id);
+	}
+
+	/**
+	 * @return The number of IDs assigned so far
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	public Entity symbol(final int id) {
+		return pages[id >>> PAGE_BITS][id & PAGE_MASK];
+	}
+
+	public Term term(final int id) {
+		return (Term) symbol(id);
+	}
+
+	/**
+	 * @param statement A statement over IDs of this dictionary
+	 * @return The corresponding Rulewerk {@link Statement}
+	 */
+	public Statement toStatement(final CompactStatement statement) {
+		final int[] head = statement.head();
+		if (statement.isFact()) {
+			return Expressions.makeFact(predicate(head[0]), decode(head, 0));
+		}
+		return Expressions.makeRule(Expressions.makePositiveConjunction(literals(head)),
+				Expressions.makeConjunction(new ArrayList<Literal>(literals(statement.body()))));
+	}
+
+}
@@ -0,0 +1,206 @@
+package de.bremen.unloadme.datalog;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+
+import de.bremen.unloadme.datalog.engine.Materialisation;
+
+/**
+ * Goal-directed computation of the support of relevant facts, equivalent to
+ * materialising the reduction Δ(𝒫) and collecting suppRel. Starting from the
+ * entailed relevant facts, supp atoms are propagated backwards through those
+ * instances of rules whose body holds in the materialisation of the program.
+ * Every supp atom is tabled and expanded once, so only supp atoms that can reach
+ * some relevant fact are ever derived, and rules whose head predicate is never
+ * reached are not looked at.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+final class TopDownSupport {
+
+	/**
+	 * A statement of the complete program with its terms encoded for matching:
+	 * constants by their non-negative ID, the variable in slot s by -(s + 1).
+	 */
+	private static final class IndexedStatement {
+
+		private final CompactStatement statement;
+		private final int[] head;
+		private final int[] bodyPredicates;
+		private final int[][] body;
+		private final int variables;
+
+		private IndexedStatement(final CompactStatement statement, final SymbolDictionary dictionary) {
+			this.statement = statement;
+			final Map<Integer, Integer> slots = new HashMap<>();
+			final int[] headAtoms = statement.head();
+			head = encode(headAtoms, 0, slots, dictionary);
+			final int[] bodyAtoms = statement.body();
+			int atoms = 0;
+			for (int offset = 0; offset < bodyAtoms.length; offset = CompactStatement.next(bodyAtoms, offset)) {
+				atoms++;
+			}
+			bodyPredicates = new int[atoms];
+			body = new int[atoms][];
+			for (int offset = 0, i = 0; offset < bodyAtoms.length; offset = CompactStatement.next(bodyAtoms,
+					offset), i++) {
+				bodyPredicates[i] = bodyAtoms[offset];
+				body[i] = encode(bodyAtoms, offset, slots, dictionary);
+			}
+			variables = slots.size();
+		}
+
+		private static int[] encode(final int[] atoms, final int offset, final Map<Integer, Integer> slots,
+				final SymbolDictionary dictionary) {
+			final int[] encoded = Arrays.copyOfRange(atoms, offset + 2, CompactStatement.next(atoms, offset));
+			for (int i = 0; i < encoded.length; i++) {
+				if (dictionary.isVariable(encoded[i])) {
+					encoded[i] = -slots.computeIfAbsent(encoded[i], t -> slots.size()) - 1;
+				}
+			}
+			return encoded;
+		}
+
+	}
+
+	/**
+	 * The state of one support computation.
+	 */
+	private static final class Search {
+
+		private final Set<CompactStatement> program;
+		private final Materialisation materialisation;
+		private final Set<CompactStatement> supported = new HashSet<>();
+		private final Set<CompactStatement> tabled = new HashSet<>();
+		private final Deque<CompactStatement> agenda = new ArrayDeque<>();
+
+		private Search(final Set<CompactStatement> program, final Materialisation materialisation) {
+			this.program = program;
+			this.materialisation = materialisation;
+		}
+
+		private void emit(final IndexedStatement statement, final int[] bindings) {
+			supported.add(statement.statement);
+			for (int i = 0; i < statement.body.length; i++) {
+				final int[] terms = statement.body[i];
+				final int[] atom = new int[terms.length];
+				for (int p = 0; p < terms.length; p++) {
+					atom[p] = terms[p] >= 0 ? terms[p] : bindings[-terms[p] - 1];
+				}
+				table(CompactStatement.fact(CompactStatement.atom(statement.bodyPredicates[i], atom)));
+			}
+		}
+
+		private void match(final IndexedStatement statement, final int step, final int[] bindings) {
+			if (step == statement.body.length) {
+				emit(statement, bindings);
+				return;
+			}
+			final int[] terms = statement.body[step];
+			final int[] pattern = new int[terms.length];
+			for (int p = 0; p < terms.length; p++) {
+				pattern[p] = terms[p] >= 0 ? terms[p] : bindings[-terms[p] - 1];
+			}
+			final int[] bound = new int[terms.length];
+			materialisation.forEachMatch(statement.bodyPredicates[step], pattern, tuple -> {
+				int count = 0;
+				boolean consistent = true;
+				for (int p = 0; p < terms.length && consistent; p++) {
+					if (pattern[p] >= 0) {
+						continue;
+					}
+					final int slot = -terms[p] - 1;
+					if (bindings[slot] < 0) {
+						bindings[slot] = tuple[p];
+						bound[count++] = slot;
+					} else {
+						consistent = bindings[slot] == tuple[p];
+					}
+				}
+				if (consistent) {
+					match(statement, step + 1, bindings);
+				}
+				for (int i = 0; i < count; i++) {
+					bindings[bound[i]] = -1;
+				}
+			});
+		}
+
+		private void table(final CompactStatement suppAtom) {
+			if (tabled.add(suppAtom)) {
+				agenda.push(suppAtom);
+			}
+		}
+
+	}
+
+	private final ListMultimap<Integer, IndexedStatement> statementsByHead = ArrayListMultimap.create();
+
+	/**
+	 * @param dictionary The dictionary of the program
+	 * @param complete   The complete program, whose statements can be supported
+	 */
+	TopDownSupport(final SymbolDictionary dictionary, final Collection<CompactStatement> complete) {
+		complete.forEach(
+				next -> statementsByHead.put(next.headPredicate(), new IndexedStatement(next, dictionary)));
+	}
+
+	private void expand(final Search search, final CompactStatement suppAtom) {
+		final int[] terms = suppAtom.headTerms();
+		final List<IndexedStatement> candidates = statementsByHead.get(suppAtom.headPredicate());
+		for (final IndexedStatement candidate : candidates) {
+			if (!search.program.contains(candidate.statement)) {
+				continue;
+			}
+			final int[] bindings = new int[candidate.variables];
+			Arrays.fill(bindings, -1);
+			if (unify(candidate.head, terms, bindings)) {
+				search.match(candidate, 0, bindings);
+			}
+		}
+	}
+
+	/**
+	 * @param program         The program restricted to the axioms of interest,
+	 *                        including its enrichment and initial facts
+	 * @param materialisation The materialisation of the program
+	 * @param relevantFacts   The entailed relevant facts
+	 * @return The statements of the complete program within the given program
+	 *         that support some relevant fact
+	 */
+	Set<CompactStatement> support(final Set<CompactStatement> program, final Materialisation materialisation,
+			final Collection<CompactStatement> relevantFacts) {
+		final Search search = new Search(program, materialisation);
+		relevantFacts.forEach(search::table);
+		while (!search.agenda.isEmpty()) {
+			expand(search, search.agenda.pop());
+		}
+		return search.supported;
+	}
+
+	private static boolean unify(final int[] head, final int[] terms, final int[] bindings) {
+		for (int p = 0; p < head.length; p++) {
+			if (head[p] >= 0) {
+				if (head[p] != terms[p]) {
+					return false;
+				}
+			} else if (bindings[-head[p] - 1] < 0) {
+				bindings[-head[p] - 1] = terms[p];
+			} else if (bindings[-head[p] - 1] != terms[p]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
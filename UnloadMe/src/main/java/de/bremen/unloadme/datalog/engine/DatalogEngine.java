@@ -0,0 +1,68 @@
+package de.bremen.unloadme.datalog.engine;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import de.bremen.unloadme.datalog.CompactStatement;
+import de.bremen.unloadme.datalog.SymbolDictionary;
+
+/**
+ * A reasoner computing the materialisation of datalog programs, as produced by
+ * the {@link de.bremen.unloadme.datalog.ProgramManager}.
+ */
+public interface DatalogEngine {
+
+	/**
+	 * Computes the materialisation of the given program.
+	 *
+	 * @param dictionary The dictionary of the IDs used within the program
+	 * @param program    The program to materialise
+	 * @return The materialisation, which has to be closed after use
+	 * @throws IOException If the engine fails to load the program
+	 */
+	Materialisation materialise(SymbolDictionary dictionary, Collection<CompactStatement> program)
+			throws IOException;
+
+	/**
+	 * Prepares the given program to be materialised together with different sets
+	 * of further statements. By default, every extension is materialised from
+	 * scratch.
+	 *
+	 * @param dictionary The dictionary of the IDs used within the program
+	 * @param program    The program to share
+	 * @return The prepared program, which has to be closed after use
+	 * @throws IOException If the engine fails to load the program
+	 */
+	default SharedMaterialisation share(final SymbolDictionary dictionary, final Collection<CompactStatement> program)
+			throws IOException {
+		final List<CompactStatement> shared = new ArrayList<>(program);
+		return new SharedMaterialisation() {
+
+			@Override
+			public void close() {
+				// nothing to release
+			}
+
+			@Override
+			public Materialisation extend(final Collection<CompactStatement> statements) throws IOException {
+				final List<CompactStatement> extended = new ArrayList<>(shared.size() + statements.size());
+				extended.addAll(shared);
+				extended.addAll(statements);
+				return materialise(dictionary, extended);
+			}
+
+		};
+	}
+
+	/**
+	 * @return Whether {@link #share(SymbolDictionary, Collection)} materialises
+	 *         the shared program only once, rather than every extension from
+	 *         scratch
+	 */
+	default boolean sharesMaterialisations() {
+		return false;
+	}
+
+}
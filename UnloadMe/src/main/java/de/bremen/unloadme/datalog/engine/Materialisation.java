@@ -0,0 +1,64 @@
+package de.bremen.unloadme.datalog.engine;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+import de.bremen.unloadme.datalog.CompactStatement;
+
+/**
+ * The materialisation of a datalog program computed by a
+ * {@link DatalogEngine}. Predicates and terms are given by their IDs in the
+ * {@link de.bremen.unloadme.datalog.SymbolDictionary} of the program.
+ */
+public interface Materialisation extends AutoCloseable {
+
+	/**
+	 * Adds the given facts to the program and continues the materialisation.
+	 * Engines evaluating semi-naively only derive the consequences of the new
+	 * facts.
+	 *
+	 * @param facts The facts to add
+	 * @throws IOException              If the engine fails to load the facts
+	 * @throws IllegalArgumentException If a rule is given
+	 */
+	void add(Collection<CompactStatement> facts) throws IOException;
+
+	@Override
+	void close();
+
+	/**
+	 * @param fact The fact to check
+	 * @return Whether the given fact is entailed
+	 */
+	default boolean contains(final CompactStatement fact) {
+		return contains(fact.headPredicate(), fact.headTerms());
+	}
+
+	/**
+	 * @param predicate The predicate
+	 * @param terms     The terms
+	 * @return Whether predicate(terms) is entailed
+	 */
+	boolean contains(int predicate, int[] terms);
+
+	/**
+	 * Passes the terms of all entailed facts of the given predicate to the given
+	 * consumer.
+	 *
+	 * @param predicate The predicate
+	 * @param consumer  The consumer, which must not keep the passed arrays
+	 */
+	void forEachAnswer(int predicate, Consumer<int[]> consumer);
+
+	/**
+	 * Passes the terms of all entailed facts of the given predicate that match the
+	 * given pattern to the given consumer.
+	 *
+	 * @param predicate The predicate
+	 * @param pattern   The terms to match, negative entries match any term
+	 * @param consumer  The consumer, which must not keep the passed arrays
+	 */
+	void forEachMatch(int predicate, int[] pattern, Consumer<int[]> consumer);
+
+}
@@ -0,0 +1,299 @@
+package de.bremen.unloadme.datalog.engine;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.Consumer;
+
+import de.bremen.unloadme.IntIntHashMap;
+
+/**
+ * The tuples of one predicate, stored as int-encoded terms in one flat array.
+ * Tuples are only appended, so that a tuple's ID reflects the round in which it
+ * has been derived: IDs in [0, oldEnd) are old, IDs in [oldEnd, deltaEnd) have
+ * been derived in the last round and IDs from deltaEnd on are new.
+ *
+ * For every argument position there is a hash index from a term to the most
+ * recent tuple having that term at the position, and all tuples sharing the
+ * term at the position are chained from newer to older ones.
+ *
+ * Tuples can be refreshed, that is appended again so that they are part of the
+ * next delta, and killed. Dead tuples are kept in place but skipped by all
+ * lookups.
+ */
+final class Relation {
+
+	private final int arity;
+
+	private int[] tuples;
+	private int size;
+
+	private int[] table;
+	private int tableMask;
+
+	private final IntIntHashMap[] heads;
+	private final int[][] chains;
+
+	private int oldEnd;
+	private int deltaEnd;
+
+	private final BitSet dead;
+
+	/**
+	 * Whether the tuples are closed under equality, so that only tuples of
+	 * representatives of the equivalence classes of terms are stored
+	 */
+	boolean closed = false;
+
+	/**
+	 * The positions whose terms are equal to themselves by a reflexivity rule of
+	 * equality, or null
+	 */
+	BitSet reflexive;
+
+	Relation(final int arity) {
+		this.arity = arity;
+		tuples = new int[Math.max(arity, 1) * 16];
+		table = new int[32];
+		Arrays.fill(table, -1);
+		tableMask = table.length - 1;
+		heads = new IntIntHashMap[arity];
+		chains = new int[arity][];
+		for (int i = 0; i < arity; i++) {
+			heads[i] = new IntIntHashMap();
+			chains[i] = new int[16];
+		}
+		dead = new BitSet();
+	}
+
+	/**
+	 * Constructs a copy of the given relation, including its rounds.
+	 */
+	Relation(final Relation original) {
+		arity = original.arity;
+		tuples = Arrays.copyOf(original.tuples, original.tuples.length);
+		size = original.size;
+		table = original.table.clone();
+		tableMask = original.tableMask;
+		heads = new IntIntHashMap[arity];
+		chains = new int[arity][];
+		for (int i = 0; i < arity; i++) {
+			heads[i] = new IntIntHashMap(original.heads[i]);
+			chains[i] = original.chains[i].clone();
+		}
+		oldEnd = original.oldEnd;
+		deltaEnd = original.deltaEnd;
+		dead = (BitSet) original.dead.clone();
+		closed = original.closed;
+		reflexive = original.reflexive == null ? null : (BitSet) original.reflexive.clone();
+	}
+
+	/**
+	 * Makes the tuples derived in the last round old and the new tuples the delta.
+	 *
+	 * @return Whether the delta is non-empty
+	 */
+	boolean advance() {
+		oldEnd = deltaEnd;
+		deltaEnd = size;
+		return oldEnd != deltaEnd;
+	}
+
+	/**
+	 * Appends the tuple stored at tuple[offset, offset + arity) as new tuple,
+	 * referenced by the given free slot of the hash table.
+	 */
+	private void append(final int[] tuple, final int offset, final int slot) {
+		final int id = size++;
+		if (size * arity > tuples.length) {
+			tuples = Arrays.copyOf(tuples, tuples.length * 2);
+		}
+		System.arraycopy(tuple, offset, tuples, id * arity, arity);
+		table[slot] = id;
+		if (size * 2 > table.length) {
+			rehash();
+		}
+		for (int i = 0; i < arity; i++) {
+			if (id >= chains[i].length) {
+				chains[i] = Arrays.copyOf(chains[i], chains[i].length * 2);
+			}
+			chains[i][id] = heads[i].put(tuple[offset + i], id);
+		}
+	}
+
+	int arity() {
+		return arity;
+	}
+
+	boolean contains(final int[] tuple) {
+		int slot = hash(tuple, 0) & tableMask;
+		while (table[slot] != -1) {
+			if (equals(table[slot], tuple, 0) && !dead.get(table[slot])) {
+				return true;
+			}
+			slot = slot + 1 & tableMask;
+		}
+		return false;
+	}
+
+	int deltaEnd() {
+		return deltaEnd;
+	}
+
+	private boolean equals(final int id, final int[] tuple, final int offset) {
+		final int start = id * arity;
+		for (int i = 0; i < arity; i++) {
+			if (tuples[start + i] != tuple[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Passes all tuples matching the given pattern to the given consumer. The
+	 * tuples are looked up by the index of the first bound position, if any.
+	 *
+	 * @param pattern  The terms of the tuples, negative entries are unbound
+	 * @param consumer The consumer, which must not keep the passed arrays
+	 */
+	void forEachMatch(final int[] pattern, final Consumer<int[]> consumer) {
+		int position = 0;
+		while (position < arity && pattern[position] < 0) {
+			position++;
+		}
+		if (position == arity) {
+			forEachSince(0, consumer);
+			return;
+		}
+		final int[] tuple = new int[arity];
+		for (int id = head(position, pattern[position]); id != -1; id = next(position, id)) {
+			if (!dead.get(id) && matches(id, pattern)) {
+				System.arraycopy(tuples, id * arity, tuple, 0, arity);
+				consumer.accept(tuple);
+			}
+		}
+	}
+
+	/**
+	 * Passes all tuples with an ID of at least the given one to the given
+	 * consumer.
+	 *
+	 * @param consumer The consumer, which must not keep the passed arrays
+	 */
+	void forEachSince(final int from, final Consumer<int[]> consumer) {
+		final int[] tuple = new int[arity];
+		for (int id = dead.nextClearBit(from); id < size; id = dead.nextClearBit(id + 1)) {
+			System.arraycopy(tuples, id * arity, tuple, 0, arity);
+			consumer.accept(tuple);
+		}
+	}
+
+	/**
+	 * @return The term at the given position of the tuple with the given ID
+	 */
+	int get(final int id, final int position) {
+		return tuples[id * arity + position];
+	}
+
+	private static int hash(final int[] tuple, final int offset, final int arity) {
+		int hash = 1;
+		for (int i = 0; i < arity; i++) {
+			hash = 31 * hash + tuple[offset + i];
+		}
+		return IntIntHashMap.mix(hash);
+	}
+
+	private int hash(final int[] tuple, final int offset) {
+		return hash(tuple, offset, arity);
+	}
+
+	/**
+	 * @return The ID of the most recent tuple with the given term at the given
+	 *         position, or -1
+	 */
+	int head(final int position, final int term) {
+		return heads[position].get(term);
+	}
+
+	/**
+	 * Adds the tuple stored at tuple[offset, offset + arity) as new tuple, unless
+	 * it is already contained.
+	 *
+	 * @return Whether the tuple has been added
+	 */
+	boolean insert(final int[] tuple, final int offset) {
+		int slot = hash(tuple, offset) & tableMask;
+		while (table[slot] != -1) {
+			if (equals(table[slot], tuple, offset) && !dead.get(table[slot])) {
+				return false;
+			}
+			slot = slot + 1 & tableMask;
+		}
+		append(tuple, offset, slot);
+		return true;
+	}
+
+	boolean isLive(final int id) {
+		return !dead.get(id);
+	}
+
+	/**
+	 * Removes the tuple with the given ID from all lookups.
+	 */
+	void kill(final int id) {
+		dead.set(id);
+	}
+
+	private boolean matches(final int id, final int[] pattern) {
+		final int start = id * arity;
+		for (int i = 0; i < arity; i++) {
+			if (pattern[i] >= 0 && tuples[start + i] != pattern[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return The ID of the next older tuple sharing the term at the given
+	 *         position with the tuple with the given ID, or -1
+	 */
+	int next(final int position, final int id) {
+		return chains[position][id];
+	}
+
+	int oldEnd() {
+		return oldEnd;
+	}
+
+	/**
+	 * Replaces the live tuple with the given ID by a new copy, so that it is part
+	 * of the next delta again.
+	 */
+	void refresh(final int id) {
+		int slot = hash(tuples, id * arity) & tableMask;
+		while (table[slot] != id) {
+			slot = slot + 1 & tableMask;
+		}
+		dead.set(id);
+		append(Arrays.copyOfRange(tuples, id * arity, (id + 1) * arity), 0, slot);
+	}
+
+	private void rehash() {
+		table = new int[table.length * 2];
+		Arrays.fill(table, -1);
+		tableMask = table.length - 1;
+		for (int id = dead.nextClearBit(0); id < size; id = dead.nextClearBit(id + 1)) {
+			int slot = hash(tuples, id * arity) & tableMask;
+			while (table[slot] != -1) {
+				slot = slot + 1 & tableMask;
+			}
+			table[slot] = id;
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+}
@@ -0,0 +1,127 @@
+package de.bremen.unloadme.datalog.engine;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+import de.bremen.unloadme.datalog.CompactStatement;
+import de.bremen.unloadme.datalog.SymbolDictionary;
+
+/**
+ * {@link DatalogEngine} evaluating datalog programs semi-naively within the JVM.
+ * For the small, module-sized programs produced during module extraction, this
+ * avoids the native setup and data marshalling of {@link VLogEngine}. Shared
+ * programs are materialised once, and every extension continues the evaluation
+ * on a copy of their materialisation.
+ *
+ * Only positive datalog is supported, that is, rules must not contain
+ * existentially quantified variables.
+ *
+ * With native equality, the equality predicate of the
+ * {@link de.bremen.unloadme.datalog.SymbolDictionary} is evaluated by
+ * union-find over equivalence classes of terms instead of by the reflexivity,
+ * symmetry, transitivity and congruence rules added by the
+ * {@link de.bremen.unloadme.datalog.ProgramManager}. The materialisation is the
+ * same, but does not have to derive every fact for every equal term.
+ *
+ * With parallel strata, programs are split into the strongly connected
+ * components of their predicate dependency graph and materialised stratum by
+ * stratum, evaluating the independent components of a stratum concurrently.
+ * Shared programs are materialised stratum by stratum as well, and so are their
+ * extensions on copies of the materialisation.
+ */
+public class SemiNaiveEngine implements DatalogEngine {
+
+	private volatile boolean nativeEquality = false;
+
+	private volatile boolean parallelStrata = false;
+
+	/**
+	 * @return The ID of the equality predicate to evaluate natively, or -1
+	 */
+	private int equality(final SymbolDictionary dictionary) {
+		return nativeEquality ? dictionary.equality() : -1;
+	}
+
+	public boolean isNativeEquality() {
+		return nativeEquality;
+	}
+
+	public boolean isParallelStrata() {
+		return parallelStrata;
+	}
+
+	@Override
+	public Materialisation materialise(final SymbolDictionary dictionary,
+			final Collection<CompactStatement> program) {
+		if (parallelStrata) {
+			return new StratifiedMaterialisation(dictionary, equality(dictionary), program);
+		}
+		final var materialisation = new SemiNaiveMaterialisation(dictionary, equality(dictionary));
+		program.forEach(materialisation::add);
+		materialisation.saturate();
+		return materialisation;
+	}
+
+	@Override
+	public SharedMaterialisation share(final SymbolDictionary dictionary,
+			final Collection<CompactStatement> program) {
+		final Function<Collection<CompactStatement>, Materialisation> extend;
+		if (parallelStrata) {
+			final var shared = new StratifiedMaterialisation(dictionary, equality(dictionary), program);
+			extend = statements -> {
+				final var materialisation = new StratifiedMaterialisation(shared);
+				statements.forEach(materialisation::add);
+				materialisation.saturate();
+				return materialisation;
+			};
+		} else {
+			final var shared = new SemiNaiveMaterialisation(dictionary, equality(dictionary));
+			program.forEach(shared::add);
+			shared.saturate();
+			extend = statements -> {
+				final var materialisation = new SemiNaiveMaterialisation(shared);
+				statements.forEach(materialisation::add);
+				materialisation.saturate();
+				return materialisation;
+			};
+		}
+		return new SharedMaterialisation() {
+
+			@Override
+			public void close() {
+				// nothing to release
+			}
+
+			@Override
+			public Materialisation extend(final Collection<CompactStatement> statements) {
+				return extend.apply(statements);
+			}
+
+		};
+	}
+
+	@Override
+	public boolean sharesMaterialisations() {
+		return true;
+	}
+
+	/**
+	 * Enables or disables the native evaluation of equality. Disabled by default.
+	 *
+	 * @param nativeEquality Whether to evaluate equality natively
+	 */
+	public void setNativeEquality(final boolean nativeEquality) {
+		this.nativeEquality = nativeEquality;
+	}
+
+	/**
+	 * Enables or disables the evaluation of independent strata on the common
+	 * {@link java.util.concurrent.ForkJoinPool}. Disabled by default.
+	 *
+	 * @param parallelStrata Whether to materialise programs stratum by stratum
+	 */
+	public void setParallelStrata(final boolean parallelStrata) {
+		this.parallelStrata = parallelStrata;
+	}
+
+}
@@ -0,0 +1,865 @@
+package de.bremen.unloadme.datalog.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.semanticweb.rulewerk.core.model.api.TermType;
+
+import de.bremen.unloadme.datalog.CompactStatement;
+import de.bremen.unloadme.datalog.SymbolDictionary;
+
+/**
+ * Materialisation computed by semi-naive evaluation within the JVM. Terms are
+ * encoded by their IDs in the {@link SymbolDictionary}, tuples are stored in
+ * {@link Relation}s indexed by the IDs of their predicates.
+ *
+ * If an equality predicate is given, equality is evaluated natively instead of
+ * by its axiomatisation in {@link de.bremen.unloadme.datalog.ProgramManager}:
+ * the equivalence classes of terms are kept in a union-find forest, and the
+ * relations of predicates with congruence rules for every position are closed
+ * under equality and only store tuples of representatives. The symmetry,
+ * transitivity, reflexivity and congruence rules are recognised and not
+ * evaluated. Queries are answered as if the axiomatisation had been
+ * materialised, that is for every term of the equivalence classes. Whenever two
+ * classes are merged, the tuples with terms of the merged class are rewritten
+ * to the new representative or refreshed, so that they are evaluated again.
+ *
+ * Not thread-safe.
+ */
+class SemiNaiveMaterialisation implements Materialisation {
+
+	/**
+	 * A rule with int-encoded atoms. Constants are encoded by their non-negative
+	 * ID, the variable in slot s is encoded by -(s + 1).
+	 */
+	private static final class CompiledRule {
+
+		private final Relation[] head;
+		private final int[][] headTerms;
+		private final Relation[] body;
+		private final int[][] bodyTerms;
+		private final int[] bindings;
+		private final int[][] scratch;
+		private final Plan[] plans;
+
+		/**
+		 * Whether the variable in a slot occurs in an atom that is not closed under
+		 * equality, so that it has to be bound to every term of an equivalence class
+		 * in turn instead of its representative
+		 */
+		private boolean[] concrete;
+
+		private CompiledRule(final Relation[] head, final int[][] headTerms, final Relation[] body,
+				final int[][] bodyTerms, final int variables) {
+			this.head = head;
+			this.headTerms = headTerms;
+			this.body = body;
+			this.bodyTerms = bodyTerms;
+			bindings = new int[variables];
+			scratch = new int[head.length][];
+			for (int i = 0; i < head.length; i++) {
+				scratch[i] = new int[headTerms[i].length];
+			}
+			plans = new Plan[body.length];
+			for (int i = 0; i < body.length; i++) {
+				plans[i] = new Plan(this, i);
+			}
+			updateConcrete();
+		}
+
+		/**
+		 * Constructs a copy of the given rule over the copies of its relations.
+		 */
+		private CompiledRule(final CompiledRule original, final Map<Relation, Relation> copies) {
+			head = Arrays.stream(original.head).map(copies::get).toArray(Relation[]::new);
+			headTerms = original.headTerms;
+			body = Arrays.stream(original.body).map(copies::get).toArray(Relation[]::new);
+			bodyTerms = original.bodyTerms;
+			bindings = new int[original.bindings.length];
+			scratch = new int[head.length][];
+			for (int i = 0; i < head.length; i++) {
+				scratch[i] = new int[headTerms[i].length];
+			}
+			plans = original.plans;
+			concrete = original.concrete;
+		}
+
+		private static void markConcrete(final Relation[] atoms, final int[][] terms, final boolean[] concrete) {
+			for (int i = 0; i < atoms.length; i++) {
+				if (!atoms[i].closed) {
+					for (final int term : terms[i]) {
+						if (term < 0) {
+							concrete[-term - 1] = true;
+						}
+					}
+				}
+			}
+		}
+
+		private void updateConcrete() {
+			final boolean[] updated = new boolean[bindings.length];
+			markConcrete(head, headTerms, updated);
+			markConcrete(body, bodyTerms, updated);
+			concrete = updated;
+		}
+
+	}
+
+	/**
+	 * The join order for one semi-naive variant of a rule: the atom restricted to
+	 * the delta is evaluated first, the remaining atoms in their original order.
+	 */
+	private static final class Plan {
+
+		private static final byte CHECK = 0;
+		private static final byte BIND = 1;
+
+		private final int delta;
+		private final int[] order;
+		private final int[] lookup;
+		private final byte[][] kinds;
+
+		private Plan(final CompiledRule rule, final int delta) {
+			this.delta = delta;
+			final int length = rule.body.length;
+			order = new int[length];
+			order[0] = delta;
+			for (int i = 0, j = 1; i < length; i++) {
+				if (i != delta) {
+					order[j++] = i;
+				}
+			}
+			lookup = new int[length];
+			kinds = new byte[length][];
+			final Set<Integer> bound = new HashSet<>();
+			for (int step = 0; step < length; step++) {
+				final int[] terms = rule.bodyTerms[order[step]];
+				lookup[step] = -1;
+				kinds[step] = new byte[terms.length];
+				final Set<Integer> boundInAtom = new HashSet<>();
+				for (int p = 0; p < terms.length; p++) {
+					final int term = terms[p];
+					final boolean boundBefore = term >= 0 || bound.contains(term);
+					if (boundBefore && lookup[step] == -1) {
+						lookup[step] = p;
+					}
+					kinds[step][p] = boundBefore || !boundInAtom.add(term) ? CHECK : BIND;
+				}
+				bound.addAll(boundInAtom);
+			}
+		}
+
+	}
+
+	private final SymbolDictionary dictionary;
+	private Relation[] relations = new Relation[0];
+	private final List<Relation> relationList = new ArrayList<>();
+	private final List<CompiledRule> rules = new ArrayList<>();
+
+	/**
+	 * The ID of the equality predicate, or -1 if equality is not evaluated
+	 * natively
+	 */
+	private final int equality;
+	private final Relation equalities;
+
+	/**
+	 * The congruence rules of predicates that are not closed under equality yet,
+	 * by predicate and position
+	 */
+	private final Map<Integer, Map<Integer, CompiledRule>> congruences = new HashMap<>();
+
+	/**
+	 * The congruence rules of closed relations, which are removed before the next
+	 * evaluation
+	 */
+	private final Set<CompiledRule> dropped = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/**
+	 * Whether relations have been closed since the concrete variables of the rules
+	 * have been determined
+	 */
+	private boolean closedSinceUpdate = false;
+
+	/**
+	 * The union-find forest of the equivalence classes of terms. Terms beyond the
+	 * arrays are singletons.
+	 */
+	private int[] parents = new int[0];
+	private int[] sizes = new int[0];
+
+	/**
+	 * The next term of the same equivalence class, forming one cycle per class
+	 */
+	private int[] successors = new int[0];
+
+	private final int[] reflexiveScratch = new int[2];
+
+	/**
+	 * @param dictionary The dictionary of the IDs of the program
+	 * @param equality   The ID of the equality predicate to evaluate natively, or
+	 *                   -1 to evaluate its axiomatisation like any other rules
+	 */
+	SemiNaiveMaterialisation(final SymbolDictionary dictionary, final int equality) {
+		this.dictionary = dictionary;
+		this.equality = equality;
+		if (equality >= 0) {
+			equalities = relation(equality, 2);
+			equalities.closed = true;
+		} else {
+			equalities = null;
+		}
+	}
+
+	/**
+	 * Constructs a copy of the given materialisation, which can be extended
+	 * independently. The given materialisation is only read, so that copies can be
+	 * constructed concurrently.
+	 */
+	SemiNaiveMaterialisation(final SemiNaiveMaterialisation original) {
+		dictionary = original.dictionary;
+		final Map<Relation, Relation> copies = new IdentityHashMap<>();
+		original.relationList.forEach(next -> {
+			final Relation copy = new Relation(next);
+			copies.put(next, copy);
+			relationList.add(copy);
+		});
+		relations = Arrays.stream(original.relations).map(next -> next == null ? null : copies.get(next))
+				.toArray(Relation[]::new);
+		final Map<CompiledRule, CompiledRule> ruleCopies = new IdentityHashMap<>();
+		original.rules.forEach(next -> {
+			final CompiledRule copy = new CompiledRule(next, copies);
+			ruleCopies.put(next, copy);
+			rules.add(copy);
+		});
+		equality = original.equality;
+		equalities = original.equalities == null ? null : copies.get(original.equalities);
+		original.congruences.forEach((predicate, byPosition) -> {
+			final Map<Integer, CompiledRule> copy = new HashMap<>();
+			byPosition.forEach((position, rule) -> copy.put(position, ruleCopies.get(rule)));
+			congruences.put(predicate, copy);
+		});
+		original.dropped.forEach(next -> dropped.add(ruleCopies.get(next)));
+		closedSinceUpdate = original.closedSinceUpdate;
+		parents = original.parents.clone();
+		sizes = original.sizes.clone();
+		successors = original.successors.clone();
+	}
+
+	@Override
+	public void add(final Collection<CompactStatement> facts) {
+		for (final CompactStatement next : facts) {
+			if (!next.isFact()) {
+				throw new IllegalArgumentException("Not a fact: " + next);
+			}
+			add(next);
+		}
+		saturate();
+	}
+
+	/**
+	 * Adds the given fact or rule. New facts are only taken into account by the
+	 * next call of {@link #saturate()}.
+	 */
+	void add(final CompactStatement statement) {
+		if (equality >= 0 && !statement.isFact() && impliedByEquality(statement)) {
+			return;
+		}
+		final Map<Integer, Integer> variables = new HashMap<>();
+		final int[] bodyAtoms = statement.body();
+		final List<Relation> body = new ArrayList<>();
+		final List<int[]> bodyTerms = new ArrayList<>();
+		for (int offset = 0; offset < bodyAtoms.length; offset = CompactStatement.next(bodyAtoms, offset)) {
+			body.add(relation(bodyAtoms, offset));
+			bodyTerms.add(encode(bodyAtoms, offset, variables, true));
+		}
+		final int[] headAtoms = statement.head();
+		final List<Relation> head = new ArrayList<>();
+		final List<int[]> headTerms = new ArrayList<>();
+		for (int offset = 0; offset < headAtoms.length; offset = CompactStatement.next(headAtoms, offset)) {
+			head.add(relation(headAtoms, offset));
+			headTerms.add(encode(headAtoms, offset, variables, false));
+		}
+		if (body.isEmpty()) {
+			for (int i = 0; i < head.size(); i++) {
+				derive(head.get(i), headTerms.get(i));
+			}
+			return;
+		}
+		final CompiledRule rule = new CompiledRule(head.toArray(Relation[]::new), headTerms.toArray(int[][]::new),
+				body.toArray(Relation[]::new), bodyTerms.toArray(int[][]::new), variables.size());
+		rules.add(rule);
+		if (equality >= 0) {
+			final int position = congruencePosition(statement);
+			if (position >= 0) {
+				congruence(statement.headPredicate(), position, rule);
+			}
+		}
+	}
+
+	/**
+	 * Adds the fact predicate(terms), which is only taken into account by the next
+	 * call of {@link #saturate()}. The given array is not kept.
+	 */
+	void add(final int predicate, final int[] terms) {
+		derive(relation(predicate, terms.length), terms.clone());
+	}
+
+	/**
+	 * @return The atoms of the given conjunction
+	 */
+	private static List<int[]> atoms(final int[] atoms) {
+		final List<int[]> result = new ArrayList<>();
+		for (int offset = 0; offset < atoms.length; offset = CompactStatement.next(atoms, offset)) {
+			result.add(Arrays.copyOfRange(atoms, offset, CompactStatement.next(atoms, offset)));
+		}
+		return result;
+	}
+
+	/**
+	 * Closes the relation of the given predicate under equality, rewriting and
+	 * refreshing its tuples, and drops its congruence rules.
+	 */
+	private void close(final int predicate) {
+		final Relation relation = relations[predicate];
+		relation.closed = true;
+		final Map<Integer, CompiledRule> byPosition = congruences.remove(predicate);
+		if (byPosition != null) {
+			dropped.addAll(byPosition.values());
+		}
+		final int[] tuple = new int[relation.arity()];
+		for (int id = 0, size = relation.size(); id < size; id++) {
+			if (relation.isLive(id)) {
+				update(relation, id, tuple);
+			}
+		}
+		closedSinceUpdate = true;
+	}
+
+	/**
+	 * Registers the congruence rule for the given position of the given predicate.
+	 * The relation of the predicate is closed under equality as soon as there are
+	 * congruence rules for all its positions.
+	 */
+	private void congruence(final int predicate, final int position, final CompiledRule rule) {
+		final Map<Integer, CompiledRule> byPosition = congruences.computeIfAbsent(predicate, p -> new HashMap<>());
+		byPosition.put(position, rule);
+		if (byPosition.size() == relations[predicate].arity()) {
+			close(predicate);
+		}
+	}
+
+	/**
+	 * Recognises congruence rules p(x_1,...,y,...,x_n) ← p(x_1,...,x_i,...,x_n),
+	 * sameAs(y,x_i) for pairwise distinct variables.
+	 *
+	 * @return The position i of the congruence rule, or -1 if the given statement
+	 *         is no congruence rule
+	 */
+	private int congruencePosition(final CompactStatement statement) {
+		final List<int[]> head = atoms(statement.head());
+		final List<int[]> body = atoms(statement.body());
+		if (head.size() != 1 || body.size() != 2 || body.get(1)[0] != equality || head.get(0)[0] != body.get(0)[0]
+				|| !distinctVariables(body.get(0))) {
+			return -1;
+		}
+		final int[] atom = body.get(0);
+		final int[] sameAs = body.get(1);
+		final int y = sameAs[2];
+		if (!dictionary.isVariable(y) || Arrays.stream(atom, 2, atom.length).anyMatch(term -> term == y)) {
+			return -1;
+		}
+		for (int i = 2; i < atom.length; i++) {
+			if (atom[i] == sameAs[3]) {
+				final int[] expected = atom.clone();
+				expected[i] = y;
+				return Arrays.equals(expected, head.get(0)) ? i - 2 : -1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Inserts the given tuple into the given relation, taking equality into
+	 * account.
+	 */
+	private void derive(final Relation relation, final int[] tuple) {
+		if (relation == equalities) {
+			equalToItself(tuple[0]);
+			equalToItself(tuple[1]);
+			merge(tuple[0], tuple[1]);
+			return;
+		}
+		if (relation.closed) {
+			for (int p = 0; p < tuple.length; p++) {
+				tuple[p] = find(tuple[p]);
+			}
+		}
+		if (relation.insert(tuple, 0) && relation.reflexive != null) {
+			for (int p = relation.reflexive.nextSetBit(0); p >= 0; p = relation.reflexive.nextSetBit(p + 1)) {
+				equalToItself(tuple[p]);
+			}
+		}
+	}
+
+	/**
+	 * @return Whether the given atom has pairwise distinct variables as terms
+	 */
+	private boolean distinctVariables(final int[] atom) {
+		for (int i = 2; i < atom.length; i++) {
+			if (!dictionary.isVariable(atom[i])) {
+				return false;
+			}
+			for (int j = 2; j < i; j++) {
+				if (atom[i] == atom[j]) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void close() {
+		// nothing to release
+	}
+
+	@Override
+	public boolean contains(final int predicate, final int[] terms) {
+		if (predicate >= relations.length || relations[predicate] == null) {
+			return false;
+		}
+		final Relation relation = relations[predicate];
+		if (!relation.closed) {
+			return relation.contains(terms);
+		}
+		final int[] representatives = new int[terms.length];
+		for (int p = 0; p < terms.length; p++) {
+			representatives[p] = find(terms[p]);
+		}
+		return relation.contains(representatives);
+	}
+
+	private void emit(final CompiledRule rule) {
+		for (int i = 0; i < rule.head.length; i++) {
+			final int[] terms = rule.headTerms[i];
+			final int[] tuple = rule.scratch[i];
+			for (int p = 0; p < terms.length; p++) {
+				tuple[p] = terms[p] >= 0 ? terms[p] : rule.bindings[-terms[p] - 1];
+			}
+			derive(rule.head[i], tuple);
+		}
+	}
+
+	/**
+	 * Makes the given term equal to itself, which is implied by the reflexivity
+	 * rules of equality.
+	 */
+	private void equalToItself(final int term) {
+		reflexiveScratch[0] = find(term);
+		reflexiveScratch[1] = reflexiveScratch[0];
+		equalities.insert(reflexiveScratch, 0);
+	}
+
+	private int[] encode(final int[] atoms, final int offset, final Map<Integer, Integer> variables,
+			final boolean binding) {
+		final int[] encoded = Arrays.copyOfRange(atoms, offset + 2, CompactStatement.next(atoms, offset));
+		for (int i = 0; i < encoded.length; i++) {
+			final int term = encoded[i];
+			if (dictionary.term(term).getType() == TermType.EXISTENTIAL_VARIABLE) {
+				throw new IllegalArgumentException("Existential variables are not supported: " + dictionary.term(term));
+			}
+			if (dictionary.isVariable(term)) {
+				if (!binding && !variables.containsKey(term)) {
+					throw new IllegalArgumentException("Unsafe variable: " + dictionary.term(term));
+				}
+				encoded[i] = -variables.computeIfAbsent(term, t -> variables.size()) - 1;
+			}
+		}
+		return encoded;
+	}
+
+	private void evaluate(final CompiledRule rule, final Plan plan, final int step) {
+		if (step == plan.order.length) {
+			emit(rule);
+			return;
+		}
+		final int atom = plan.order[step];
+		final Relation relation = rule.body[atom];
+		final int low = atom == plan.delta ? relation.oldEnd() : 0;
+		final int high = atom < plan.delta ? relation.oldEnd() : relation.deltaEnd();
+		if (low >= high) {
+			return;
+		}
+		final int position = plan.lookup[step];
+		if (position == -1) {
+			for (int id = low; id < high; id++) {
+				match(rule, plan, step, relation, id);
+			}
+			return;
+		}
+		final int term = rule.bodyTerms[atom][position];
+		final int bound = term >= 0 ? term : rule.bindings[-term - 1];
+		final int value = relation.closed ? find(bound) : bound;
+		for (int id = relation.head(position, value); id >= low; id = relation.next(position, id)) {
+			if (id < high) {
+				match(rule, plan, step, relation, id);
+			}
+		}
+	}
+
+	/**
+	 * Passes every combination of terms equal to the given tuple to the given
+	 * consumer, keeping the bound terms of the given pattern.
+	 */
+	private void expand(final int[] pattern, final int[] tuple, final int[] answer, final int position,
+			final Consumer<int[]> consumer) {
+		if (position == answer.length) {
+			consumer.accept(answer);
+			return;
+		}
+		if (pattern[position] >= 0) {
+			answer[position] = pattern[position];
+			expand(pattern, tuple, answer, position + 1, consumer);
+			return;
+		}
+		final int representative = tuple[position];
+		int member = representative;
+		do {
+			answer[position] = member;
+			expand(pattern, tuple, answer, position + 1, consumer);
+			member = successor(member);
+		} while (member != representative);
+	}
+
+	/**
+	 * Binds the concrete variables bound by the current atom from the given
+	 * position on to every term of their equivalence classes in turn, and continues
+	 * the evaluation with the next atom.
+	 */
+	private void expand(final CompiledRule rule, final Plan plan, final int step, final int position) {
+		final int[] terms = rule.bodyTerms[plan.order[step]];
+		final byte[] kinds = plan.kinds[step];
+		for (int p = position; p < terms.length; p++) {
+			if (kinds[p] == Plan.BIND && rule.concrete[-terms[p] - 1]) {
+				final int slot = -terms[p] - 1;
+				final int representative = rule.bindings[slot];
+				int member = representative;
+				do {
+					rule.bindings[slot] = member;
+					expand(rule, plan, step, p + 1);
+					member = successor(member);
+				} while (member != representative);
+				return;
+			}
+		}
+		evaluate(rule, plan, step + 1);
+	}
+
+	/**
+	 * @return The representative of the equivalence class of the given term
+	 */
+	private int find(final int term) {
+		if (term >= parents.length) {
+			return term;
+		}
+		int current = term;
+		while (parents[current] != current) {
+			parents[current] = parents[parents[current]];
+			current = parents[current];
+		}
+		return current;
+	}
+
+	@Override
+	public void forEachAnswer(final int predicate, final Consumer<int[]> consumer) {
+		if (predicate < relations.length && relations[predicate] != null) {
+			final int[] any = new int[relations[predicate].arity()];
+			Arrays.fill(any, -1);
+			forEachMatch(predicate, any, consumer);
+		}
+	}
+
+	/**
+	 * Passes the answers of the given predicate to the given consumer that have
+	 * been derived since its relation had the given size. If the relation is
+	 * closed under equality, all answers are passed, as merging terms adds answers
+	 * without adding tuples.
+	 *
+	 * @param consumer The consumer, which must not keep the passed arrays
+	 * @return The size of the relation of the predicate to pass on the answers
+	 *         derived from now on
+	 */
+	int forEachAnswerSince(final int predicate, final int size, final Consumer<int[]> consumer) {
+		if (predicate >= relations.length || relations[predicate] == null) {
+			return size;
+		}
+		final Relation relation = relations[predicate];
+		if (relation.closed) {
+			forEachAnswer(predicate, consumer);
+		} else {
+			relation.forEachSince(size, consumer);
+		}
+		return relation.size();
+	}
+
+	@Override
+	public void forEachMatch(final int predicate, final int[] pattern, final Consumer<int[]> consumer) {
+		if (predicate < relations.length && relations[predicate] != null) {
+			final Relation relation = relations[predicate];
+			if (!relation.closed) {
+				relation.forEachMatch(pattern, consumer);
+				return;
+			}
+			final int[] representatives = new int[pattern.length];
+			for (int p = 0; p < pattern.length; p++) {
+				representatives[p] = pattern[p] >= 0 ? find(pattern[p]) : pattern[p];
+			}
+			final int[] answer = new int[pattern.length];
+			relation.forEachMatch(representatives, tuple -> expand(pattern, tuple, answer, 0, consumer));
+		}
+	}
+
+	/**
+	 * Grows the union-find forest to contain the given term.
+	 */
+	private void grow(final int term) {
+		final int length = parents.length;
+		if (term < length) {
+			return;
+		}
+		final int grown = Math.max(term + 1, length * 2);
+		parents = Arrays.copyOf(parents, grown);
+		sizes = Arrays.copyOf(sizes, grown);
+		successors = Arrays.copyOf(successors, grown);
+		for (int i = length; i < grown; i++) {
+			parents[i] = i;
+			sizes[i] = 1;
+			successors[i] = i;
+		}
+	}
+
+	/**
+	 * Recognises the rules axiomatising equality that are implied by evaluating
+	 * equality natively: symmetry, transitivity, the congruence rules of equality
+	 * and of relations that are already closed, and reflexivity rules
+	 * sameAs(x_i,x_i) ← p(x_1,...,x_n), which are applied to the relation of p
+	 * instead.
+	 *
+	 * @return Whether the given rule must not be compiled
+	 */
+	private boolean impliedByEquality(final CompactStatement statement) {
+		final int predicate = statement.headPredicate();
+		if (congruencePosition(statement) >= 0) {
+			return predicate == equality
+					|| predicate < relations.length && relations[predicate] != null && relations[predicate].closed;
+		}
+		final List<int[]> head = atoms(statement.head());
+		final List<int[]> body = atoms(statement.body());
+		if (head.size() != 1 || predicate != equality) {
+			return false;
+		}
+		final int x = head.get(0)[2];
+		final int y = head.get(0)[3];
+		if (body.size() == 1 && body.get(0)[0] == equality && x != y && distinctVariables(head.get(0))) {
+			// symmetry
+			return body.get(0)[2] == y && body.get(0)[3] == x;
+		}
+		if (body.size() == 2 && body.get(0)[0] == equality && body.get(1)[0] == equality
+				&& distinctVariables(head.get(0))) {
+			// transitivity
+			final int z = body.get(0)[3];
+			return body.get(0)[2] == x && body.get(1)[2] == z && body.get(1)[3] == y && z != x && z != y
+					&& dictionary.isVariable(z);
+		}
+		if (body.size() == 1 && x == y && dictionary.isVariable(x) && distinctVariables(body.get(0))) {
+			// reflexivity
+			final int[] atom = body.get(0);
+			for (int i = 2; i < atom.length; i++) {
+				if (atom[i] == x) {
+					if (atom[0] != equality) {
+						reflexive(relation(atom[0], atom[1]), i - 2);
+					}
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void match(final CompiledRule rule, final Plan plan, final int step, final Relation relation,
+			final int id) {
+		if (!relation.isLive(id)) {
+			return;
+		}
+		final int[] terms = rule.bodyTerms[plan.order[step]];
+		final byte[] kinds = plan.kinds[step];
+		if (relation.closed) {
+			// the tuple consists of representatives
+			for (int p = 0; p < terms.length; p++) {
+				final int value = relation.get(id, p);
+				final int term = terms[p];
+				if (kinds[p] == Plan.BIND) {
+					rule.bindings[-term - 1] = value;
+				} else if (value != find(term >= 0 ? term : rule.bindings[-term - 1])) {
+					return;
+				}
+			}
+			expand(rule, plan, step, 0);
+			return;
+		}
+		for (int p = 0; p < terms.length; p++) {
+			final int value = relation.get(id, p);
+			final int term = terms[p];
+			if (kinds[p] == Plan.BIND) {
+				rule.bindings[-term - 1] = value;
+			} else if (value != (term >= 0 ? term : rule.bindings[-term - 1])) {
+				return;
+			}
+		}
+		evaluate(rule, plan, step + 1);
+	}
+
+	/**
+	 * Merges the equivalence classes of the given terms.
+	 */
+	private void merge(final int first, final int second) {
+		final int firstRoot = find(first);
+		final int secondRoot = find(second);
+		if (firstRoot == secondRoot) {
+			return;
+		}
+		grow(Math.max(firstRoot, secondRoot));
+		final int root = sizes[firstRoot] >= sizes[secondRoot] ? firstRoot : secondRoot;
+		final int child = root == firstRoot ? secondRoot : firstRoot;
+		parents[child] = root;
+		sizes[root] += sizes[child];
+		final int successor = successors[root];
+		successors[root] = successors[child];
+		successors[child] = successor;
+
+		// tuples with terms of the merged class may match further rule instances
+		for (final Relation relation : relationList) {
+			final BitSet affected = new BitSet();
+			for (int p = 0; p < relation.arity(); p++) {
+				int member = root;
+				do {
+					for (int id = relation.head(p, member); id != -1; id = relation.next(p, id)) {
+						if (relation.isLive(id)) {
+							affected.set(id);
+						}
+					}
+					member = successors[member];
+				} while (member != root);
+			}
+			final int[] tuple = new int[relation.arity()];
+			for (int id = affected.nextSetBit(0); id >= 0; id = affected.nextSetBit(id + 1)) {
+				update(relation, id, tuple);
+			}
+		}
+	}
+
+	/**
+	 * Applies the given reflexivity rule to the relation, that is, makes the terms
+	 * at the given position equal to themselves.
+	 */
+	private void reflexive(final Relation relation, final int position) {
+		if (relation.reflexive == null) {
+			relation.reflexive = new BitSet();
+		}
+		relation.reflexive.set(position);
+		for (int id = 0, size = relation.size(); id < size; id++) {
+			if (relation.isLive(id)) {
+				equalToItself(relation.get(id, position));
+			}
+		}
+	}
+
+	private Relation relation(final int[] atoms, final int offset) {
+		return relation(atoms[offset], atoms[offset + 1]);
+	}
+
+	private Relation relation(final int predicate, final int arity) {
+		if (predicate >= relations.length) {
+			relations = Arrays.copyOf(relations, Math.max(predicate + 1, relations.length * 2));
+		}
+		if (relations[predicate] == null) {
+			relations[predicate] = new Relation(arity);
+			relationList.add(relations[predicate]);
+		}
+		return relations[predicate];
+	}
+
+	/**
+	 * @return The next term of the equivalence class of the given term
+	 */
+	private int successor(final int term) {
+		return term < successors.length ? successors[term] : term;
+	}
+
+	/**
+	 * Evaluates the rules semi-naively until no new tuple is derived. New facts may
+	 * be added afterwards and are taken into account by the next call.
+	 */
+	void saturate() {
+		if (!dropped.isEmpty()) {
+			rules.removeIf(dropped::contains);
+			dropped.clear();
+		}
+		if (closedSinceUpdate) {
+			rules.forEach(CompiledRule::updateConcrete);
+			closedSinceUpdate = false;
+		}
+		while (true) {
+			boolean changed = false;
+			for (final Relation relation : relationList) {
+				changed |= relation.advance();
+			}
+			if (!changed) {
+				return;
+			}
+			for (final CompiledRule rule : rules) {
+				for (final Plan plan : rule.plans) {
+					final Relation delta = rule.body[plan.delta];
+					if (delta.oldEnd() < delta.deltaEnd()) {
+						evaluate(rule, plan, 0);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Rewrites the live tuple with the given ID to the representatives of its
+	 * terms if its relation is closed under equality, or refreshes it otherwise,
+	 * so that it is evaluated again.
+	 *
+	 * @param tuple Scratch space for the tuple
+	 */
+	private void update(final Relation relation, final int id, final int[] tuple) {
+		if (relation.closed) {
+			boolean canonical = true;
+			for (int p = 0; p < tuple.length; p++) {
+				tuple[p] = relation.get(id, p);
+				canonical &= find(tuple[p]) == tuple[p];
+			}
+			if (!canonical) {
+				relation.kill(id);
+				derive(relation, tuple);
+				return;
+			}
+		}
+		relation.refresh(id);
+	}
+
+}
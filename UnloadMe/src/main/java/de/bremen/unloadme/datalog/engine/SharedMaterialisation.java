@@ -0,0 +1,31 @@
+package de.bremen.unloadme.datalog.engine;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import de.bremen.unloadme.datalog.CompactStatement;
+
+/**
+ * A datalog program prepared by a {@link DatalogEngine} to be materialised
+ * together with different sets of further statements, for example the seed
+ * facts of many module extractions. Engines supporting it share the
+ * materialisation of the program itself between all extensions.
+ *
+ * Thread-safe.
+ */
+public interface SharedMaterialisation extends AutoCloseable {
+
+	@Override
+	void close();
+
+	/**
+	 * Computes the materialisation of the program extended by the given
+	 * statements. The program is not changed.
+	 *
+	 * @param statements The statements to add
+	 * @return The materialisation, which has to be closed after use
+	 * @throws IOException If the engine fails to load the program
+	 */
+	Materialisation extend(Collection<CompactStatement> statements) throws IOException;
+
+}
@@ -0,0 +1,487 @@
+package de.bremen.unloadme.datalog.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+import de.bremen.unloadme.IntIntHashMap;
+import de.bremen.unloadme.datalog.CompactStatement;
+import de.bremen.unloadme.datalog.SymbolDictionary;
+
+/**
+ * Materialisation that evaluates a program stratum by stratum along the
+ * strongly connected components of its predicate dependency graph. A component
+ * only depends on components of lower strata, so the components of one stratum
+ * are independent of each other. They are distributed over at most as many
+ * groups as the common {@link ForkJoinPool} has threads, and the groups of a
+ * stratum are evaluated concurrently, each by its own
+ * {@link SemiNaiveMaterialisation}. Once a group is saturated, the tuples of
+ * its predicates derived since its last saturation are passed on to the groups
+ * of higher strata using them.
+ *
+ * Equality is evaluated within the group of the equality predicate like any
+ * other predicate. As the axiomatisation of equality makes most predicates
+ * depend on equality and vice versa, programs with equality mostly form one
+ * component.
+ *
+ * Rules added later are evaluated by the group deriving their head predicates
+ * if that keeps the strata, as for the reductions of the seed facts of a
+ * {@link SharedMaterialisation}. Otherwise, the groups are built anew from all
+ * statements before the next saturation.
+ *
+ * Not thread-safe, but copies can be constructed concurrently.
+ */
+final class StratifiedMaterialisation implements Materialisation {
+
+	/**
+	 * Components of the same stratum evaluated together.
+	 */
+	private static final class Group {
+
+		private final SemiNaiveMaterialisation materialisation;
+
+		/**
+		 * The groups of higher strata using a predicate derived by this group, by
+		 * predicate
+		 */
+		private final Map<Integer, Set<Group>> consumers = new HashMap<>();
+
+		/**
+		 * The size of the relation of a predicate derived by this group when its
+		 * tuples have been passed on to the consumers last, by predicate
+		 */
+		private final IntIntHashMap forwarded;
+
+		/**
+		 * Whether tuples have been added since the group has been saturated
+		 */
+		private boolean dirty = true;
+
+		private final int stratum;
+
+		private Group(final SymbolDictionary dictionary, final int equality, final int stratum) {
+			materialisation = new SemiNaiveMaterialisation(dictionary, equality);
+			forwarded = new IntIntHashMap();
+			this.stratum = stratum;
+		}
+
+		/**
+		 * Constructs a copy of the given group without its consumers.
+		 */
+		private Group(final Group original) {
+			materialisation = new SemiNaiveMaterialisation(original.materialisation);
+			forwarded = new IntIntHashMap(original.forwarded);
+			dirty = original.dirty;
+			stratum = original.stratum;
+		}
+
+	}
+
+	private final SymbolDictionary dictionary;
+	private final int equality;
+
+	/**
+	 * All statements added so far, from which the groups are built
+	 */
+	private final List<CompactStatement> statements;
+
+	/**
+	 * The groups by stratum, lowest first
+	 */
+	private final List<List<Group>> strata = new ArrayList<>();
+
+	/**
+	 * The group deriving a predicate, by predicate
+	 */
+	private final Map<Integer, Group> owners = new HashMap<>();
+
+	/**
+	 * Whether a rule added since the last saturation does not fit into the
+	 * strata, so that the groups have to be built anew
+	 */
+	private boolean stale = false;
+
+	/**
+	 * @param dictionary The dictionary of the IDs of the program
+	 * @param equality   The ID of the equality predicate to evaluate natively, or
+	 *                   -1 to evaluate its axiomatisation like any other rules
+	 * @param program    The program to materialise
+	 */
+	StratifiedMaterialisation(final SymbolDictionary dictionary, final int equality,
+			final Collection<CompactStatement> program) {
+		this.dictionary = dictionary;
+		this.equality = equality;
+		statements = new ArrayList<>(program);
+		build();
+		saturate();
+	}
+
+	/**
+	 * Constructs a copy of the given materialisation, which can be extended
+	 * independently. The given materialisation is only read, so that copies can be
+	 * constructed concurrently.
+	 */
+	StratifiedMaterialisation(final StratifiedMaterialisation original) {
+		dictionary = original.dictionary;
+		equality = original.equality;
+		statements = new ArrayList<>(original.statements);
+		final Map<Group, Group> copies = new IdentityHashMap<>();
+		for (final List<Group> stratum : original.strata) {
+			final List<Group> copy = new ArrayList<>(stratum.size());
+			stratum.forEach(next -> copy.add(copies.computeIfAbsent(next, Group::new)));
+			strata.add(copy);
+		}
+		copies.forEach((next, copy) -> next.consumers.forEach((predicate, consumers) -> {
+			final Set<Group> consumerCopies = new LinkedHashSet<>();
+			consumers.forEach(consumer -> consumerCopies.add(copies.get(consumer)));
+			copy.consumers.put(predicate, consumerCopies);
+		}));
+		original.owners.forEach((predicate, owner) -> owners.put(predicate, copies.get(owner)));
+		stale = original.stale;
+	}
+
+	@Override
+	public void add(final Collection<CompactStatement> facts) {
+		for (final CompactStatement next : facts) {
+			if (!next.isFact()) {
+				throw new IllegalArgumentException("Not a fact: " + next);
+			}
+			add(next);
+		}
+		saturate();
+	}
+
+	/**
+	 * Adds the given fact or rule, which is only taken into account by the next
+	 * call of {@link #saturate()}.
+	 */
+	void add(final CompactStatement statement) {
+		statements.add(statement);
+		if (stale) {
+			return;
+		}
+		if (statement.isFact()) {
+			final Group owner = owners.computeIfAbsent(statement.headPredicate(), predicate -> group(0));
+			owner.materialisation.add(statement);
+			owner.dirty = true;
+			return;
+		}
+		final int[] head = statement.head();
+		final int[] body = statement.body();
+		Group group = null;
+		for (int offset = 0; offset < head.length; offset = CompactStatement.next(head, offset)) {
+			final Group owner = owners.get(head[offset]);
+			if (owner != null) {
+				if (group != null && owner != group) {
+					// the head predicates of a rule have to be derived by one group
+					stale = true;
+					return;
+				}
+				group = owner;
+			}
+		}
+		if (group == null) {
+			int stratum = 0;
+			for (int offset = 0; offset < body.length; offset = CompactStatement.next(body, offset)) {
+				final Group owner = owners.get(body[offset]);
+				if (owner != null) {
+					stratum = Math.max(stratum, owner.stratum + 1);
+				}
+			}
+			group = group(stratum);
+		} else {
+			for (int offset = 0; offset < body.length; offset = CompactStatement.next(body, offset)) {
+				final Group owner = owners.get(body[offset]);
+				if (owner != null && owner != group && owner.stratum >= group.stratum) {
+					stale = true;
+					return;
+				}
+			}
+		}
+		final Group consumer = group;
+		for (int offset = 0; offset < head.length; offset = CompactStatement.next(head, offset)) {
+			owners.put(head[offset], consumer);
+		}
+		consumer.materialisation.add(statement);
+		consumer.dirty = true;
+		for (int offset = 0; offset < body.length; offset = CompactStatement.next(body, offset)) {
+			final int predicate = body[offset];
+			// predicates not used so far are derived by the group of the rule
+			final Group owner = owners.computeIfAbsent(predicate, p -> consumer);
+			if (owner != consumer
+					&& owner.consumers.computeIfAbsent(predicate, p -> new LinkedHashSet<>()).add(consumer)) {
+				// the tuples passed on before are passed on to the new consumer, too
+				owner.materialisation.forEachAnswer(predicate, tuple -> consumer.materialisation.add(predicate, tuple));
+			}
+		}
+	}
+
+	/**
+	 * Builds the groups of the statements added so far, and adds the statements
+	 * to them.
+	 */
+	private void build() {
+		// the predicate dependency graph, from body to head predicates
+		final Map<Integer, Integer> ids = new HashMap<>();
+		final List<Integer> predicates = new ArrayList<>();
+		final List<List<Integer>> successors = new ArrayList<>();
+		for (final CompactStatement statement : statements) {
+			final int[] head = predicates(statement.head(), ids, predicates, successors);
+			final int[] body = predicates(statement.body(), ids, predicates, successors);
+			for (final int from : body) {
+				for (final int to : head) {
+					successors.get(from).add(to);
+				}
+			}
+			// the head atoms of a rule are derived together
+			for (int i = 1; i < head.length; i++) {
+				successors.get(head[0]).add(head[i]);
+				successors.get(head[i]).add(head[0]);
+			}
+		}
+		final int[] components = components(successors);
+
+		// every component one stratum above all components it depends on
+		int componentCount = 0;
+		for (final int next : components) {
+			componentCount = Math.max(componentCount, next + 1);
+		}
+		final int[] componentStrata = new int[componentCount];
+		final List<List<Integer>> members = new ArrayList<>();
+		for (int i = 0; i < componentCount; i++) {
+			members.add(new ArrayList<>());
+		}
+		for (int predicate = 0; predicate < components.length; predicate++) {
+			members.get(components[predicate]).add(predicate);
+		}
+		// components are numbered in reverse topological order
+		for (int component = componentCount - 1; component >= 0; component--) {
+			for (final int predicate : members.get(component)) {
+				for (final int next : successors.get(predicate)) {
+					if (components[next] != component) {
+						componentStrata[components[next]] = Math.max(componentStrata[components[next]],
+								componentStrata[component] + 1);
+					}
+				}
+			}
+		}
+
+		// the statements of every component, by which the components are balanced
+		final List<List<CompactStatement>> byComponent = new ArrayList<>();
+		for (int i = 0; i < componentCount; i++) {
+			byComponent.add(new ArrayList<>());
+		}
+		statements.forEach(next -> byComponent.get(components[ids.get(next.headPredicate())]).add(next));
+		final List<List<Integer>> componentsByStratum = new ArrayList<>();
+		for (int component = 0; component < componentCount; component++) {
+			while (componentsByStratum.size() <= componentStrata[component]) {
+				componentsByStratum.add(new ArrayList<>());
+			}
+			componentsByStratum.get(componentStrata[component]).add(component);
+		}
+		final Group[] groups = new Group[componentCount];
+		final int parallelism = ForkJoinPool.getCommonPoolParallelism();
+		for (final List<Integer> stratum : componentsByStratum) {
+			final Group[] stratumGroups = new Group[Math.min(stratum.size(), parallelism)];
+			final int[] load = new int[stratumGroups.length];
+			stratum.sort(Comparator.comparingInt(next -> -byComponent.get(next).size()));
+			for (final int component : stratum) {
+				int lightest = 0;
+				for (int i = 1; i < load.length; i++) {
+					if (load[i] < load[lightest]) {
+						lightest = i;
+					}
+				}
+				if (stratumGroups[lightest] == null) {
+					stratumGroups[lightest] = new Group(dictionary, equality, strata.size());
+				}
+				load[lightest] += byComponent.get(component).size() + 1;
+				groups[component] = stratumGroups[lightest];
+			}
+			strata.add(new ArrayList<>(Arrays.asList(stratumGroups)));
+		}
+		for (int predicate = 0; predicate < components.length; predicate++) {
+			owners.put(predicates.get(predicate), groups[components[predicate]]);
+		}
+		for (int component = 0; component < componentCount; component++) {
+			final Group group = groups[component];
+			for (final CompactStatement next : byComponent.get(component)) {
+				group.materialisation.add(next);
+				for (final int predicate : predicates(next.body(), ids, predicates, successors)) {
+					final Group owner = owners.get(predicates.get(predicate));
+					if (owner != group) {
+						owner.consumers.computeIfAbsent(predicates.get(predicate), p -> new LinkedHashSet<>())
+								.add(group);
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		// nothing to release
+	}
+
+	/**
+	 * Computes the strongly connected components of the given graph by Tarjan's
+	 * algorithm without recursion.
+	 *
+	 * @return The component of every node, numbered in reverse topological order
+	 */
+	private static int[] components(final List<List<Integer>> successors) {
+		final int nodes = successors.size();
+		final int[] index = new int[nodes];
+		Arrays.fill(index, -1);
+		final int[] low = new int[nodes];
+		final int[] cursor = new int[nodes];
+		final int[] components = new int[nodes];
+		final BitSet onStack = new BitSet(nodes);
+		final Deque<Integer> stack = new ArrayDeque<>();
+		final Deque<Integer> path = new ArrayDeque<>();
+		int counter = 0;
+		int component = 0;
+		for (int root = 0; root < nodes; root++) {
+			if (index[root] >= 0) {
+				continue;
+			}
+			index[root] = low[root] = counter++;
+			stack.push(root);
+			onStack.set(root);
+			path.push(root);
+			while (!path.isEmpty()) {
+				final int node = path.peek();
+				if (cursor[node] < successors.get(node).size()) {
+					final int next = successors.get(node).get(cursor[node]++);
+					if (index[next] < 0) {
+						index[next] = low[next] = counter++;
+						stack.push(next);
+						onStack.set(next);
+						path.push(next);
+					} else if (onStack.get(next)) {
+						low[node] = Math.min(low[node], index[next]);
+					}
+					continue;
+				}
+				path.pop();
+				if (!path.isEmpty()) {
+					low[path.peek()] = Math.min(low[path.peek()], low[node]);
+				}
+				if (low[node] == index[node]) {
+					int member;
+					do {
+						member = stack.pop();
+						onStack.clear(member);
+						components[member] = component;
+					} while (member != node);
+					component++;
+				}
+			}
+		}
+		return components;
+	}
+
+	@Override
+	public boolean contains(final int predicate, final int[] terms) {
+		final Group owner = owners.get(predicate);
+		return owner != null && owner.materialisation.contains(predicate, terms);
+	}
+
+	@Override
+	public void forEachAnswer(final int predicate, final Consumer<int[]> consumer) {
+		final Group owner = owners.get(predicate);
+		if (owner != null) {
+			owner.materialisation.forEachAnswer(predicate, consumer);
+		}
+	}
+
+	@Override
+	public void forEachMatch(final int predicate, final int[] pattern, final Consumer<int[]> consumer) {
+		final Group owner = owners.get(predicate);
+		if (owner != null) {
+			owner.materialisation.forEachMatch(predicate, pattern, consumer);
+		}
+	}
+
+	/**
+	 * @return A new group of the given stratum
+	 */
+	private Group group(final int stratum) {
+		while (strata.size() <= stratum) {
+			strata.add(new ArrayList<>());
+		}
+		final Group group = new Group(dictionary, equality, stratum);
+		strata.get(stratum).add(group);
+		return group;
+	}
+
+	/**
+	 * @return The IDs of the predicates of the given atoms in the dependency
+	 *         graph, which are assigned if necessary
+	 */
+	private static int[] predicates(final int[] atoms, final Map<Integer, Integer> ids,
+			final List<Integer> predicates, final List<List<Integer>> successors) {
+		final List<Integer> result = new ArrayList<>();
+		for (int offset = 0; offset < atoms.length; offset = CompactStatement.next(atoms, offset)) {
+			result.add(ids.computeIfAbsent(atoms[offset], predicate -> {
+				predicates.add(predicate);
+				successors.add(new ArrayList<>());
+				return predicates.size() - 1;
+			}));
+		}
+		return result.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Saturates the groups with added tuples stratum by stratum, the groups of
+	 * one stratum concurrently, after building the groups anew if they are stale.
+	 */
+	void saturate() {
+		if (stale) {
+			strata.clear();
+			owners.clear();
+			build();
+			stale = false;
+		}
+		for (final List<Group> stratum : strata) {
+			stratum.parallelStream().filter(next -> next.dirty).forEach(StratifiedMaterialisation::saturate);
+		}
+	}
+
+	/**
+	 * Saturates the given group and passes the tuples of its predicates derived
+	 * since they have been passed on last to the groups using them, which are
+	 * evaluated later.
+	 */
+	private static void saturate(final Group group) {
+		group.dirty = false;
+		group.materialisation.saturate();
+		group.consumers.forEach((predicate, consumers) -> {
+			final List<int[]> tuples = new ArrayList<>();
+			group.forwarded.put(predicate, group.materialisation.forEachAnswerSince(predicate,
+					Math.max(group.forwarded.get(predicate), 0), tuple -> tuples.add(tuple.clone())));
+			if (tuples.isEmpty()) {
+				return;
+			}
+			consumers.forEach(consumer -> {
+				synchronized (consumer) {
+					tuples.forEach(tuple -> consumer.materialisation.add(predicate, tuple));
+					consumer.dirty = true;
+				}
+			});
+		});
+	}
+
+}
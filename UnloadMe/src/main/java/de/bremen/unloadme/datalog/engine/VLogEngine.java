@@ -0,0 +1,120 @@
+package de.bremen.unloadme.datalog.engine;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.semanticweb.rulewerk.core.model.api.PositiveLiteral;
+import org.semanticweb.rulewerk.core.model.api.Predicate;
+import org.semanticweb.rulewerk.core.model.api.Term;
+import org.semanticweb.rulewerk.core.model.implementation.Expressions;
+import org.semanticweb.rulewerk.core.reasoner.KnowledgeBase;
+import org.semanticweb.rulewerk.core.reasoner.Reasoner;
+import org.semanticweb.rulewerk.reasoner.vlog.VLogReasoner;
+
+import de.bremen.unloadme.datalog.CompactStatement;
+import de.bremen.unloadme.datalog.SymbolDictionary;
+
+/**
+ * {@link DatalogEngine} delegating to a fresh {@link VLogReasoner} for every
+ * materialisation. The program is translated to Rulewerk objects only when it
+ * is loaded, answers are translated back to IDs.
+ *
+ * Rulewerk resets a {@link VLogReasoner} and loads its whole knowledge base
+ * anew after any change of its statements, so that no program is kept loaded
+ * between materialisations.
+ */
+public class VLogEngine implements DatalogEngine {
+
+	/**
+	 * Retrieves all answers to p(x_1,...,x_n) with one single query.
+	 *
+	 * @param reasoner   The reasoner to query, reasoning must have been completed
+	 * @param dictionary The dictionary to translate the answers with
+	 * @param predicate  The ID of the predicate p
+	 * @param consumer   The consumer of the IDs of the terms of every answer
+	 */
+	private static void forEachAnswer(final Reasoner reasoner, final SymbolDictionary dictionary,
+			final int predicate, final Consumer<int[]> consumer) {
+		try (var result = reasoner.answerQuery(wildcard(dictionary.predicate(predicate)), false)) {
+			result.forEachRemaining(
+					next -> consumer.accept(next.getTerms().stream().mapToInt(dictionary::id).toArray()));
+		}
+	}
+
+	@Override
+	public Materialisation materialise(final SymbolDictionary dictionary, final Collection<CompactStatement> program)
+			throws IOException {
+		final KnowledgeBase knowledgeBase = new KnowledgeBase();
+		knowledgeBase.addStatements(program.stream().map(dictionary::toStatement).collect(Collectors.toList()));
+		final Reasoner reasoner = new VLogReasoner(knowledgeBase);
+		try {
+			if (!reasoner.reason()) {
+				throw new RuntimeException();
+			}
+		} catch (final IOException | RuntimeException e) {
+			reasoner.close();
+			throw e;
+		}
+		return new Materialisation() {
+
+			private final Map<Integer, Relation> answers = new HashMap<>();
+
+			/**
+			 * @return All answers of the given predicate, retrieved with one query
+			 */
+			private Relation answers(final int predicate) {
+				return answers.computeIfAbsent(predicate, p -> {
+					final Relation relation = new Relation(dictionary.arity(p));
+					forEachAnswer(p, next -> relation.insert(next, 0));
+					return relation;
+				});
+			}
+
+			@Override
+			public void add(final Collection<CompactStatement> facts) throws IOException {
+				if (!facts.stream().allMatch(CompactStatement::isFact)) {
+					throw new IllegalArgumentException("Only facts can be added: " + facts);
+				}
+				knowledgeBase.addStatements(facts.stream().map(dictionary::toStatement).collect(Collectors.toList()));
+				answers.clear();
+				if (!reasoner.reason()) {
+					throw new RuntimeException();
+				}
+			}
+
+			@Override
+			public void close() {
+				reasoner.close();
+			}
+
+			@Override
+			public boolean contains(final int predicate, final int[] terms) {
+				return answers(predicate).contains(terms);
+			}
+
+			@Override
+			public void forEachAnswer(final int predicate, final Consumer<int[]> consumer) {
+				VLogEngine.forEachAnswer(reasoner, dictionary, predicate, consumer);
+			}
+
+			@Override
+			public void forEachMatch(final int predicate, final int[] pattern, final Consumer<int[]> consumer) {
+				answers(predicate).forEachMatch(pattern, consumer);
+			}
+		};
+	}
+
+	/**
+	 * @return p(x_1,...,x_n) for the given predicate p
+	 */
+	private static PositiveLiteral wildcard(final Predicate predicate) {
+		return Expressions.makePositiveLiteral(predicate, IntStream.range(0, predicate.getArity())
+				.mapToObj(next -> (Term) Expressions.makeUniversalVariable("x_" + next)).collect(Collectors.toList()));
+	}
+
+}
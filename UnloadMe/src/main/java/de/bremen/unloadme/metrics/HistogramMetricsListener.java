@@ -0,0 +1,173 @@
+package de.bremen.unloadme.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MetricsListener} collecting a {@link Histogram} for every
+ * {@link MetricsListener.Stage} and {@link MetricsListener.Count}. Durations
+ * are recorded in nanoseconds.
+ */
+public class HistogramMetricsListener implements MetricsListener {
+
+	/**
+	 * A histogram of non-negative values with one bucket per power of two. Thus,
+	 * quantiles are exact up to a factor of two.
+	 */
+	public static final class Histogram {
+
+		private final long[] buckets = new long[Long.SIZE];
+		private long count = 0;
+		private long sum = 0;
+		private long min = Long.MAX_VALUE;
+		private long max = 0;
+
+		private static int bucket(final long value) {
+			return Long.SIZE - Long.numberOfLeadingZeros(value);
+		}
+
+		public synchronized long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return The largest recorded value, or 0
+		 */
+		public synchronized long getMax() {
+			return max;
+		}
+
+		/**
+		 * @return The average of all recorded values, or 0
+		 */
+		public synchronized double getMean() {
+			return count == 0 ? 0 : (double) sum / count;
+		}
+
+		/**
+		 * @return The smallest recorded value, or 0
+		 */
+		public synchronized long getMin() {
+			return count == 0 ? 0 : min;
+		}
+
+		public synchronized long getSum() {
+			return sum;
+		}
+
+		/**
+		 * @param quantile The quantile, between 0 and 1
+		 * @return An upper bound of the given quantile of the recorded values that is
+		 *         at most twice as large as the quantile, or 0
+		 */
+		public synchronized long quantile(final double quantile) {
+			if (quantile < 0 || quantile > 1) {
+				throw new IllegalArgumentException("Not a quantile: " + quantile);
+			}
+			final long rank = (long) Math.ceil(quantile * count);
+			long seen = 0;
+			for (int i = 0; i < buckets.length; i++) {
+				seen += buckets[i];
+				if (seen >= rank && seen > 0) {
+					return Math.min(i == 0 ? 0 : (1L << i) - 1, max);
+				}
+			}
+			return 0;
+		}
+
+		synchronized void record(final long value) {
+			if (value < 0) {
+				throw new IllegalArgumentException("Negative value: " + value);
+			}
+			buckets[Math.min(bucket(value), buckets.length - 1)]++;
+			count++;
+			sum += value;
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+		}
+
+		synchronized void reset() {
+			for (int i = 0; i < buckets.length; i++) {
+				buckets[i] = 0;
+			}
+			count = 0;
+			sum = 0;
+			min = Long.MAX_VALUE;
+			max = 0;
+		}
+
+	}
+
+	private final Map<Stage, Histogram> durations = new EnumMap<>(Stage.class);
+	private final Map<Count, Histogram> counts = new EnumMap<>(Count.class);
+
+	public HistogramMetricsListener() {
+		for (final Stage next : Stage.values()) {
+			durations.put(next, new Histogram());
+		}
+		for (final Count next : Count.values()) {
+			counts.put(next, new Histogram());
+		}
+	}
+
+	@Override
+	public void count(final Count count, final long value) {
+		counts.get(count).record(value);
+	}
+
+	/**
+	 * @return The {@link Histogram} of the values of the given
+	 *         {@link MetricsListener.Count}
+	 */
+	public Histogram counts(final Count count) {
+		return counts.get(count);
+	}
+
+	@Override
+	public void duration(final Stage stage, final long nanos) {
+		durations.get(stage).record(nanos);
+	}
+
+	/**
+	 * @return The {@link Histogram} of the durations of the given
+	 *         {@link MetricsListener.Stage} in nanoseconds
+	 */
+	public Histogram durations(final Stage stage) {
+		return durations.get(stage);
+	}
+
+	/**
+	 * Clears all histograms.
+	 */
+	public void reset() {
+		durations.values().forEach(Histogram::reset);
+		counts.values().forEach(Histogram::reset);
+	}
+
+	/**
+	 * @return A table of all non-empty histograms, durations in milliseconds
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder table = new StringBuilder(
+				String.format("%-20s %10s %12s %12s %12s %12s%n", "", "count", "mean", "p50", "p99", "max"));
+		durations.forEach((stage, histogram) -> {
+			if (histogram.getCount() > 0) {
+				table.append(String.format("%-20s %10d %12.3f %12.3f %12.3f %12.3f%n", stage, histogram.getCount(),
+						histogram.getMean() / TimeUnit.MILLISECONDS.toNanos(1),
+						(double) histogram.quantile(0.5) / TimeUnit.MILLISECONDS.toNanos(1),
+						(double) histogram.quantile(0.99) / TimeUnit.MILLISECONDS.toNanos(1),
+						(double) histogram.getMax() / TimeUnit.MILLISECONDS.toNanos(1)));
+			}
+		});
+		counts.forEach((count, histogram) -> {
+			if (histogram.getCount() > 0) {
+				table.append(String.format("%-20s %10d %12.1f %12d %12d %12d%n", count, histogram.getCount(),
+						histogram.getMean(), histogram.quantile(0.5), histogram.quantile(0.99), histogram.getMax()));
+			}
+		});
+		return table.toString();
+	}
+
+}
@@ -0,0 +1,185 @@
+package de.bremen.unloadme.metrics;
+
+/**
+ * Receives the durations of the stages of module extraction and counters such
+ * as program and module sizes. Listeners are called concurrently by concurrent
+ * extractions and have to be thread-safe.
+ *
+ * {@link #NONE} is the default of all components. It does not even read the
+ * clock.
+ */
+public interface MetricsListener {
+
+	/**
+	 * The counted values.
+	 */
+	enum Count {
+		/**
+		 * The rules of the datalog program of a support computation
+		 */
+		RULES,
+		/**
+		 * The facts of the datalog program of a support computation, including the
+		 * initial facts
+		 */
+		FACTS,
+		/**
+		 * The predicates of the datalog program of a support computation
+		 */
+		PREDICATES,
+		/**
+		 * The relevant facts entailed by the datalog program of a support computation
+		 */
+		RELEVANT_FACTS,
+		/**
+		 * The supported statements of a support computation
+		 */
+		SUPPORT_SIZE,
+		/**
+		 * The iterations of an iterative datalog based extraction
+		 */
+		ITERATIONS,
+		/**
+		 * The axioms of a module extracted by datalog based module extraction
+		 */
+		DATALOG_MODULE_SIZE,
+		/**
+		 * The nested extractions until stabilisation of a nested extraction
+		 */
+		NESTING_ROUNDS,
+		/**
+		 * The axioms of a module extracted by nested module extraction
+		 */
+		MODULE_SIZE
+	}
+
+	/**
+	 * The timed stages. Stages may contain other stages.
+	 */
+	enum Stage {
+		/**
+		 * Filtering tautologies from the axiom base
+		 */
+		TAUTOLOGIES,
+		/**
+		 * Computing the normal form of the axiom base
+		 */
+		NORMAL_FORM,
+		/**
+		 * Rewriting the normal form to datalog
+		 */
+		DATALOG_REWRITING,
+		/**
+		 * Substituting constants and existential variables according to the module
+		 * setting
+		 */
+		MODULE_SETTING,
+		/**
+		 * Computing the reduction of the complete datalog program
+		 */
+		REDUCTION,
+		/**
+		 * One nested extraction, containing all other extraction stages
+		 */
+		EXTRACTION,
+		/**
+		 * One syntactic locality based extraction within a nested extraction
+		 */
+		LOCALITY,
+		/**
+		 * One extraction within a nested extraction by any extractor other than
+		 * syntactic locality and datalog based module extraction
+		 */
+		NESTED_EXTRACTOR,
+		/**
+		 * One, possibly iterative, datalog based extraction
+		 */
+		DATALOG_EXTRACTION,
+		/**
+		 * Restricting the datalog program to the axioms of interest, containing
+		 * {@link #ENRICHMENT}
+		 */
+		PROGRAM_RESTRICTION,
+		/**
+		 * Enriching the restricted datalog program
+		 */
+		ENRICHMENT,
+		/**
+		 * Materialising the datalog program with the initial facts
+		 */
+		MATERIALISATION,
+		/**
+		 * Computing the support of the entailed relevant facts, that is materialising
+		 * and querying the reduction, or searching top-down
+		 */
+		SUPPORT,
+		/**
+		 * Mapping the support back to the axiom base
+		 */
+		REVERSE_MAPPING
+	}
+
+	/**
+	 * Ignores everything.
+	 */
+	MetricsListener NONE = new MetricsListener() {
+
+		@Override
+		public void count(final Count count, final long value) {
+			// ignored
+		}
+
+		@Override
+		public void duration(final Stage stage, final long nanos) {
+			// ignored
+		}
+
+		@Override
+		public boolean isEnabled() {
+			return false;
+		}
+
+		@Override
+		public long start() {
+			return 0;
+		}
+
+		@Override
+		public void stop(final Stage stage, final long start) {
+			// ignored
+		}
+
+	};
+
+	void count(Count count, long value);
+
+	/**
+	 * @param stage The finished stage
+	 * @param nanos The duration of the stage in nanoseconds
+	 */
+	void duration(Stage stage, long nanos);
+
+	/**
+	 * @return Whether values that are expensive to count should be counted
+	 */
+	default boolean isEnabled() {
+		return true;
+	}
+
+	/**
+	 * @return The start time of a stage to pass to {@link #stop(Stage, long)}
+	 */
+	default long start() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Reports the duration of the given stage.
+	 *
+	 * @param start The value returned by {@link #start()} when the stage started
+	 */
+	default void stop(final Stage stage, final long start) {
+		duration(stage, System.nanoTime() - start);
+	}
+
+}
@@ -1,15 +1,16 @@
 package de.bremen.unloadme.modulesettings;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.semanticweb.rulewerk.core.model.api.AbstractConstant;
 import org.semanticweb.rulewerk.core.model.api.ExistentialVariable;
 import org.semanticweb.rulewerk.core.model.api.Fact;
 import org.semanticweb.rulewerk.core.model.api.Predicate;
-import org.semanticweb.rulewerk.core.model.implementation.Expressions;
+import org.semanticweb.rulewerk.core.model.api.Term;
 
 import de.bremen.unloadme.datalog.DatalogSignatureMapper;
 
@@ -25,25 +26,17 @@ public class BooleanPeqSetting extends AbstractModuleSetting {
 	public Facts getFacts(final Set<Predicate> signature) {
 		final var initialFacts = criticalDataset(signature);
 
-		final var relevantFacts = Stream.concat(Stream.of(bottom()), signature.stream().flatMap(next -> {
-			if (next.getArity() == 1) {
-				return Stream.concat(Stream.of(Expressions.makeFact(next, getSignatureMapper().criticalConstant())),
-						newExistentalConstants.stream().map(c -> Expressions.makeFact(next, c)));
-			} else if (next.getArity() == 2) {
-				final Set<Fact> allFacts = new HashSet<>();
-				final Set<AbstractConstant> allConstants = new HashSet<>(newExistentalConstants);
-				allConstants.add(getSignatureMapper().criticalConstant());
-				
-				for (final AbstractConstant first : allConstants) {
-					for (final AbstractConstant second : allConstants) {
-						allFacts.add(Expressions.makeFact(next, first, second));
-					}
-				}
-				return allFacts.stream();
-			}
-			return Stream.empty();
-		})).collect(Collectors.toSet());
-		return new Facts(relevantFacts, initialFacts);
+		final Set<Term> constants = new HashSet<>(newExistentalConstants);
+		constants.add(getSignatureMapper().criticalConstant());
+		final Set<Term> domain = Collections.unmodifiableSet(constants);
+
+		final Set<Fact> relevantFacts = new HashSet<>();
+		relevantFacts.add(bottom());
+		final List<Facts.Pattern> relevantPatterns = signature.stream()
+				.filter(next -> next.getArity() == 1 || next.getArity() == 2)
+				.map(next -> Facts.Pattern.product(next, Collections.nCopies(next.getArity(), domain)))
+				.collect(Collectors.toList());
+		return new Facts(relevantFacts, relevantPatterns, initialFacts);
 	}
 
 	@Override
@@ -1,17 +1,130 @@
 package de.bremen.unloadme.modulesettings;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import org.semanticweb.rulewerk.core.model.api.Fact;
+import org.semanticweb.rulewerk.core.model.api.Predicate;
+import org.semanticweb.rulewerk.core.model.api.Term;
+import org.semanticweb.rulewerk.core.model.implementation.Expressions;
 
+/**
+ * The initial and relevant facts of a {@link ModuleSetting} for a signature.
+ * Relevant facts are either given explicitly or described by {@link Pattern}s,
+ * which the support computation matches against the materialisation instead of
+ * enumerating them.
+ */
 public class Facts {
 
+	/**
+	 * The relevant facts p(t_1,...,t_n) of one predicate p: either every fact
+	 * whose i-th term is within the i-th of the given sets of terms, or every fact
+	 * whose terms are one of the given tuples, except an optional excluded tuple.
+	 * The sets may be shared by the patterns of different predicates.
+	 */
+	public static final class Pattern {
+
+		private final Predicate predicate;
+		private final List<Set<Term>> domains;
+		private final Set<List<Term>> tuples;
+		private final List<Term> excluded;
+
+		private Pattern(final Predicate predicate, final List<Set<Term>> domains, final Set<List<Term>> tuples,
+				final List<Term> excluded) {
+			this.predicate = predicate;
+			this.domains = domains;
+			this.tuples = tuples;
+			this.excluded = excluded;
+		}
+
+		/**
+		 * @return All facts described by this pattern
+		 */
+		public Stream<Fact> facts() {
+			if (tuples != null) {
+				return tuples.stream().filter(next -> !next.equals(excluded))
+						.map(next -> Expressions.makeFact(predicate, next));
+			}
+			Stream<List<Term>> product = Stream.of(List.of());
+			for (final Set<Term> domain : domains) {
+				product = product.flatMap(prefix -> domain.stream().map(next -> {
+					final List<Term> tuple = new ArrayList<>(prefix);
+					tuple.add(next);
+					return tuple;
+				}));
+			}
+			return product.map(next -> Expressions.makeFact(predicate, next));
+		}
+
+		/**
+		 * @return The sets of terms by position, or null if this pattern is given by
+		 *         tuples
+		 */
+		public List<Set<Term>> getDomains() {
+			return domains;
+		}
+
+		/**
+		 * @return The excluded tuple, or null
+		 */
+		public List<Term> getExcluded() {
+			return excluded;
+		}
+
+		public Predicate getPredicate() {
+			return predicate;
+		}
+
+		/**
+		 * @return The tuples, or null if this pattern is given by sets of terms by
+		 *         position
+		 */
+		public Set<List<Term>> getTuples() {
+			return tuples;
+		}
+
+		/**
+		 * @param domains The sets of terms by position
+		 * @return The pattern of all facts p(t_1,...,t_n) with t_i within the i-th set
+		 */
+		public static Pattern product(final Predicate predicate, final List<Set<Term>> domains) {
+			if (domains.size() != predicate.getArity()) {
+				throw new IllegalArgumentException("Wrong number of domains for " + predicate + ": " + domains.size());
+			}
+			return new Pattern(predicate, domains, null, null);
+		}
+
+		/**
+		 * @param tuples   The tuples, each of the arity of the predicate
+		 * @param excluded The excluded tuple, or null
+		 * @return The pattern of all facts p(t_1,...,t_n) with (t_1,...,t_n) one of
+		 *         the given tuples, except the excluded one
+		 */
+		public static Pattern tuples(final Predicate predicate, final Set<List<Term>> tuples,
+				final List<Term> excluded) {
+			return new Pattern(predicate, null, tuples, excluded);
+		}
+
+	}
+
 	private final Set<Fact> relevantFacts;
+	private final List<Pattern> relevantPatterns;
 	private final Set<Fact> initialFacts;
 
 	public Facts(final Set<Fact> relevantFacts, final Set<Fact> initialFacts) {
-		super();
+		this(relevantFacts, List.of(), initialFacts);
+	}
+
+	/**
+	 * @param relevantFacts    The explicitly given relevant facts
+	 * @param relevantPatterns The patterns of the further relevant facts
+	 * @param initialFacts     The initial facts
+	 */
+	public Facts(final Set<Fact> relevantFacts, final List<Pattern> relevantPatterns, final Set<Fact> initialFacts) {
 		this.relevantFacts = relevantFacts;
+		this.relevantPatterns = relevantPatterns;
 		this.initialFacts = initialFacts;
 	}
 
@@ -19,8 +132,23 @@ public class Facts {
 		return initialFacts;
 	}
 
+	/**
+	 * @return The explicitly given relevant facts, without those described by
+	 *         {@link #getRelevantPatterns()}
+	 */
 	public Set<Fact> getRelevantFacts() {
 		return relevantFacts;
 	}
 
+	public List<Pattern> getRelevantPatterns() {
+		return relevantPatterns;
+	}
+
+	/**
+	 * @return All relevant facts, including those described by patterns
+	 */
+	public Stream<Fact> relevantFacts() {
+		return Stream.concat(relevantFacts.stream(), relevantPatterns.stream().flatMap(Pattern::facts));
+	}
+
 }
@@ -1,6 +1,8 @@
 package de.bremen.unloadme.modulesettings;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -36,10 +38,11 @@ public class ImplicationSetting extends AbstractModuleSetting {
 				newPredicateArity2Vectors.put(next, vector);
 			}
 		});
-		final var relevantFacts = Stream
-				.concat(Stream.concat(Stream.of(bottom()), relevantFacts(newPredicateArity1Vectors)),
-						relevantFacts(newPredicateArity2Vectors))
-				.collect(Collectors.toSet());
+		final Set<Fact> relevantFacts = new HashSet<>();
+		relevantFacts.add(bottom());
+		final List<Facts.Pattern> relevantPatterns = new ArrayList<>();
+		relevantPatterns(newPredicateArity1Vectors, relevantPatterns);
+		relevantPatterns(newPredicateArity2Vectors, relevantPatterns);
 
 		final var initialFacts = Stream.concat(
 				newPredicateArity1Vectors.entrySet().stream()
@@ -50,12 +53,17 @@ public class ImplicationSetting extends AbstractModuleSetting {
 		if (signature.contains(getSignatureMapper().bottomPredicate())) {
 			initialFacts.add(bottom());
 		}
-		return new Facts(relevantFacts, initialFacts);
+		return new Facts(relevantFacts, relevantPatterns, initialFacts);
 	}
 	
-	private Stream<Fact> relevantFacts(final Map<Predicate, List<Term>> map) {
-		return map.keySet().stream().flatMap(p1 -> map.keySet().stream().filter(p2 -> !p2.equals(p1))
-				.map(p2 -> Expressions.makeFact(p1, map.get(p2))));
+	/**
+	 * Adds the patterns of p1(v(p2)) for all distinct predicates p1, p2 of the
+	 * given map, where v(p2) is the constant vector of p2, without enumerating the
+	 * pairs.
+	 */
+	private void relevantPatterns(final Map<Predicate, List<Term>> map, final List<Facts.Pattern> relevantPatterns) {
+		final Set<List<Term>> vectors = Set.copyOf(map.values());
+		map.forEach((predicate, vector) -> relevantPatterns.add(Facts.Pattern.tuples(predicate, vectors, vector)));
 	}
 	
 	@Override
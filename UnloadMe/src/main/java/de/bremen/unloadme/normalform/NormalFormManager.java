@@ -1,59 +1,355 @@
 package de.bremen.unloadme.normalform;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLEntity;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.ImmutableSetMultimap;
-import com.google.common.collect.Multimaps;
-import com.google.common.collect.SetMultimap;
+import de.bremen.unloadme.IntIntHashMap;
+import de.bremen.unloadme.IntRelation;
 
+/**
+ * Manages the normal form of an axiom base. The axioms of the axiom base and of
+ * the normal form have dense int IDs, which are assigned in the order the
+ * axioms are added, and the normalisation is stored as {@link IntRelation}s
+ * over these IDs in both directions.
+ */
 public class NormalFormManager {
 
 	/**
-	 * The axioms whose normal form has to be managed.
+	 * Builds a {@link NormalFormManager} from an axiom base that is added in
+	 * chunks, so that the axiom base does not have to be held a second time while
+	 * normalising it.
 	 */
-	private final Set<OWLAxiom> axiomBase;
+	public static final class Builder {
 
-	private final NormalFormRewriter rewriter;
+		private final List<OWLAxiom> axioms = new ArrayList<>();
 
-	private final SetMultimap<OWLAxiom, OWLAxiom> normalisation;
+		private final Index ids = new Index(axioms);
 
-	private final SetMultimap<OWLAxiom, OWLAxiom> orig;
+		private final List<OWLAxiom> normalForm = new ArrayList<>();
 
-	public NormalFormManager(final Stream<OWLAxiom> axiomBase, final OWLDataFactory dataFactory) {
-		this.axiomBase = axiomBase.collect(Collectors.toSet());
+		/**
+		 * The IDs of the axioms of the normal form, only needed while building
+		 */
+		private final Map<OWLAxiom, Integer> normalFormIds = new HashMap<>();
+
+		private final IntRelation.Builder normalisation = new IntRelation.Builder();
+
+		private final NormalFormRewriter rewriter;
+
+		/**
+		 * @param signature   A signature containing the signature of all axioms that
+		 *                    will be added, used to choose fresh names
+		 * @param dataFactory The {@link OWLDataFactory} to use for the normal form
+		 */
+		public Builder(final Stream<OWLEntity> signature, final OWLDataFactory dataFactory) {
+			this(new NormalFormRewriter(signature, dataFactory));
+		}
+
+		/**
+		 * @param rewriter The rewriter to normalise added axioms with, or null if
+		 *                 only normalised axioms are put
+		 */
+		private Builder(final NormalFormRewriter rewriter) {
+			this.rewriter = rewriter;
+		}
 
-		// instantiate NormalFormRewriter
-		rewriter = new NormalFormRewriter(axiomBase().flatMap(OWLAxiom::signature), dataFactory);
+		/**
+		 * Adds the given axioms to the axiom base and normalises them.
+		 *
+		 * @param axioms The axioms to add
+		 * @return The axioms of the normal form that have not been added before, in
+		 *         the order of their IDs
+		 */
+		public List<OWLAxiom> add(final Collection<OWLAxiom> axioms) {
+			final List<OWLAxiom> added = axioms.stream().filter(next -> ids.id(next) < 0).distinct()
+					.collect(Collectors.toList());
+			final List<List<OWLAxiom>> normalised = added.parallelStream()
+					.map(next -> rewriter.visitAll(next).distinct().collect(Collectors.toList()))
+					.collect(Collectors.toList());
+			final int known = normalForm.size();
+			for (int i = 0; i < added.size(); i++) {
+				put(added.get(i), normalised.get(i));
+			}
+			return new ArrayList<>(normalForm.subList(known, normalForm.size()));
+		}
 
-		// calculate normal form
-//		normalisation = axiomBase().parallel()
-		normalisation = axiomBase()
-				.collect(ImmutableSetMultimap.flatteningToImmutableSetMultimap(next -> next, rewriter::visitAll));
+		/**
+		 * Builds the {@link NormalFormManager}. This {@link Builder} must not be used
+		 * afterwards.
+		 */
+		public NormalFormManager build() {
+			return new NormalFormManager(this);
+		}
+
+		private void put(final OWLAxiom axiom, final List<OWLAxiom> axiomInNF) {
+			axioms.add(axiom);
+			ids.add();
+			final int[] row = new int[axiomInNF.size()];
+			for (int i = 0; i < row.length; i++) {
+				row[i] = normalFormIds.computeIfAbsent(axiomInNF.get(i), next -> {
+					normalForm.add(next);
+					return normalForm.size() - 1;
+				});
+			}
+			normalisation.addRow(row);
+		}
 
-		// calculate orig
-		orig = Multimaps.invertFrom(normalisation, HashMultimap.create());
+	}
+
+	/**
+	 * The IDs of the axioms of a list, by open addressing on their hash codes.
+	 * Only the IDs are stored, so that the axioms are indexed without holding
+	 * them a second time as in a map.
+	 */
+	private static final class Index {
+
+		private final List<OWLAxiom> axioms;
+
+		/**
+		 * The IDs of the axioms, or -1 for free slots
+		 */
+		private int[] slots;
+
+		private Index(final List<OWLAxiom> axioms) {
+			this.axioms = axioms;
+			allocate(axioms.size());
+		}
+
+		/**
+		 * Indexes the last axiom of the list.
+		 */
+		private void add() {
+			if (axioms.size() * 2 > slots.length) {
+				allocate(axioms.size());
+			} else {
+				insert(axioms.size() - 1);
+			}
+		}
+
+		/**
+		 * Allocates the slots for the given number of axioms and indexes all axioms
+		 * of the list.
+		 */
+		private void allocate(final int size) {
+			int capacity = 16;
+			while (capacity < size * 2) {
+				capacity <<= 1;
+			}
+			slots = new int[capacity];
+			Arrays.fill(slots, -1);
+			for (int id = 0; id < axioms.size(); id++) {
+				insert(id);
+			}
+		}
+
+		/**
+		 * @return The ID of the given axiom, or -1 if it is not in the list
+		 */
+		private int id(final OWLAxiom axiom) {
+			final int mask = slots.length - 1;
+			for (int slot = IntIntHashMap.mix(axiom.hashCode()) & mask; slots[slot] >= 0; slot = slot + 1 & mask) {
+				if (axioms.get(slots[slot]).equals(axiom)) {
+					return slots[slot];
+				}
+			}
+			return -1;
+		}
+
+		private void insert(final int id) {
+			final int mask = slots.length - 1;
+			int slot = IntIntHashMap.mix(axioms.get(id).hashCode()) & mask;
+			while (slots[slot] >= 0) {
+				slot = slot + 1 & mask;
+			}
+			slots[slot] = id;
+		}
+
+	}
+
+	/**
+	 * The axioms whose normal form has to be managed, by ID.
+	 */
+	private final OWLAxiom[] axioms;
+
+	private final Index ids;
+
+	/**
+	 * The axioms of the normal form, by ID.
+	 */
+	private final OWLAxiom[] normalForm;
+
+	private final IntRelation normalisation;
+
+	private final IntRelation orig;
+
+	public NormalFormManager(final Stream<OWLAxiom> axiomBase, final OWLDataFactory dataFactory) {
+		this(builder(axiomBase.collect(Collectors.toList()), dataFactory));
+	}
+
+	private NormalFormManager(final Builder builder) {
+		axioms = builder.axioms.toArray(OWLAxiom[]::new);
+		ids = new Index(Arrays.asList(axioms));
+		normalForm = builder.normalForm.toArray(OWLAxiom[]::new);
+		normalisation = builder.normalisation.build();
+		orig = normalisation.inverse(normalForm.length);
+	}
+
+	/**
+	 * @return The axiom with the given ID
+	 */
+	public OWLAxiom axiom(final int id) {
+		return axioms[id];
 	}
 
 	public Stream<OWLAxiom> axiomBase() {
-		return axiomBase.stream();
+		return Arrays.stream(axioms);
+	}
+
+	private static Builder builder(final List<OWLAxiom> axiomBase, final OWLDataFactory dataFactory) {
+		final var builder = new Builder(axiomBase.stream().flatMap(OWLAxiom::signature), dataFactory);
+		builder.add(axiomBase);
+		return builder;
+	}
+
+	/**
+	 * @return Whether the given axiom is in the managed axiom base
+	 */
+	public boolean contains(final OWLAxiom axiom) {
+		return id(axiom) >= 0;
+	}
+
+	/**
+	 * @return The ID of the given axiom, or -1 if it is not in the managed axiom
+	 *         base
+	 */
+	public int id(final OWLAxiom axiom) {
+		return ids.id(axiom);
+	}
+
+	/**
+	 * @param id The ID of an axiom
+	 * @return The IDs of the axioms of its normal form
+	 */
+	public IntStream normalFormOf(final int id) {
+		return normalisation.row(id);
 	}
 
 	public Stream<OWLAxiom> normalFormOf(final OWLAxiom axiom) {
-		return normalisation.get(axiom).stream();
+		final int id = id(axiom);
+		return id < 0 ? Stream.empty() : normalFormOf(id).mapToObj(next -> normalForm[next]);
 	}
 
+	/**
+	 * @return The distinct axioms of the normal form, in the order of their IDs
+	 */
 	public Stream<OWLAxiom> normalFormOfAxiomBase() {
-		return axiomBase().flatMap(this::normalFormOf).distinct();
+		return Arrays.stream(normalForm);
+	}
+
+	/**
+	 * @return The number of axioms of the normal form
+	 */
+	public int normalFormSize() {
+		return normalForm.length;
 	}
 
-	public Stream<OWLAxiom> orig(final OWLAxiom axiom) {
-		return orig.get(axiom).stream();
+	/**
+	 * @param normalFormId The ID of an axiom of the normal form
+	 * @return The IDs of the axioms it stems from
+	 */
+	public IntStream orig(final int normalFormId) {
+		return orig.row(normalFormId);
+	}
+
+	/**
+	 * Reads a {@link NormalFormManager} written by {@link #write(ObjectOutput)},
+	 * with the same IDs.
+	 */
+	public static NormalFormManager read(final ObjectInput in) throws IOException, ClassNotFoundException {
+		final var builder = new Builder(null);
+		final int axioms = in.readInt();
+		for (int i = 0; i < axioms; i++) {
+			final OWLAxiom axiom = (OWLAxiom) in.readObject();
+			final int size = in.readInt();
+			final List<OWLAxiom> axiomInNF = new ArrayList<>(size);
+			for (int j = 0; j < size; j++) {
+				axiomInNF.add((OWLAxiom) in.readObject());
+			}
+			builder.put(axiom, axiomInNF);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * @return The number of axioms in the managed axiom base
+	 */
+	public int size() {
+		return axioms.length;
+	}
+
+	/**
+	 * Creates a {@link NormalFormManager} for a changed axiom base. Only the added
+	 * axioms are normalised, the normal form of the remaining axioms is taken over.
+	 * The IDs are reassigned densely: the remaining axioms and their normal form
+	 * keep their relative order and get the lowest IDs, followed by the added
+	 * axioms and the axioms of the normal form that are new.
+	 *
+	 * @param removed     The axioms to remove
+	 * @param added       The axioms to add, which must not be tautologies
+	 * @param dataFactory The {@link OWLDataFactory} to use for the normal form of
+	 *                    the added axioms
+	 * @return The new {@link NormalFormManager}, and for every axiom of the normal
+	 *         form of this one its ID in the new one, or -1 if it has been removed
+	 */
+	public Pair<NormalFormManager, int[]> update(final Set<OWLAxiom> removed, final Collection<OWLAxiom> added,
+			final OWLDataFactory dataFactory) {
+		// fresh names must not clash with the names of the remaining normal form
+		final var builder = new Builder(
+				Stream.concat(Stream.concat(Arrays.stream(axioms), Arrays.stream(normalForm)), added.stream())
+						.flatMap(OWLAxiom::signature),
+				dataFactory);
+		for (int id = 0; id < axioms.length; id++) {
+			if (!removed.contains(axioms[id])) {
+				builder.put(axioms[id], normalFormOf(id).mapToObj(next -> normalForm[next]).collect(Collectors.toList()));
+			}
+		}
+		final int[] normalFormIds = new int[normalForm.length];
+		for (int id = 0; id < normalForm.length; id++) {
+			normalFormIds[id] = builder.normalFormIds.getOrDefault(normalForm[id], -1);
+		}
+		builder.add(added);
+		return Pair.of(builder.build(), normalFormIds);
+	}
+
+	/**
+	 * Writes the axiom base and its normal form.
+	 */
+	public void write(final ObjectOutput out) throws IOException {
+		out.writeInt(axioms.length);
+		for (int id = 0; id < axioms.length; id++) {
+			out.writeObject(axioms[id]);
+			out.writeInt(normalisation.size(id));
+			final var row = normalisation.row(id).iterator();
+			while (row.hasNext()) {
+				out.writeObject(normalForm[row.nextInt()]);
+			}
+		}
 	}
 
 }
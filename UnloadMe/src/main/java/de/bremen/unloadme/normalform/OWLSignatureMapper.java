@@ -11,8 +11,15 @@ import org.semanticweb.owlapi.model.OWLEntity;
 import org.semanticweb.owlapi.model.OWLObjectProperty;
 import org.semanticweb.owlapi.model.OWLObjectPropertyExpression;
 
+import com.google.common.hash.Hashing;
+
 import de.bremen.unloadme.SignatureMapper;
 
+/**
+ * Creates the new entities of the normal form. The name of a new entity is
+ * derived from a fingerprint of the replaced expression, so that the normal
+ * form can be computed in parallel and still yields the same names.
+ */
 public class OWLSignatureMapper extends SignatureMapper<OWLEntity, String> {
 	
 	public final static String REPLACEMENT_NAMESPACE = "UNLOADME_NF_RESERVED_ENTITIES_FOR_REPLACEMENT";
@@ -26,11 +33,21 @@ public class OWLSignatureMapper extends SignatureMapper<OWLEntity, String> {
 	}
 	
 	private OWLClass extendDepending(final String namespace, final OWLClassExpression entity) {
-		return extendDepending(namespace, entity, (r, i) -> dataFactory.getOWLClass(r, "NEW_CLASS_" + i));
+		return extendDepending(namespace, entity, fingerprint(entity),
+				(r, i) -> dataFactory.getOWLClass(r, "NEW_CLASS_" + i));
 	}
 	
 	private OWLObjectProperty extendDepending(final String namespace, final OWLObjectPropertyExpression entity) {
-		return extendDepending(namespace, entity, (r, i) -> dataFactory.getOWLObjectProperty(r, "NEW_PROPERTY_" + i));
+		return extendDepending(namespace, entity, fingerprint(entity),
+				(r, i) -> dataFactory.getOWLObjectProperty(r, "NEW_PROPERTY_" + i));
+	}
+	
+	/**
+	 * @return A non-negative fingerprint of the string representation of the
+	 *         given object, which does not depend on the JVM
+	 */
+	private static long fingerprint(final Object dependsOn) {
+		return Hashing.farmHashFingerprint64().hashUnencodedChars(dependsOn.toString()).asLong() & Long.MAX_VALUE;
 	}
 	
 	public OWLClass freshForLeftAll(final OWLClassExpression toReplace) {
@@ -39,12 +56,13 @@ public class OWLSignatureMapper extends SignatureMapper<OWLEntity, String> {
 	
 	public OWLClass freshForRightMin(final int i, final OWLObjectPropertyExpression property,
 			final OWLClassExpression classExpr) {
-		return extendDepending(FRESH_FOR_MIN_NAMESPACE, Triple.of(i, property, classExpr),
+		final var dependsOn = Triple.of(i, property, classExpr);
+		return extendDepending(FRESH_FOR_MIN_NAMESPACE, dependsOn, fingerprint(dependsOn),
 				(r, j) -> dataFactory.getOWLClass("NEW_CLASS_" + j));
 	}
 
 	public OWLObjectProperty replacement(final List<OWLObjectPropertyExpression> replaced) {
-		return extendDepending(REPLACEMENT_NAMESPACE, replaced,
+		return extendDepending(REPLACEMENT_NAMESPACE, replaced, fingerprint(replaced),
 				(r, i) -> dataFactory.getOWLObjectProperty("NEW_CLASS_" + i));
 	}
 	
@@ -0,0 +1,178 @@
+package de.bremen.unloadme;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.reasoner.structural.StructuralReasonerFactory;
+
+import de.bremen.unloadme.datalog.engine.DatalogEngine;
+import de.bremen.unloadme.datalog.engine.SemiNaiveEngine;
+import de.bremen.unloadme.datalog.engine.VLogEngine;
+import de.bremen.unloadme.modulesettings.InseparabilityRelation;
+
+/**
+ * Compares the modules extracted by a {@link DatalogBasedModuleExtractor} in
+ * different ways or with different options to those of
+ * {@link DatalogBasedModuleExtractor#extract(java.util.stream.Stream)} for
+ * every signature alone with the default options.
+ */
+class DatalogBasedModuleExtractorTest {
+
+	/**
+	 * @return The {@link VLogEngine}, which does not share materialisations,
+	 *         followed by the {@link SemiNaiveEngine} with and without parallel
+	 *         strata
+	 */
+	private static List<DatalogEngine> engines() {
+		final var parallelStrata = new SemiNaiveEngine();
+		parallelStrata.setParallelStrata(true);
+		return List.of(new VLogEngine(), new SemiNaiveEngine(), parallelStrata);
+	}
+
+	@Test
+	void extractAllGivesSameModulesAsExtract() {
+		final OWLOntologyManager ontologyManager = OWLManager.createOWLOntologyManager();
+		for (final List<OWLAxiom> axioms : TestOntologies.all()) {
+			for (final InseparabilityRelation inseparabilityRelation : InseparabilityRelation.values()) {
+				final var extractor = new DatalogBasedModuleExtractor(axioms.stream(), ontologyManager,
+						new StructuralReasonerFactory(), inseparabilityRelation);
+				final List<Set<OWLEntity>> signatures = TestOntologies.signatures(axioms);
+				for (final DatalogEngine engine : engines()) {
+					extractor.setDatalogEngine(engine);
+					final Map<Set<OWLEntity>, Set<OWLAxiom>> modules = extractor.extractAll(signatures);
+					assertEquals(Set.copyOf(signatures), modules.keySet());
+					for (final Set<OWLEntity> signature : signatures) {
+						assertEquals(extractor.extract(signature.stream()).collect(Collectors.toSet()),
+								modules.get(signature), engine + " " + inseparabilityRelation + " " + signature);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void incrementalIterationsGiveSameModules() {
+		final OWLOntologyManager ontologyManager = OWLManager.createOWLOntologyManager();
+		for (final List<OWLAxiom> axioms : TestOntologies.all()) {
+			for (final InseparabilityRelation inseparabilityRelation : InseparabilityRelation.values()) {
+				final var extractor = new DatalogBasedModuleExtractor(axioms.stream(), ontologyManager,
+						new StructuralReasonerFactory(), inseparabilityRelation);
+				final List<Set<OWLEntity>> signatures = TestOntologies.signatures(axioms);
+				for (final boolean goalDirected : new boolean[] { false, true }) {
+					extractor.setGoalDirected(goalDirected);
+					for (final DatalogEngine engine : engines()) {
+						extractor.setDatalogEngine(engine);
+						extractor.setIncrementalIterations(false);
+						final Map<Set<OWLEntity>, Set<OWLAxiom>> expected = new HashMap<>();
+						signatures.forEach(next -> expected.put(next,
+								extractor.extract(next.stream()).collect(Collectors.toSet())));
+						extractor.setIncrementalIterations(true);
+						final String message = engine + " " + inseparabilityRelation + " goal-directed "
+								+ goalDirected;
+						for (final Set<OWLEntity> signature : signatures) {
+							assertEquals(expected.get(signature),
+									extractor.extract(signature.stream()).collect(Collectors.toSet()),
+									message + " " + signature);
+						}
+						assertEquals(expected, extractor.extractAll(signatures), message);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void programPruningGivesSameModules() {
+		final OWLOntologyManager ontologyManager = OWLManager.createOWLOntologyManager();
+		for (final List<OWLAxiom> axioms : TestOntologies.all()) {
+			for (final InseparabilityRelation inseparabilityRelation : InseparabilityRelation.values()) {
+				final var extractor = new DatalogBasedModuleExtractor(axioms.stream(), ontologyManager,
+						new StructuralReasonerFactory(), inseparabilityRelation);
+				for (final DatalogEngine engine : engines()) {
+					extractor.setDatalogEngine(engine);
+					for (final Set<OWLEntity> signature : TestOntologies.signatures(axioms)) {
+						extractor.setProgramPruning(false);
+						final Set<OWLAxiom> expected = extractor.extract(signature.stream())
+								.collect(Collectors.toSet());
+						extractor.setProgramPruning(true);
+						assertEquals(expected, extractor.extract(signature.stream()).collect(Collectors.toSet()),
+								engine + " " + inseparabilityRelation + " " + signature);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void snapshotGivesSameModules(@TempDir final Path directory) throws IOException {
+		final OWLOntologyManager ontologyManager = OWLManager.createOWLOntologyManager();
+		final Path file = directory.resolve("snapshot");
+		for (final List<OWLAxiom> axioms : TestOntologies.all()) {
+			for (final InseparabilityRelation inseparabilityRelation : InseparabilityRelation.values()) {
+				final var extractor = new DatalogBasedModuleExtractor(axioms.stream(), ontologyManager,
+						new StructuralReasonerFactory(), inseparabilityRelation);
+				extractor.saveSnapshot(file);
+				final var loaded = DatalogBasedModuleExtractor.loadSnapshot(file, axioms.stream(),
+						inseparabilityRelation);
+				assertEquals(extractor.axiomBase().collect(Collectors.toSet()),
+						loaded.axiomBase().collect(Collectors.toSet()));
+				for (final Set<OWLEntity> signature : TestOntologies.signatures(axioms)) {
+					assertEquals(extractor.extract(signature.stream()).collect(Collectors.toSet()),
+							loaded.extract(signature.stream()).collect(Collectors.toSet()),
+							inseparabilityRelation + " " + signature);
+				}
+			}
+		}
+	}
+
+	@Test
+	void snapshotRejectsForeignClasses(@TempDir final Path directory) throws IOException {
+		final List<OWLAxiom> axioms = TestOntologies.hierarchy();
+		final InseparabilityRelation inseparabilityRelation = InseparabilityRelation.values()[0];
+		final var extractor = new DatalogBasedModuleExtractor(axioms.stream(), OWLManager.createOWLOntologyManager(),
+				new StructuralReasonerFactory(), inseparabilityRelation);
+		final Path file = directory.resolve("snapshot");
+		extractor.saveSnapshot(file);
+		// replaces the first axiom of the normal form manager by a foreign object
+		final byte[] header;
+		try (final var in = new ObjectInputStream(new GZIPInputStream(Files.newInputStream(file)))) {
+			final var headerOut = new ByteArrayOutputStream();
+			try (final var out = new ObjectOutputStream(headerOut)) {
+				out.writeInt(in.readInt());
+				out.writeInt(in.readInt());
+				out.writeUTF(in.readUTF());
+				out.writeInt(in.readInt());
+				out.writeObject(new File("foreign"));
+			}
+			header = headerOut.toByteArray();
+		}
+		try (final var out = new GZIPOutputStream(Files.newOutputStream(file))) {
+			out.write(header);
+		}
+		assertThrows(InvalidClassException.class,
+				() -> DatalogBasedModuleExtractor.loadSnapshot(file, axioms.stream(), inseparabilityRelation));
+	}
+
+}
@@ -0,0 +1,73 @@
+package de.bremen.unloadme;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.modularity.ModuleExtractor;
+import org.semanticweb.owlapi.modularity.locality.LocalityClass;
+import org.semanticweb.owlapi.modularity.locality.SyntacticLocalityModuleExtractor;
+import org.semanticweb.owlapi.reasoner.structural.StructuralReasonerFactory;
+
+import de.bremen.unloadme.modulesettings.InseparabilityRelation;
+
+/**
+ * Compares the modules of a {@link NestedModuleExtractor}, which continues the
+ * extractions of its nested extractors, to those of extracting every nested
+ * module from scratch within the current module.
+ */
+class NestedModuleExtractorTest {
+
+	/**
+	 * Extracts the module of the given signature by extracting the module of the
+	 * next of the given extractors within the current module from scratch, until
+	 * no extractor shrinks the module any further.
+	 */
+	private static Set<OWLAxiom> extractFromScratch(final List<ModuleExtractor> extractors,
+			final Set<OWLEntity> signature) {
+		Set<OWLAxiom> module = extractors.get(0).extract(signature.stream()).collect(Collectors.toSet());
+		for (int next = 1 % extractors.size(), unchanged = 1; unchanged < extractors.size(); next = (next + 1)
+				% extractors.size()) {
+			final int previousSize = module.size();
+			module = extractors.get(next).extract(signature.stream(), new AxiomSetFilter(module))
+					.collect(Collectors.toSet());
+			unchanged = module.size() < previousSize ? 1 : unchanged + 1;
+		}
+		return module;
+	}
+
+	@Test
+	void sameModulesAsExtractionFromScratch() {
+		final OWLOntologyManager ontologyManager = OWLManager.createOWLOntologyManager();
+		for (final List<OWLAxiom> axioms : TestOntologies.all()) {
+			for (final InseparabilityRelation inseparabilityRelation : InseparabilityRelation.values()) {
+				final var datalogBasedModuleExtractor = new DatalogBasedModuleExtractor(axioms.stream(),
+						ontologyManager, new StructuralReasonerFactory(), inseparabilityRelation);
+				for (final LocalityClass localityClass : LocalityClass.values()) {
+					final List<ModuleExtractor> extractors = List.of(
+							new SyntacticLocalityModuleExtractor(localityClass, axioms.stream()),
+							datalogBasedModuleExtractor);
+					final var nestedModuleExtractor = new NestedModuleExtractor(extractors.stream());
+					final var reversed = List.of(extractors.get(1), extractors.get(0));
+					final var reversedNestedModuleExtractor = new NestedModuleExtractor(reversed.stream());
+					for (final Set<OWLEntity> signature : TestOntologies.signatures(axioms)) {
+						final String message = localityClass + " " + inseparabilityRelation + " " + signature;
+						assertEquals(extractFromScratch(extractors, signature),
+								nestedModuleExtractor.extract(signature.stream()).collect(Collectors.toSet()),
+								message);
+						assertEquals(extractFromScratch(reversed, signature), reversedNestedModuleExtractor
+								.extract(signature.stream()).collect(Collectors.toSet()), message);
+					}
+				}
+			}
+		}
+	}
+
+}
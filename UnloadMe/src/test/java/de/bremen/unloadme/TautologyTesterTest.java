@@ -0,0 +1,77 @@
+package de.bremen.unloadme;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.reasoner.OWLReasoner;
+import org.semanticweb.owlapi.reasoner.structural.StructuralReasonerFactory;
+
+class TautologyTesterTest {
+
+	/**
+	 * Creates structural reasoners whose entailment checks wait until released.
+	 */
+	private static final class BlockingReasonerFactory extends StructuralReasonerFactory {
+
+		private final CountDownLatch entered = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		@Override
+		public OWLReasoner createNonBufferingReasoner(final OWLOntology ontology) {
+			final OWLReasoner reasoner = super.createNonBufferingReasoner(ontology);
+			return (OWLReasoner) Proxy.newProxyInstance(OWLReasoner.class.getClassLoader(),
+					new Class<?>[] { OWLReasoner.class }, (proxy, method, arguments) -> {
+						if (method.getName().equals("isEntailed")) {
+							entered.countDown();
+							release.await();
+						}
+						try {
+							return method.invoke(reasoner, arguments);
+						} catch (final InvocationTargetException e) {
+							throw e.getCause();
+						}
+					});
+		}
+
+	}
+
+	@Test
+	void closeWakesThreadsWaitingForAReasoner() throws Exception {
+		final BlockingReasonerFactory reasonerFactory = new BlockingReasonerFactory();
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			final var tautologyTester = new TautologyTester(OWLManager.createOWLOntologyManager(),
+					reasonerFactory, 1, executor);
+			final OWLAxiom first = TestOntologies.DATA_FACTORY.getOWLSubClassOfAxiom(TestOntologies.clazz("A"),
+					TestOntologies.clazz("B"));
+			final OWLAxiom second = TestOntologies.DATA_FACTORY
+					.getOWLFunctionalObjectPropertyAxiom(TestOntologies.property("f"));
+			final var holding = CompletableFuture.supplyAsync(() -> tautologyTester.isTautology(first), executor);
+			assertTrue(reasonerFactory.entered.await(10, TimeUnit.SECONDS));
+			final var waiting = CompletableFuture.supplyAsync(() -> tautologyTester.isTautology(second), executor);
+			// give the second check the time to wait for the only reasoner
+			Thread.sleep(200);
+			tautologyTester.close();
+			final var thrown = assertThrows(ExecutionException.class, () -> waiting.get(10, TimeUnit.SECONDS));
+			assertTrue(thrown.getCause() instanceof IllegalStateException);
+			reasonerFactory.release.countDown();
+			holding.get(10, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,134 @@
+package de.bremen.unloadme;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+
+/**
+ * Small ontologies covering the features of the datalog rewriting, in
+ * particular equality from functional properties, nominals and same individual
+ * axioms.
+ */
+public final class TestOntologies {
+
+	public static final OWLDataFactory DATA_FACTORY = OWLManager.getOWLDataFactory();
+
+	private static final String NAMESPACE = "http://example.org/test#";
+
+	private TestOntologies() {
+	}
+
+	/**
+	 * @return All ontologies of this class
+	 */
+	public static List<List<OWLAxiom>> all() {
+		return List.of(equality(), hierarchy());
+	}
+
+	public static OWLClass clazz(final String name) {
+		return DATA_FACTORY.getOWLClass(IRI.create(NAMESPACE + name));
+	}
+
+	/**
+	 * @return An ontology where functional and inverse functional properties,
+	 *         nominals and same individual axioms entail equalities between named
+	 *         individuals and anonymous elements
+	 */
+	public static List<OWLAxiom> equality() {
+		final OWLDataFactory df = DATA_FACTORY;
+		return List.of(df.getOWLFunctionalObjectPropertyAxiom(property("f")),
+				df.getOWLInverseFunctionalObjectPropertyAxiom(property("r")),
+				df.getOWLObjectPropertyAssertionAxiom(property("f"), individual("a"), individual("b")),
+				df.getOWLObjectPropertyAssertionAxiom(property("f"), individual("a"), individual("c")),
+				df.getOWLObjectPropertyAssertionAxiom(property("r"), individual("g"), individual("a")),
+				df.getOWLClassAssertionAxiom(clazz("A"), individual("a")),
+				df.getOWLClassAssertionAxiom(clazz("B"), individual("b")),
+				df.getOWLClassAssertionAxiom(clazz("D"), individual("d")),
+				df.getOWLSameIndividualAxiom(individual("c"), individual("d")),
+				df.getOWLSubClassOfAxiom(clazz("B"), clazz("C")),
+				df.getOWLSubClassOfAxiom(clazz("A"), df.getOWLObjectSomeValuesFrom(property("f"), clazz("H"))),
+				df.getOWLSubClassOfAxiom(df.getOWLObjectIntersectionOf(clazz("H"), clazz("D")), clazz("I")),
+				df.getOWLSubClassOfAxiom(df.getOWLObjectOneOf(individual("e")), clazz("E")),
+				df.getOWLSubClassOfAxiom(clazz("E"), df.getOWLObjectHasValue(property("r"), individual("a"))),
+				df.getOWLSubClassOfAxiom(clazz("E"),
+						df.getOWLObjectSomeValuesFrom(property("f"), df.getOWLObjectOneOf(individual("c")))),
+				df.getOWLSubClassOfAxiom(df.getOWLObjectSomeValuesFrom(property("r"), clazz("C")), clazz("F")),
+				df.getOWLEquivalentClassesAxiom(clazz("G"), df.getOWLObjectOneOf(individual("b"))),
+				df.getOWLSubClassOfAxiom(df.getOWLObjectIntersectionOf(clazz("G"), clazz("D")), clazz("J")),
+				df.getOWLDisjointClassesAxiom(clazz("J"), clazz("K")),
+				df.getOWLClassAssertionAxiom(clazz("K"), individual("e")));
+	}
+
+	/**
+	 * @return An ontology of class and property hierarchies with existential and
+	 *         universal restrictions, property chains and a functional property
+	 *         merging anonymous elements
+	 */
+	public static List<OWLAxiom> hierarchy() {
+		final OWLDataFactory df = DATA_FACTORY;
+		return List.of(df.getOWLSubClassOfAxiom(clazz("A"), clazz("B")),
+				df.getOWLSubClassOfAxiom(clazz("B"), df.getOWLObjectSomeValuesFrom(property("r"), clazz("C"))),
+				df.getOWLSubClassOfAxiom(df.getOWLObjectSomeValuesFrom(property("r"), clazz("C")), clazz("D")),
+				df.getOWLSubClassOfAxiom(df.getOWLObjectIntersectionOf(clazz("D"), clazz("B")), clazz("E")),
+				df.getOWLSubClassOfAxiom(clazz("C"), df.getOWLObjectAllValuesFrom(property("t"), clazz("A"))),
+				df.getOWLSubObjectPropertyOfAxiom(property("r"), property("s")),
+				df.getOWLTransitiveObjectPropertyAxiom(property("s")),
+				df.getOWLSubPropertyChainOfAxiom(List.of(property("s"), property("t")), property("u")),
+				df.getOWLInverseObjectPropertiesAxiom(property("r"), property("v")),
+				df.getOWLSubClassOfAxiom(df.getOWLObjectSomeValuesFrom(property("u"), df.getOWLThing()), clazz("F")),
+				df.getOWLSubClassOfAxiom(df.getOWLObjectSomeValuesFrom(property("v"), clazz("B")), clazz("G")),
+				df.getOWLFunctionalObjectPropertyAxiom(property("h")),
+				df.getOWLSubClassOfAxiom(clazz("A"), df.getOWLObjectSomeValuesFrom(property("h"), clazz("B"))),
+				df.getOWLSubClassOfAxiom(clazz("A"), df.getOWLObjectSomeValuesFrom(property("h"), clazz("C"))),
+				df.getOWLSubClassOfAxiom(df.getOWLObjectIntersectionOf(clazz("B"), clazz("C")), clazz("H")),
+				df.getOWLDisjointClassesAxiom(clazz("H"), clazz("I")),
+				df.getOWLObjectPropertyAssertionAxiom(property("s"), individual("a"), individual("b")),
+				df.getOWLObjectPropertyAssertionAxiom(property("s"), individual("b"), individual("c")),
+				df.getOWLObjectPropertyAssertionAxiom(property("t"), individual("c"), individual("d")),
+				df.getOWLClassAssertionAxiom(clazz("C"), individual("c")));
+	}
+
+	public static OWLNamedIndividual individual(final String name) {
+		return DATA_FACTORY.getOWLNamedIndividual(IRI.create(NAMESPACE + name));
+	}
+
+	public static OWLObjectProperty property(final String name) {
+		return DATA_FACTORY.getOWLObjectProperty(IRI.create(NAMESPACE + name));
+	}
+
+	/**
+	 * @return The classes and object properties of the given axioms
+	 */
+	public static Set<OWLEntity> signature(final List<OWLAxiom> axioms) {
+		return axioms.stream().flatMap(OWLAxiom::signature)
+				.filter(next -> next.isOWLClass() || next.isOWLObjectProperty()).collect(Collectors.toSet());
+	}
+
+	/**
+	 * @return Every single class and object property of the given axioms, every
+	 *         pair of them, and all of them together
+	 */
+	public static List<Set<OWLEntity>> signatures(final List<OWLAxiom> axioms) {
+		final List<OWLEntity> signature = new ArrayList<>(signature(axioms));
+		final List<Set<OWLEntity>> signatures = new ArrayList<>();
+		for (int i = 0; i < signature.size(); i++) {
+			signatures.add(Set.of(signature.get(i)));
+			for (int j = i + 1; j < signature.size(); j++) {
+				signatures.add(Set.of(signature.get(i), signature.get(j)));
+			}
+		}
+		signatures.add(Set.copyOf(signature));
+		return signatures;
+	}
+
+}
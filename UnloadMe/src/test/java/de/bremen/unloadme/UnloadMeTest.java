@@ -0,0 +1,82 @@
+package de.bremen.unloadme;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.AddAxiom;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.RemoveAxiom;
+import org.semanticweb.owlapi.modularity.locality.LocalityClass;
+import org.semanticweb.owlapi.reasoner.structural.StructuralReasonerFactory;
+
+import de.bremen.unloadme.modulesettings.InseparabilityRelation;
+
+/**
+ * Compares the modules of an {@link UnloadMe} whose axiom base has been changed
+ * to those of an {@link UnloadMe} constructed from the changed axiom base, also
+ * of their {@link DatalogBasedModuleExtractor}s alone.
+ */
+class UnloadMeTest {
+
+	private static void assertSameModules(final UnloadMe expected, final UnloadMe actual,
+			final Set<OWLEntity> signature, final InseparabilityRelation inseparabilityRelation) {
+		assertEquals(expected.extract(signature.stream()).collect(Collectors.toSet()),
+				actual.extract(signature.stream()).collect(Collectors.toSet()),
+				inseparabilityRelation + " " + signature);
+		assertEquals(
+				expected.getDatalogBasedModuleExtractor().extract(signature.stream()).collect(Collectors.toSet()),
+				actual.getDatalogBasedModuleExtractor().extract(signature.stream()).collect(Collectors.toSet()),
+				inseparabilityRelation + " " + signature);
+	}
+
+	@Test
+	void applyChangesGivesSameModulesAsFreshUnloadMe() throws OWLOntologyCreationException {
+		final var ontologyManager = OWLManager.createOWLOntologyManager();
+		final var ontology = ontologyManager.createOntology();
+		final var reasonerFactory = new StructuralReasonerFactory();
+		final List<List<OWLAxiom>> ontologies = TestOntologies.all();
+		for (int i = 0; i < ontologies.size(); i++) {
+			final List<OWLAxiom> axioms = ontologies.get(i);
+			// every third axiom is added, and the axioms of another ontology are removed
+			final List<OWLAxiom> removed = ontologies.get((i + 1) % ontologies.size()).stream()
+					.filter(next -> !axioms.contains(next)).collect(Collectors.toList());
+			final Set<OWLAxiom> initial = new HashSet<>(removed);
+			final List<OWLOntologyChange> changes = new ArrayList<>();
+			for (int j = 0; j < axioms.size(); j++) {
+				if (j % 3 == 0) {
+					changes.add(new AddAxiom(ontology, axioms.get(j)));
+				} else {
+					initial.add(axioms.get(j));
+				}
+			}
+			removed.forEach(next -> changes.add(new RemoveAxiom(ontology, next)));
+			for (final InseparabilityRelation inseparabilityRelation : InseparabilityRelation.values()) {
+				final var changed = new UnloadMe(initial.stream(), LocalityClass.STAR, inseparabilityRelation,
+						ontologyManager, reasonerFactory);
+				final DatalogBasedModuleExtractor previous = changed.getDatalogBasedModuleExtractor();
+				changed.applyChanges(changes);
+				assertThrows(IllegalStateException.class, () -> previous.extract(Stream.empty()));
+				final var fresh = new UnloadMe(axioms.stream(), LocalityClass.STAR, inseparabilityRelation,
+						ontologyManager, reasonerFactory);
+				assertEquals(Set.copyOf(axioms), changed.axiomBase().collect(Collectors.toSet()));
+				for (final OWLEntity next : TestOntologies.signature(axioms)) {
+					assertSameModules(fresh, changed, Set.of(next), inseparabilityRelation);
+				}
+				assertSameModules(fresh, changed, TestOntologies.signature(axioms), inseparabilityRelation);
+			}
+		}
+	}
+
+}
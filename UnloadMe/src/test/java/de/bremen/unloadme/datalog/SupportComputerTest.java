@@ -0,0 +1,88 @@
+package de.bremen.unloadme.datalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+
+import de.bremen.unloadme.TestOntologies;
+import de.bremen.unloadme.datalog.engine.DatalogEngine;
+import de.bremen.unloadme.datalog.engine.SemiNaiveEngine;
+import de.bremen.unloadme.datalog.engine.VLogEngine;
+import de.bremen.unloadme.modulesettings.Facts;
+import de.bremen.unloadme.modulesettings.InseparabilityRelation;
+import de.bremen.unloadme.modulesettings.ModuleSetting;
+import de.bremen.unloadme.normalform.NormalFormManager;
+
+/**
+ * Compares the supports computed with the different options of the
+ * {@link SupportComputer} to those computed without them, by the
+ * {@link VLogEngine} and by the {@link SemiNaiveEngine}.
+ */
+class SupportComputerTest {
+
+	/**
+	 * @return The {@link VLogEngine}, followed by the {@link SemiNaiveEngine}
+	 *         without and with native equality
+	 */
+	private static List<DatalogEngine> engines() {
+		final var nativeEquality = new SemiNaiveEngine();
+		nativeEquality.setNativeEquality(true);
+		return List.of(new VLogEngine(), new SemiNaiveEngine(), nativeEquality);
+	}
+
+	/**
+	 * Compares the supports of every signature of the {@link TestOntologies} for
+	 * every {@link InseparabilityRelation} and engine computed with the given
+	 * option enabled to those computed with it disabled.
+	 *
+	 * @param option Enables or disables the option of a {@link SupportComputer}
+	 */
+	private static void assertSameSupports(final BiConsumer<SupportComputer, Boolean> option) throws IOException {
+		for (final List<OWLAxiom> axioms : TestOntologies.all()) {
+			for (final InseparabilityRelation inseparabilityRelation : InseparabilityRelation.values()) {
+				final var mapper = new DatalogSignatureMapper();
+				final var normalForm = new NormalFormManager(axioms.stream(), TestOntologies.DATA_FACTORY);
+				final var programManager = new ProgramManager(normalForm.normalFormOfAxiomBase(), mapper);
+				final ModuleSetting moduleSetting = inseparabilityRelation.computeModuleSetting(mapper);
+				programManager.setModuleSetting(moduleSetting);
+				final var supportComputer = new SupportComputer(mapper);
+				supportComputer.setModuleSetting(moduleSetting, programManager.getCompleteDatalogProgram());
+				final Set<CompactStatement> program = programManager.toDatalogProgram(next -> true).getValue();
+				for (final Set<OWLEntity> signature : TestOntologies.signatures(axioms)) {
+					final Facts facts = moduleSetting.getFacts(signature.stream()
+							.map(next -> next.isOWLClass() ? mapper.toPredicate((OWLClass) next)
+									: mapper.toPredicate((OWLObjectProperty) next))
+							.collect(Collectors.toSet()));
+					for (final DatalogEngine engine : engines()) {
+						option.accept(supportComputer, false);
+						final Set<CompactStatement> expected = supportComputer.computeSupport(program, facts, engine);
+						option.accept(supportComputer, true);
+						assertEquals(expected, supportComputer.computeSupport(program, facts, engine),
+								engine + " " + inseparabilityRelation + " " + signature);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void goalDirectedGivesSameSupports() throws IOException {
+		assertSameSupports(SupportComputer::setGoalDirected);
+	}
+
+	@Test
+	void programPruningGivesSameSupports() throws IOException {
+		assertSameSupports(SupportComputer::setProgramPruning);
+	}
+
+}
@@ -0,0 +1,103 @@
+package de.bremen.unloadme.datalog.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.reasoner.structural.StructuralReasonerFactory;
+
+import de.bremen.unloadme.DatalogBasedModuleExtractor;
+import de.bremen.unloadme.TestOntologies;
+import de.bremen.unloadme.datalog.CompactStatement;
+import de.bremen.unloadme.datalog.DatalogSignatureMapper;
+import de.bremen.unloadme.datalog.ProgramManager;
+import de.bremen.unloadme.datalog.SupportComputer;
+import de.bremen.unloadme.modulesettings.Facts;
+import de.bremen.unloadme.modulesettings.InseparabilityRelation;
+import de.bremen.unloadme.modulesettings.ModuleSetting;
+import de.bremen.unloadme.normalform.NormalFormManager;
+
+/**
+ * Compares the supports and modules computed with native equality of the
+ * {@link SemiNaiveEngine} to those computed with the axiomatisation of
+ * equality, by the {@link SemiNaiveEngine} and by the {@link VLogEngine}.
+ */
+class NativeEqualityTest {
+
+	/**
+	 * @return The {@link VLogEngine}, followed by the {@link SemiNaiveEngine}
+	 *         without and with native equality
+	 */
+	private static List<DatalogEngine> engines() {
+		final var nativeEquality = new SemiNaiveEngine();
+		nativeEquality.setNativeEquality(true);
+		return List.of(new VLogEngine(), new SemiNaiveEngine(), nativeEquality);
+	}
+
+	@Test
+	void sameModules() {
+		final OWLOntologyManager ontologyManager = OWLManager.createOWLOntologyManager();
+		for (final List<OWLAxiom> axioms : TestOntologies.all()) {
+			for (final InseparabilityRelation inseparabilityRelation : InseparabilityRelation.values()) {
+				final var extractor = new DatalogBasedModuleExtractor(axioms.stream(), ontologyManager,
+						new StructuralReasonerFactory(), inseparabilityRelation);
+				for (final Set<OWLEntity> signature : TestOntologies.signatures(axioms)) {
+					Set<OWLAxiom> expected = null;
+					for (final DatalogEngine engine : engines()) {
+						extractor.setDatalogEngine(engine);
+						final Set<OWLAxiom> module = extractor.extract(signature.stream())
+								.collect(Collectors.toSet());
+						if (expected == null) {
+							expected = module;
+						} else {
+							assertEquals(expected, module, inseparabilityRelation + " " + signature);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void sameSupports() throws IOException {
+		for (final List<OWLAxiom> axioms : TestOntologies.all()) {
+			for (final InseparabilityRelation inseparabilityRelation : InseparabilityRelation.values()) {
+				final var mapper = new DatalogSignatureMapper();
+				final var normalForm = new NormalFormManager(axioms.stream(), TestOntologies.DATA_FACTORY);
+				final var programManager = new ProgramManager(normalForm.normalFormOfAxiomBase(), mapper);
+				final ModuleSetting moduleSetting = inseparabilityRelation.computeModuleSetting(mapper);
+				programManager.setModuleSetting(moduleSetting);
+				final var supportComputer = new SupportComputer(mapper);
+				supportComputer.setModuleSetting(moduleSetting, programManager.getCompleteDatalogProgram());
+				final Set<CompactStatement> program = programManager.toDatalogProgram(next -> true).getValue();
+				for (final Set<OWLEntity> signature : TestOntologies.signatures(axioms)) {
+					final Facts facts = moduleSetting.getFacts(signature.stream()
+							.map(next -> next.isOWLClass() ? mapper.toPredicate((OWLClass) next)
+									: mapper.toPredicate((OWLObjectProperty) next))
+							.collect(Collectors.toSet()));
+					Set<CompactStatement> expected = null;
+					for (final DatalogEngine engine : engines()) {
+						final Set<CompactStatement> support = supportComputer.computeSupport(program, facts,
+								engine);
+						if (expected == null) {
+							expected = support;
+						} else {
+							assertEquals(expected, support, inseparabilityRelation + " " + signature);
+						}
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,271 @@
+package de.bremen.unloadme.datalog.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+
+import de.bremen.unloadme.TestOntologies;
+import de.bremen.unloadme.datalog.CompactStatement;
+import de.bremen.unloadme.datalog.DatalogSignatureMapper;
+import de.bremen.unloadme.datalog.ProgramManager;
+import de.bremen.unloadme.modulesettings.InseparabilityRelation;
+import de.bremen.unloadme.modulesettings.ModuleSetting;
+import de.bremen.unloadme.normalform.NormalFormManager;
+
+/**
+ * Compares the answers of the {@link SemiNaiveEngine} to those of the
+ * {@link VLogEngine} on the datalog programs of the {@link TestOntologies}.
+ */
+class SemiNaiveEngineTest {
+
+	/**
+	 * The datalog program of an ontology for a {@link ModuleSetting}, with the
+	 * initial facts of its whole signature
+	 */
+	private static final class Program {
+
+		private final DatalogSignatureMapper mapper = new DatalogSignatureMapper();
+		private final Set<CompactStatement> rules = new HashSet<>();
+		private final Set<CompactStatement> facts = new HashSet<>();
+
+		private Program(final List<OWLAxiom> axioms, final InseparabilityRelation inseparabilityRelation) {
+			final var normalForm = new NormalFormManager(axioms.stream(), TestOntologies.DATA_FACTORY);
+			final var programManager = new ProgramManager(normalForm.normalFormOfAxiomBase(), mapper);
+			final ModuleSetting moduleSetting = inseparabilityRelation.computeModuleSetting(mapper);
+			programManager.setModuleSetting(moduleSetting);
+			final Set<CompactStatement> statements = new HashSet<>(
+					programManager.toDatalogProgram(next -> true).getValue());
+			moduleSetting.getFacts(TestOntologies.signature(axioms).stream()
+					.map(next -> next.isOWLClass() ? mapper.toPredicate((OWLClass) next)
+							: mapper.toPredicate((OWLObjectProperty) next))
+					.collect(Collectors.toSet())).getInitialFacts()
+					.forEach(next -> statements.add(mapper.getDictionary().encode(next)));
+			statements.forEach(next -> (next.isFact() ? facts : rules).add(next));
+		}
+
+		private Set<CompactStatement> all() {
+			final Set<CompactStatement> all = new HashSet<>(rules);
+			all.addAll(facts);
+			return all;
+		}
+
+	}
+
+	/**
+	 * @return All answers of every given predicate
+	 */
+	static Map<Integer, Set<List<Integer>>> answers(final Materialisation materialisation, final BitSet predicates) {
+		final Map<Integer, Set<List<Integer>>> answers = new HashMap<>();
+		predicates.stream().forEach(predicate -> {
+			final Set<List<Integer>> tuples = new HashSet<>();
+			materialisation.forEachAnswer(predicate,
+					next -> tuples.add(Arrays.stream(next).boxed().collect(Collectors.toList())));
+			answers.put(predicate, tuples);
+		});
+		return answers;
+	}
+
+	private static void assertSameAnswers(final Program program, final Materialisation expected,
+			final Materialisation actual) {
+		final BitSet predicates = CompactStatement.predicates(program.all());
+		final Map<Integer, Set<List<Integer>>> expectedAnswers = answers(expected, predicates);
+		assertEquals(expectedAnswers, answers(actual, predicates));
+		expectedAnswers.forEach((predicate, tuples) -> tuples.forEach(next -> assertTrue(
+				actual.contains(predicate, next.stream().mapToInt(Integer::intValue).toArray()))));
+	}
+
+	@Test
+	void addedFactsGiveSameAnswersAsVLog() throws IOException {
+		for (final List<OWLAxiom> axioms : TestOntologies.all()) {
+			for (final InseparabilityRelation inseparabilityRelation : InseparabilityRelation.values()) {
+				final Program program = new Program(axioms, inseparabilityRelation);
+				final var dictionary = program.mapper.getDictionary();
+				try (final Materialisation expected = new VLogEngine().materialise(dictionary, program.all());
+						final Materialisation actual = new SemiNaiveEngine().materialise(dictionary,
+								program.rules)) {
+					actual.add(program.facts);
+					assertSameAnswers(program, expected, actual);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The {@link SemiNaiveEngine} without and with native equality, each
+	 *         evaluating strata in parallel
+	 */
+	private static List<SemiNaiveEngine> parallelEngines() {
+		final var parallel = new SemiNaiveEngine();
+		parallel.setParallelStrata(true);
+		final var nativeEquality = new SemiNaiveEngine();
+		nativeEquality.setParallelStrata(true);
+		nativeEquality.setNativeEquality(true);
+		return List.of(parallel, nativeEquality);
+	}
+
+	@Test
+	void parallelStrataGiveSameAnswers() throws IOException {
+		for (final List<OWLAxiom> axioms : TestOntologies.all()) {
+			for (final InseparabilityRelation inseparabilityRelation : InseparabilityRelation.values()) {
+				final Program program = new Program(axioms, inseparabilityRelation);
+				final var dictionary = program.mapper.getDictionary();
+				for (final SemiNaiveEngine parallel : parallelEngines()) {
+					final var sequential = new SemiNaiveEngine();
+					sequential.setNativeEquality(parallel.isNativeEquality());
+					try (final Materialisation expected = sequential.materialise(dictionary, program.all());
+							final Materialisation actual = parallel.materialise(dictionary, program.all())) {
+						assertSameAnswers(program, expected, actual);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the facts one by one, so that the tuples of a stratum are passed on to
+	 * higher strata in many rounds.
+	 */
+	@Test
+	void parallelStrataGiveSameAnswersForAddedFacts() throws IOException {
+		for (final List<OWLAxiom> axioms : TestOntologies.all()) {
+			for (final InseparabilityRelation inseparabilityRelation : InseparabilityRelation.values()) {
+				final Program program = new Program(axioms, inseparabilityRelation);
+				final var dictionary = program.mapper.getDictionary();
+				for (final SemiNaiveEngine parallel : parallelEngines()) {
+					final var sequential = new SemiNaiveEngine();
+					sequential.setNativeEquality(parallel.isNativeEquality());
+					try (final Materialisation expected = sequential.materialise(dictionary, program.all());
+							final Materialisation actual = parallel.materialise(dictionary, program.rules)) {
+						for (final CompactStatement next : program.facts) {
+							actual.add(List.of(next));
+						}
+						assertSameAnswers(program, expected, actual);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compares the extension of the shared materialisation of the given
+	 * statements of the program by the remaining ones with parallel strata to the
+	 * materialisation of the program, and the extension by nothing to the
+	 * materialisation of the shared statements, which must not change by the
+	 * extension.
+	 */
+	private static void assertSameAnswersForSharedMaterialisation(final Program program,
+			final Set<CompactStatement> shared) throws IOException {
+		final var dictionary = program.mapper.getDictionary();
+		final Set<CompactStatement> extension = new HashSet<>(program.all());
+		extension.removeAll(shared);
+		for (final SemiNaiveEngine parallel : parallelEngines()) {
+			final var sequential = new SemiNaiveEngine();
+			sequential.setNativeEquality(parallel.isNativeEquality());
+			try (final Materialisation expected = sequential.materialise(dictionary, program.all());
+					final Materialisation expectedShared = sequential.materialise(dictionary, shared);
+					final SharedMaterialisation sharedMaterialisation = parallel.share(dictionary, shared);
+					final Materialisation actual = sharedMaterialisation.extend(extension);
+					final Materialisation actualShared = sharedMaterialisation.extend(List.of())) {
+				assertSameAnswers(program, expected, actual);
+				assertSameAnswers(program, expectedShared, actualShared);
+			}
+		}
+	}
+
+	/**
+	 * Extends the shared materialisation by the statements of the predicates that
+	 * no rule uses and by every other fact, so that rules are added to the strata
+	 * of the shared materialisation like the reductions of seed facts.
+	 */
+	@Test
+	void parallelStrataGiveSameAnswersForExtendedStrata() throws IOException {
+		for (final List<OWLAxiom> axioms : TestOntologies.all()) {
+			for (final InseparabilityRelation inseparabilityRelation : InseparabilityRelation.values()) {
+				final Program program = new Program(axioms, inseparabilityRelation);
+				final BitSet used = new BitSet();
+				for (final CompactStatement next : program.rules) {
+					for (int offset = 0; offset < next.body().length; offset = CompactStatement.next(next.body(),
+							offset)) {
+						used.set(next.body()[offset]);
+					}
+				}
+				final Set<CompactStatement> shared = new HashSet<>();
+				boolean everyOther = false;
+				for (final CompactStatement next : program.all()) {
+					final BitSet head = CompactStatement.predicates(List.of(CompactStatement.fact(next.head())));
+					if (head.intersects(used) && (!next.isFact() || (everyOther = !everyOther))) {
+						shared.add(next);
+					}
+				}
+				assertSameAnswersForSharedMaterialisation(program, shared);
+			}
+		}
+	}
+
+	/**
+	 * Extends the shared materialisation of every other rule by the remaining
+	 * rules, which mostly do not fit into its strata.
+	 */
+	@Test
+	void parallelStrataGiveSameAnswersForRebuiltStrata() throws IOException {
+		for (final List<OWLAxiom> axioms : TestOntologies.all()) {
+			for (final InseparabilityRelation inseparabilityRelation : InseparabilityRelation.values()) {
+				final Program program = new Program(axioms, inseparabilityRelation);
+				final Set<CompactStatement> shared = new HashSet<>(program.facts);
+				boolean everyOther = false;
+				for (final CompactStatement next : program.rules) {
+					if (everyOther = !everyOther) {
+						shared.add(next);
+					}
+				}
+				assertSameAnswersForSharedMaterialisation(program, shared);
+			}
+		}
+	}
+
+	@Test
+	void sameAnswersAsVLog() throws IOException {
+		for (final List<OWLAxiom> axioms : TestOntologies.all()) {
+			for (final InseparabilityRelation inseparabilityRelation : InseparabilityRelation.values()) {
+				final Program program = new Program(axioms, inseparabilityRelation);
+				final var dictionary = program.mapper.getDictionary();
+				try (final Materialisation expected = new VLogEngine().materialise(dictionary, program.all());
+						final Materialisation actual = new SemiNaiveEngine().materialise(dictionary,
+								program.all())) {
+					assertSameAnswers(program, expected, actual);
+				}
+			}
+		}
+	}
+
+	@Test
+	void sharedMaterialisationGivesSameAnswersAsVLog() throws IOException {
+		for (final List<OWLAxiom> axioms : TestOntologies.all()) {
+			for (final InseparabilityRelation inseparabilityRelation : InseparabilityRelation.values()) {
+				final Program program = new Program(axioms, inseparabilityRelation);
+				final var dictionary = program.mapper.getDictionary();
+				try (final Materialisation expected = new VLogEngine().materialise(dictionary, program.all());
+						final SharedMaterialisation shared = new SemiNaiveEngine().share(dictionary,
+								program.rules);
+						final Materialisation actual = shared.extend(program.facts)) {
+					assertSameAnswers(program, expected, actual);
+				}
+			}
+		}
+	}
+
+}
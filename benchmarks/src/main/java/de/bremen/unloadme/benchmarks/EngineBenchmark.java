@@ -0,0 +1,127 @@
+package de.bremen.unloadme.benchmarks;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+
+import de.bremen.unloadme.datalog.CompactStatement;
+import de.bremen.unloadme.datalog.DatalogSignatureMapper;
+import de.bremen.unloadme.datalog.ProgramManager;
+import de.bremen.unloadme.datalog.SupportComputer;
+import de.bremen.unloadme.datalog.engine.DatalogEngine;
+import de.bremen.unloadme.datalog.engine.Materialisation;
+import de.bremen.unloadme.datalog.engine.SemiNaiveEngine;
+import de.bremen.unloadme.datalog.engine.VLogEngine;
+import de.bremen.unloadme.modulesettings.Facts;
+import de.bremen.unloadme.modulesettings.InseparabilityRelation;
+import de.bremen.unloadme.modulesettings.ModuleSetting;
+import de.bremen.unloadme.normalform.NormalFormManager;
+
+/**
+ * Compares the {@link DatalogEngine}s on the same, module-sized datalog
+ * programs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EngineBenchmark {
+
+	public enum Engine {
+		VLOG {
+			@Override
+			DatalogEngine create() {
+				return new VLogEngine();
+			}
+		},
+		SEMI_NAIVE {
+			@Override
+			DatalogEngine create() {
+				return new SemiNaiveEngine();
+			}
+		},
+		SEMI_NAIVE_EQUALITY {
+			@Override
+			DatalogEngine create() {
+				final var engine = new SemiNaiveEngine();
+				engine.setNativeEquality(true);
+				return engine;
+			}
+		};
+
+		abstract DatalogEngine create();
+	}
+
+	@Param({ "VLOG", "SEMI_NAIVE", "SEMI_NAIVE_EQUALITY" })
+	public Engine engine;
+
+	@Param({ "MODEL", "BOOLEAN_PEQ", "IMPLICATION", "FACT" })
+	public InseparabilityRelation inseparabilityRelation;
+
+	@Param({ "100", "1000" })
+	public int size;
+
+	private DatalogEngine datalogEngine;
+	private ProgramManager programManager;
+	private SupportComputer supportComputer;
+	private Facts facts;
+	private DatalogSignatureMapper mapper;
+	private Set<CompactStatement> program;
+
+	@Setup
+	public void setup() {
+		datalogEngine = engine.create();
+		final var generator = new OntologyGenerator(size, 42);
+		final var nfManager = new NormalFormManager(generator.axioms().stream(), OWLManager.getOWLDataFactory());
+		mapper = new DatalogSignatureMapper();
+		programManager = new ProgramManager(nfManager.normalFormOfAxiomBase(), mapper);
+		final ModuleSetting moduleSetting = inseparabilityRelation.computeModuleSetting(mapper);
+		programManager.setModuleSetting(moduleSetting);
+		supportComputer = new SupportComputer(mapper);
+		supportComputer.setModuleSetting(moduleSetting, programManager.getCompleteDatalogProgram());
+
+		facts = moduleSetting.getFacts(generator.signature(5).stream()
+				.map(next -> next.isOWLClass() ? mapper.toPredicate((OWLClass) next)
+						: mapper.toPredicate((OWLObjectProperty) next))
+				.collect(Collectors.toSet()));
+		program = new HashSet<>(programManager.toDatalogProgram(next -> true).getValue());
+		facts.getInitialFacts().forEach(next -> program.add(mapper.getDictionary().encode(next)));
+	}
+
+	@Benchmark
+	public Set<CompactStatement> computeSupport() throws IOException {
+		return supportComputer.computeSupport(programManager.toDatalogProgram(next -> true).getValue(), facts,
+				datalogEngine);
+	}
+
+	@Benchmark
+	public int materialise() throws IOException {
+		try (Materialisation materialisation = datalogEngine.materialise(mapper.getDictionary(), program)) {
+			final int[] answers = new int[1];
+			materialisation.forEachAnswer(
+					mapper.getDictionary().id(facts.getInitialFacts().iterator().next().getPredicate()),
+					next -> answers[0]++);
+			return answers[0];
+		}
+	}
+
+}
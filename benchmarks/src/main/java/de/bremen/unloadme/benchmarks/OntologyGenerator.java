@@ -0,0 +1,125 @@
+package de.bremen.unloadme.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+
+/**
+ * Generates random, reproducible ontologies consisting of axioms supported by
+ * UnloadMe. The generated axioms cover all constructs that lead to different
+ * datalog rules: atomic and existential sub- and superclasses, conjunctions,
+ * disjointness, functional and transitive properties, property chains and
+ * assertions.
+ */
+public class OntologyGenerator {
+
+	private static final String NAMESPACE = "http://www.informatik.uni-bremen.de/unloadme/benchmarks#";
+
+	private final OWLDataFactory dF = OWLManager.getOWLDataFactory();
+	private final Random random;
+	private final List<OWLClass> classes;
+	private final List<OWLObjectProperty> properties;
+	private final List<OWLNamedIndividual> individuals;
+	private final int size;
+
+	/**
+	 * @param size The number of axioms to generate, the signature grows
+	 *             accordingly
+	 * @param seed The seed of the random generator
+	 */
+	public OntologyGenerator(final int size, final long seed) {
+		random = new Random(seed);
+		classes = IntStream.range(0, Math.max(size / 2, 2))
+				.mapToObj(next -> dF.getOWLClass(IRI.create(NAMESPACE, "C" + next))).collect(Collectors.toList());
+		properties = IntStream.range(0, Math.max(size / 20, 2))
+				.mapToObj(next -> dF.getOWLObjectProperty(IRI.create(NAMESPACE, "r" + next)))
+				.collect(Collectors.toList());
+		individuals = IntStream.range(0, Math.max(size / 20, 2))
+				.mapToObj(next -> dF.getOWLNamedIndividual(IRI.create(NAMESPACE, "i" + next)))
+				.collect(Collectors.toList());
+		this.size = size;
+	}
+
+	private OWLClass anyClass() {
+		return classes.get(random.nextInt(classes.size()));
+	}
+
+	private OWLNamedIndividual anyIndividual() {
+		return individuals.get(random.nextInt(individuals.size()));
+	}
+
+	private OWLObjectProperty anyProperty() {
+		return properties.get(random.nextInt(properties.size()));
+	}
+
+	/**
+	 * @return The generated axioms
+	 */
+	public List<OWLAxiom> axioms() {
+		final List<OWLAxiom> axioms = new ArrayList<>(size);
+		while (axioms.size() < size) {
+			axioms.add(nextAxiom());
+		}
+		return axioms;
+	}
+
+	private OWLAxiom nextAxiom() {
+		final int kind = random.nextInt(100);
+		if (kind < 30) {
+			return dF.getOWLSubClassOfAxiom(anyClass(), anyClass());
+		}
+		if (kind < 50) {
+			return dF.getOWLSubClassOfAxiom(anyClass(), dF.getOWLObjectSomeValuesFrom(anyProperty(), anyClass()));
+		}
+		if (kind < 62) {
+			return dF.getOWLSubClassOfAxiom(dF.getOWLObjectSomeValuesFrom(anyProperty(), anyClass()), anyClass());
+		}
+		if (kind < 72) {
+			return dF.getOWLSubClassOfAxiom(dF.getOWLObjectIntersectionOf(anyClass(), anyClass()), anyClass());
+		}
+		if (kind < 76) {
+			return dF.getOWLDisjointClassesAxiom(anyClass(), anyClass());
+		}
+		if (kind < 80) {
+			return dF.getOWLSubObjectPropertyOfAxiom(anyProperty(), anyProperty());
+		}
+		if (kind < 82) {
+			return dF.getOWLTransitiveObjectPropertyAxiom(anyProperty());
+		}
+		if (kind < 83) {
+			return dF.getOWLFunctionalObjectPropertyAxiom(anyProperty());
+		}
+		if (kind < 85) {
+			return dF.getOWLSubPropertyChainOfAxiom(List.of(anyProperty(), anyProperty()), anyProperty());
+		}
+		if (kind < 92) {
+			return dF.getOWLClassAssertionAxiom(anyClass(), anyIndividual());
+		}
+		return dF.getOWLObjectPropertyAssertionAxiom(anyProperty(), anyIndividual(), anyIndividual());
+	}
+
+	/**
+	 * @param count The number of entities
+	 * @return A random seed signature of classes and properties of the generated
+	 *         ontology
+	 */
+	public List<OWLEntity> signature(final int count) {
+		final List<OWLEntity> signature = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			signature.add(random.nextInt(4) == 0 ? anyProperty() : anyClass());
+		}
+		return signature;
+	}
+
+}
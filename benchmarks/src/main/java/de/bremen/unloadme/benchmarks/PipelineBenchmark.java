@@ -0,0 +1,250 @@
+package de.bremen.unloadme.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.modularity.locality.LocalityClass;
+import org.semanticweb.owlapi.reasoner.OWLReasonerFactory;
+import org.semanticweb.owlapi.reasoner.structural.StructuralReasonerFactory;
+
+import de.bremen.unloadme.TautologyTester;
+import de.bremen.unloadme.UnloadMe;
+import de.bremen.unloadme.Util;
+import de.bremen.unloadme.datalog.CompactStatement;
+import de.bremen.unloadme.datalog.DatalogRewriter;
+import de.bremen.unloadme.datalog.DatalogSignatureMapper;
+import de.bremen.unloadme.datalog.ProgramManager;
+import de.bremen.unloadme.datalog.SupportComputer;
+import de.bremen.unloadme.modulesettings.Facts;
+import de.bremen.unloadme.modulesettings.InseparabilityRelation;
+import de.bremen.unloadme.modulesettings.ModuleSetting;
+import de.bremen.unloadme.normalform.NormalFormManager;
+
+/**
+ * Benchmarks every stage of the module extraction pipeline on its own: tautology
+ * checks, normal form, datalog rewriting, substitution by the
+ * {@link ModuleSetting}, restriction of the datalog program, support computation
+ * and the end-to-end extraction of {@link UnloadMe}. Each benchmark only runs
+ * for the parameters its stage depends on.
+ *
+ * The ontology is generated by the {@link OntologyGenerator}, or loaded from
+ * the file given by the parameter ontologyFile, e.g.
+ * {@code -p ontologyFile=/path/to/ontology.owl}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+
+	/**
+	 * The axiom base, its normal form and a seed signature within the signature
+	 * of the normal form.
+	 */
+	@State(Scope.Benchmark)
+	public static class OntologyState {
+
+		@Param({ "100", "1000" })
+		public int size;
+
+		@Param({ "" })
+		public String ontologyFile;
+
+		@Param({ "5" })
+		public int signatureSize;
+
+		private List<OWLAxiom> axioms;
+		private NormalFormManager nfManager;
+		private List<OWLAxiom> normalForm;
+		private Set<OWLEntity> signature;
+
+		@Setup
+		public void setup() throws OWLOntologyCreationException {
+			if (ontologyFile.isEmpty()) {
+				axioms = new OntologyGenerator(size, 42).axioms();
+			} else {
+				axioms = Util.cleanAxiomBase(OWLManager.createOWLOntologyManager()
+						.loadOntologyFromOntologyDocument(new File(ontologyFile)).axioms())
+						.collect(Collectors.toList());
+			}
+			nfManager = new NormalFormManager(axioms.stream(), OWLManager.getOWLDataFactory());
+			normalForm = nfManager.normalFormOfAxiomBase().collect(Collectors.toList());
+			final List<OWLEntity> nfSignature = new ArrayList<>(Util
+					.cleanSignature(normalForm.stream().flatMap(OWLAxiom::signature)).collect(Collectors.toSet()));
+			nfSignature.sort(null);
+			Collections.shuffle(nfSignature, new Random(42));
+			signature = Set.copyOf(nfSignature.subList(0, Math.min(signatureSize, nfSignature.size())));
+		}
+
+	}
+
+	/**
+	 * The datalog program of the normal form for one
+	 * {@link InseparabilityRelation}.
+	 */
+	@State(Scope.Benchmark)
+	public static class ProgramState {
+
+		@Param({ "MODEL", "BOOLEAN_PEQ", "IMPLICATION", "FACT" })
+		public InseparabilityRelation inseparabilityRelation;
+
+		private DatalogSignatureMapper mapper;
+		private List<CompactStatement> statements;
+		private ProgramManager programManager;
+		private ModuleSetting moduleSetting;
+
+		@Setup
+		public void setup(final OntologyState ontology) {
+			mapper = new DatalogSignatureMapper();
+			final var rewriter = new DatalogRewriter(mapper);
+			statements = ontology.normalForm.stream().flatMap(rewriter::rewrite).collect(Collectors.toList());
+			programManager = new ProgramManager(ontology.normalForm.stream(), mapper);
+			moduleSetting = inseparabilityRelation.computeModuleSetting(mapper);
+			programManager.setModuleSetting(moduleSetting);
+		}
+
+	}
+
+	/**
+	 * The reduction of the datalog program and the facts of the seed signature
+	 * for one {@link EngineBenchmark.Engine}.
+	 */
+	@State(Scope.Benchmark)
+	public static class SupportState {
+
+		@Param({ "VLOG", "SEMI_NAIVE" })
+		public EngineBenchmark.Engine engine;
+
+		private SupportComputer supportComputer;
+		private Facts facts;
+		private Set<CompactStatement> program;
+
+		@Setup
+		public void setup(final OntologyState ontology, final ProgramState program) {
+			supportComputer = new SupportComputer(program.mapper);
+			supportComputer.setModuleSetting(program.moduleSetting,
+					program.programManager.getCompleteDatalogProgram());
+			supportComputer.setEngine(engine.create());
+			facts = program.moduleSetting.getFacts(ontology.signature.stream()
+					.map(next -> next.isOWLClass() ? program.mapper.toPredicate((OWLClass) next)
+							: program.mapper.toPredicate((OWLObjectProperty) next))
+					.collect(Collectors.toSet()));
+			this.program = program.programManager.toDatalogProgram(next -> true).getValue();
+		}
+
+	}
+
+	/**
+	 * A fresh {@link TautologyTester} for every invocation, so that no verdict is
+	 * memoised.
+	 */
+	@State(Scope.Thread)
+	public static class TautologyState {
+
+		private final OWLReasonerFactory reasonerFactory = new StructuralReasonerFactory();
+		private TautologyTester tautologyTester;
+
+		@Setup(Level.Invocation)
+		public void setup() {
+			tautologyTester = new TautologyTester(OWLManager.createOWLOntologyManager(), reasonerFactory);
+		}
+
+		@TearDown(Level.Invocation)
+		public void tearDown() {
+			tautologyTester.close();
+		}
+
+	}
+
+	/**
+	 * {@link UnloadMe} for one {@link LocalityClass} and
+	 * {@link InseparabilityRelation}.
+	 */
+	@State(Scope.Benchmark)
+	public static class UnloadMeState {
+
+		@Param({ "BOTTOM", "TOP", "STAR" })
+		public LocalityClass localityClass;
+
+		@Param({ "MODEL", "BOOLEAN_PEQ", "IMPLICATION", "FACT" })
+		public InseparabilityRelation inseparabilityRelation;
+
+		private UnloadMe unloadMe;
+
+		@Setup
+		public void setup(final OntologyState ontology) {
+			unloadMe = new UnloadMe(ontology.axioms.stream(), localityClass, inseparabilityRelation,
+					OWLManager.createOWLOntologyManager(), new StructuralReasonerFactory());
+		}
+
+	}
+
+	@Benchmark
+	public Set<CompactStatement> computeSupport(final SupportState support) throws IOException {
+		return support.supportComputer.computeSupport(support.program, support.facts);
+	}
+
+	@Benchmark
+	public Set<OWLAxiom> extract(final OntologyState ontology, final UnloadMeState unloadMe) {
+		return unloadMe.unloadMe.extract(ontology.signature.stream()).collect(Collectors.toSet());
+	}
+
+	@Benchmark
+	public void isTautology(final OntologyState ontology, final TautologyState tautology, final Blackhole blackhole) {
+		ontology.axioms.forEach(next -> blackhole.consume(tautology.tautologyTester.isTautology(next)));
+	}
+
+	@Benchmark
+	public void moduleSettingApply(final ProgramState program, final Blackhole blackhole) {
+		program.statements
+				.forEach(next -> blackhole.consume(ModuleSetting.apply(program.moduleSetting, next, program.mapper)));
+	}
+
+	@Benchmark
+	public NormalFormManager normalForm(final OntologyState ontology) {
+		return new NormalFormManager(ontology.axioms.stream(), OWLManager.getOWLDataFactory());
+	}
+
+	@Benchmark
+	public void rewrite(final OntologyState ontology, final Blackhole blackhole) {
+		final var rewriter = new DatalogRewriter(new DatalogSignatureMapper());
+		ontology.normalForm.forEach(next -> rewriter.rewrite(next).forEach(blackhole::consume));
+	}
+
+	@Benchmark
+	public Pair<BitSet, Set<CompactStatement>> toDatalogProgram(
+			final ProgramState program) {
+		return program.programManager.toDatalogProgram(next -> true);
+	}
+
+}